@@ -21,18 +21,30 @@ package org.nuxeo.client.cache;
 
 import java.util.concurrent.TimeUnit;
 
+import com.google.common.base.Ticker;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 
 import retrofit2.Response;
 
 /**
+ * In memory {@link NuxeoResponseCache} backed by a Guava {@link Cache}.
+ * <p />
+ * Responses are fresh during the timeout, then they are kept stale during the stale timeout, if any, in order to be
+ * revalidated with a conditional request, see {@link RevalidatingResponseCache}. This allows to use short timeouts
+ * without fetching again unchanged documents.
+ *
  * @since 0.1
  */
-public class ResultCacheInMemory implements NuxeoResponseCache {
+public class ResultCacheInMemory implements RevalidatingResponseCache {
 
     protected final Cache<String, Response<?>> cache;
 
+    /**
+     * @since 3.1
+     */
+    protected final Cache<String, Boolean> freshKeys;
+
     protected static final int DEFAULT_CONCURRENCY_LEVEL = 10;
 
     protected static final int DEFAULT_MAXIMUM_SIZE = 1000;
@@ -48,22 +60,57 @@ public class ResultCacheInMemory implements NuxeoResponseCache {
     }
 
     public ResultCacheInMemory(int concurrencyLevel, long maximumSize, long timeout, TimeUnit timeUnit) {
+        this(concurrencyLevel, maximumSize, timeout, 0, timeUnit);
+    }
+
+    /**
+     * @param timeout the duration during which a response is fresh
+     * @param staleTimeout the duration during which a response is kept after its timeout in order to be revalidated
+     * @since 3.1
+     */
+    public ResultCacheInMemory(int concurrencyLevel, long maximumSize, long timeout, long staleTimeout,
+            TimeUnit timeUnit) {
+        this(concurrencyLevel, maximumSize, timeout, staleTimeout, timeUnit, Ticker.systemTicker());
+    }
+
+    /**
+     * @param ticker the time source of expirations
+     * @since 3.1
+     */
+    protected ResultCacheInMemory(int concurrencyLevel, long maximumSize, long timeout, long staleTimeout,
+            TimeUnit timeUnit, Ticker ticker) {
         cache = CacheBuilder.newBuilder()
                             .concurrencyLevel(concurrencyLevel)
                             .maximumSize(maximumSize)
-                            .expireAfterWrite(timeout, timeUnit)
+                            .expireAfterWrite(timeout + staleTimeout, timeUnit)
+                            .ticker(ticker)
                             .build();
+        freshKeys = CacheBuilder.newBuilder()
+                                .concurrencyLevel(concurrencyLevel)
+                                .maximumSize(maximumSize)
+                                .expireAfterWrite(timeout, timeUnit)
+                                .ticker(ticker)
+                                .build();
     }
 
     @Override
-    @SuppressWarnings("unchecked")
     public <T> Response<T> getResponse(String key) {
+        if (freshKeys.getIfPresent(key) == null) {
+            return null;
+        }
+        return getStaleResponse(key);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> Response<T> getStaleResponse(String key) {
         return (Response<T>) cache.getIfPresent(key);
     }
 
     @Override
     public void put(String key, Response<?> value) {
         cache.put(key, value);
+        freshKeys.put(key, Boolean.TRUE);
     }
 
     @Override
@@ -83,6 +130,7 @@ public class ResultCacheInMemory implements NuxeoResponseCache {
     @Override
     public void invalidateAll() {
         cache.invalidateAll();
+        freshKeys.invalidateAll();
     }
 
 }
@@ -0,0 +1,104 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Kevin Leturc <kleturc@nuxeo.com>
+ */
+package org.nuxeo.client.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.google.common.base.Ticker;
+
+import retrofit2.Response;
+
+/**
+ * @since 3.1
+ */
+public class TestResultCacheInMemory {
+
+    protected final FakeTicker ticker = new FakeTicker();
+
+    @Test
+    public void testResponseIsFreshThenStale() {
+        ResultCacheInMemory cache = new ResultCacheInMemory(1, 10, 10, 20, TimeUnit.SECONDS, ticker);
+        Response<String> response = Response.success("body");
+        cache.put("key", response);
+
+        assertSame(response, cache.getResponse("key"));
+        assertEquals("body", cache.getBody("key"));
+
+        // stale response is only returned for revalidation
+        ticker.advance(10, TimeUnit.SECONDS);
+        assertNull(cache.getResponse("key"));
+        assertNull(cache.getBody("key"));
+        assertSame(response, cache.getStaleResponse("key"));
+
+        // putting the response again makes it fresh
+        cache.put("key", response);
+        assertSame(response, cache.getResponse("key"));
+
+        ticker.advance(30, TimeUnit.SECONDS);
+        assertNull(cache.getResponse("key"));
+        assertNull(cache.getStaleResponse("key"));
+    }
+
+    @Test
+    public void testResponseExpiresWithoutStaleTimeout() {
+        ResultCacheInMemory cache = new ResultCacheInMemory(1, 10, 10, 0, TimeUnit.SECONDS, ticker);
+        Response<String> response = Response.success("body");
+        cache.put("key", response);
+
+        ticker.advance(9, TimeUnit.SECONDS);
+        assertSame(response, cache.getResponse("key"));
+
+        ticker.advance(1, TimeUnit.SECONDS);
+        assertNull(cache.getResponse("key"));
+        assertNull(cache.getStaleResponse("key"));
+    }
+
+    @Test
+    public void testInvalidateAll() {
+        ResultCacheInMemory cache = new ResultCacheInMemory(1, 10, 10, 20, TimeUnit.SECONDS, ticker);
+        cache.put("key", Response.success("body"));
+
+        cache.invalidateAll();
+
+        assertEquals(0, cache.size());
+        assertNull(cache.getStaleResponse("key"));
+    }
+
+    protected static class FakeTicker extends Ticker {
+
+        protected long nanos;
+
+        @Override
+        public long read() {
+            return nanos;
+        }
+
+        public void advance(long duration, TimeUnit unit) {
+            nanos += unit.toNanos(duration);
+        }
+
+    }
+
+}
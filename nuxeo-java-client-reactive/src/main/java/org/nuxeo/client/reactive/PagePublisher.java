@@ -0,0 +1,194 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Kevin Leturc <kleturc@nuxeo.com>
+ */
+package org.nuxeo.client.reactive;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+
+import org.nuxeo.client.objects.PaginableEntity;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+/**
+ * {@link Publisher} emitting the entries of a paginated result. Pages are fetched on demand: the next page is
+ * only fetched when the entries of the current one have been emitted and the subscriber requested more, so at most one
+ * page is buffered per subscription.
+ * <p />
+ * Pages are fetched and entries are emitted by the input executor, by default the thread calling
+ * {@link Subscription#request(long)}.
+ *
+ * @param <T> The entry type.
+ * @since 3.1
+ */
+public class PagePublisher<T> implements Publisher<T> {
+
+    protected final IntFunction<? extends PaginableEntity<T>> pageFetcher;
+
+    protected final Executor executor;
+
+    /**
+     * @param pageFetcher the function fetching a page from its index, starting from 0
+     */
+    public PagePublisher(IntFunction<? extends PaginableEntity<T>> pageFetcher) {
+        this(pageFetcher, Runnable::run);
+    }
+
+    /**
+     * @param pageFetcher the function fetching a page from its index, starting from 0
+     * @param executor the executor fetching pages and emitting entries
+     */
+    public PagePublisher(IntFunction<? extends PaginableEntity<T>> pageFetcher, Executor executor) {
+        this.pageFetcher = Objects.requireNonNull(pageFetcher, "Page fetcher must be provided");
+        this.executor = Objects.requireNonNull(executor, "Executor must be provided");
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super T> subscriber) {
+        Objects.requireNonNull(subscriber, "Subscriber must be provided");
+        subscriber.onSubscribe(new PageSubscription<>(subscriber, pageFetcher, executor));
+    }
+
+    /**
+     * Subscription emitting entries in a drain loop, the loop is run by one thread at a time.
+     */
+    protected static class PageSubscription<T> implements Subscription, Runnable {
+
+        protected final Subscriber<? super T> subscriber;
+
+        protected final IntFunction<? extends PaginableEntity<T>> pageFetcher;
+
+        protected final Executor executor;
+
+        protected final AtomicLong requested = new AtomicLong();
+
+        protected final AtomicInteger wip = new AtomicInteger();
+
+        protected volatile boolean cancelled;
+
+        protected volatile Throwable invalidRequest;
+
+        // fields below are only accessed from the drain loop
+
+        protected Iterator<T> entries = Collections.emptyIterator();
+
+        protected int nextPageIndex;
+
+        protected boolean lastPage;
+
+        protected boolean done;
+
+        protected PageSubscription(Subscriber<? super T> subscriber,
+                IntFunction<? extends PaginableEntity<T>> pageFetcher, Executor executor) {
+            this.subscriber = subscriber;
+            this.pageFetcher = pageFetcher;
+            this.executor = executor;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                invalidRequest = new IllegalArgumentException("Requested items must be positive, got: " + n);
+            } else {
+                requested.accumulateAndGet(n, (current, added) -> {
+                    long sum = current + added;
+                    return sum < 0 ? Long.MAX_VALUE : sum;
+                });
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+
+        protected void drain() {
+            if (wip.getAndIncrement() == 0) {
+                executor.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+            do {
+                long demand = requested.get();
+                long emitted = 0;
+                while (!done && !cancelled) {
+                    if (invalidRequest != null) {
+                        terminate(invalidRequest);
+                    } else if (entries.hasNext()) {
+                        if (emitted == demand) {
+                            break;
+                        }
+                        subscriber.onNext(entries.next());
+                        emitted++;
+                    } else if (lastPage) {
+                        terminate(null);
+                    } else if (emitted == demand) {
+                        // don't fetch the next page until it is requested
+                        break;
+                    } else {
+                        fetchNextPage();
+                    }
+                }
+                if (emitted > 0 && demand != Long.MAX_VALUE) {
+                    requested.addAndGet(-emitted);
+                }
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        protected void fetchNextPage() {
+            PaginableEntity<T> page;
+            try {
+                page = pageFetcher.apply(nextPageIndex++);
+            } catch (RuntimeException e) {
+                terminate(e);
+                return;
+            }
+            List<T> pageEntries = page == null ? null : page.getEntries();
+            if (pageEntries == null || pageEntries.isEmpty()) {
+                lastPage = true;
+            } else {
+                entries = pageEntries.iterator();
+                lastPage = !page.isNextPageAvailable();
+            }
+        }
+
+        protected void terminate(Throwable t) {
+            done = true;
+            entries = Collections.emptyIterator();
+            if (t == null) {
+                subscriber.onComplete();
+            } else {
+                subscriber.onError(t);
+            }
+        }
+
+    }
+
+}
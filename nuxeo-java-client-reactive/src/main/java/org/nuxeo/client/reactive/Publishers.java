@@ -0,0 +1,83 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Kevin Leturc <kleturc@nuxeo.com>
+ */
+package org.nuxeo.client.reactive;
+
+import org.nuxeo.client.objects.Document;
+import org.nuxeo.client.objects.Repository;
+import org.nuxeo.client.objects.audit.LogEntry;
+import org.nuxeo.client.objects.user.User;
+import org.nuxeo.client.objects.user.UserManager;
+import org.reactivestreams.Publisher;
+
+/**
+ * Factory of reactive streams {@link Publisher}s streaming paginated results of Nuxeo APIs. Pages are fetched on demand
+ * with the input page size, see {@link PagePublisher}.
+ * <p />
+ * Publishers can be consumed by any reactive streams library such as Reactor or RxJava, or adapted to
+ * {@code java.util.concurrent.Flow} on Java 9 or later with {@code org.reactivestreams.FlowAdapters}.
+ * <p />
+ * Usage:
+ *
+ * <pre>
+ * Publishers.query(nuxeoClient.repository(), "SELECT * FROM Document", 100).subscribe(subscriber);
+ * </pre>
+ *
+ * @since 3.1
+ */
+public final class Publishers {
+
+    private Publishers() {
+        // utility class
+    }
+
+    public static Publisher<Document> query(Repository repository, String query, int pageSize) {
+        return query(repository, query, pageSize, null, null, null);
+    }
+
+    public static Publisher<Document> query(Repository repository, String query, int pageSize, String sortBy,
+            String sortOrder, String queryParams) {
+        String size = String.valueOf(pageSize);
+        return new PagePublisher<>(pageIndex -> repository.query(query, size, String.valueOf(pageIndex), null, sortBy,
+                sortOrder, queryParams));
+    }
+
+    public static Publisher<Document> queryByProvider(Repository repository, String providerName, int pageSize,
+            String sortBy, String sortOrder, String queryParams) {
+        String size = String.valueOf(pageSize);
+        return new PagePublisher<>(pageIndex -> repository.queryByProvider(providerName, size,
+                String.valueOf(pageIndex), null, sortBy, sortOrder, queryParams));
+    }
+
+    public static Publisher<Document> fetchChildren(Repository repository, String parentId, int pageSize) {
+        String size = String.valueOf(pageSize);
+        return new PagePublisher<>(
+                pageIndex -> repository.fetchChildrenById(parentId, String.valueOf(pageIndex), size));
+    }
+
+    public static Publisher<LogEntry> fetchAudit(Repository repository, String documentId, int pageSize) {
+        String size = String.valueOf(pageSize);
+        return new PagePublisher<>(
+                pageIndex -> repository.fetchAuditById(documentId, String.valueOf(pageIndex), size));
+    }
+
+    public static Publisher<User> searchUser(UserManager userManager, String query, int pageSize) {
+        return new PagePublisher<>(pageIndex -> userManager.searchUser(query, pageIndex, pageSize));
+    }
+
+}
@@ -0,0 +1,179 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Kevin Leturc <kleturc@nuxeo.com>
+ */
+package org.nuxeo.client.reactive;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+import org.nuxeo.client.objects.PaginableEntity;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+/**
+ * @since 3.1
+ */
+public class TestPagePublisher {
+
+    protected static final int PAGE_SIZE = 10;
+
+    protected static final int PAGE_COUNT = 3;
+
+    protected final List<Integer> fetchedPages = new ArrayList<>();
+
+    protected final PagePublisher<Integer> publisher = new PagePublisher<>(this::fetchPage);
+
+    @Test
+    public void testPagesAreFetchedOnDemand() {
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        publisher.subscribe(subscriber);
+        assertTrue(fetchedPages.isEmpty());
+
+        subscriber.subscription.request(1);
+        assertEquals(1, subscriber.items.size());
+        assertEquals(1, fetchedPages.size());
+
+        subscriber.subscription.request(PAGE_SIZE - 1);
+        assertEquals(PAGE_SIZE, subscriber.items.size());
+        // next page is not fetched until requested
+        assertEquals(1, fetchedPages.size());
+
+        subscriber.subscription.request(1);
+        assertEquals(PAGE_SIZE + 1, subscriber.items.size());
+        assertEquals(2, fetchedPages.size());
+        assertFalse(subscriber.completed);
+    }
+
+    @Test
+    public void testAllEntriesAreEmitted() {
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        publisher.subscribe(subscriber);
+
+        subscriber.subscription.request(Long.MAX_VALUE);
+
+        assertEquals(IntStream.range(0, PAGE_SIZE * PAGE_COUNT).boxed().collect(Collectors.toList()),
+                subscriber.items);
+        assertEquals(PAGE_COUNT, fetchedPages.size());
+        assertTrue(subscriber.completed);
+        assertNull(subscriber.error);
+    }
+
+    @Test
+    public void testCancel() {
+        RecordingSubscriber subscriber = new RecordingSubscriber() {
+
+            @Override
+            public void onNext(Integer item) {
+                super.onNext(item);
+                if (items.size() == 5) {
+                    subscription.cancel();
+                }
+            }
+
+        };
+        publisher.subscribe(subscriber);
+
+        subscriber.subscription.request(Long.MAX_VALUE);
+
+        assertEquals(5, subscriber.items.size());
+        assertEquals(1, fetchedPages.size());
+        assertFalse(subscriber.completed);
+    }
+
+    @Test
+    public void testInvalidRequest() {
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        publisher.subscribe(subscriber);
+
+        subscriber.subscription.request(0);
+
+        assertTrue(subscriber.error instanceof IllegalArgumentException);
+        assertTrue(fetchedPages.isEmpty());
+    }
+
+    @Test
+    public void testFetchError() {
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        new PagePublisher<Integer>(pageIndex -> {
+            throw new IllegalStateException("Server unavailable");
+        }).subscribe(subscriber);
+
+        subscriber.subscription.request(1);
+
+        assertTrue(subscriber.error instanceof IllegalStateException);
+        assertTrue(subscriber.items.isEmpty());
+    }
+
+    protected PaginableEntity<Integer> fetchPage(int pageIndex) {
+        fetchedPages.add(pageIndex);
+        return new Page(pageIndex);
+    }
+
+    protected static class Page extends PaginableEntity<Integer> {
+
+        protected Page(int pageIndex) {
+            super("page");
+            entries = IntStream.range(pageIndex * PAGE_SIZE, (pageIndex + 1) * PAGE_SIZE)
+                               .boxed()
+                               .collect(Collectors.toList());
+            isNextPageAvailable = pageIndex + 1 < PAGE_COUNT;
+        }
+
+    }
+
+    protected static class RecordingSubscriber implements Subscriber<Integer> {
+
+        protected final List<Integer> items = new ArrayList<>();
+
+        protected Subscription subscription;
+
+        protected Throwable error;
+
+        protected boolean completed;
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(Integer item) {
+            items.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+
+    }
+
+}
@@ -48,8 +48,18 @@ public class HttpHeaders {
 
     public static final String X_AUTHENTICATION_TOKEN = "X-Authentication-Token";
 
+    /**
+     * Deadline of the call in milliseconds, this header is read and removed by the client, it is not sent to the server.
+     *
+     * @since 3.1
+     */
+    public static final String X_DEADLINE = "X-NXclient-deadline";
+
     public static final String X_PROPERTIES = "X-NXproperties";
 
+    /** @since 3.1 */
+    public static final String X_REPOSITORY = "X-NXRepository";
+
     public static final String X_VOID_OPERATION = "X-NXVoidOperation";
 
     public static final String X_VERSIONING_OPTION = "X-Versioning-Option";
@@ -25,14 +25,25 @@ import java.io.UnsupportedEncodingException;
 import java.net.URLDecoder;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.function.UnaryOperator;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.apache.commons.lang3.StringUtils;
+import org.nuxeo.client.cache.CacheValidators;
 import org.nuxeo.client.cache.NuxeoResponseCache;
+import org.nuxeo.client.cache.RevalidatingResponseCache;
 import org.nuxeo.client.marshaller.NuxeoConverterFactory;
 import org.nuxeo.client.objects.AbstractBase;
 import org.nuxeo.client.objects.Connectable;
@@ -40,6 +51,7 @@ import org.nuxeo.client.objects.Document;
 import org.nuxeo.client.objects.Documents;
 import org.nuxeo.client.objects.EntityTypes;
 import org.nuxeo.client.objects.Operation;
+import org.nuxeo.client.objects.PaginableEntity;
 import org.nuxeo.client.objects.RecordSet;
 import org.nuxeo.client.objects.Repository;
 import org.nuxeo.client.objects.blob.Blobs;
@@ -53,9 +65,30 @@ import org.nuxeo.client.objects.user.UserManager;
 import org.nuxeo.client.spi.NuxeoClientException;
 import org.nuxeo.client.spi.NuxeoClientRemoteException;
 import org.nuxeo.client.spi.auth.BasicAuthInterceptor;
+import org.nuxeo.client.spi.interceptor.CircuitBreakerInterceptor;
+import org.nuxeo.client.spi.interceptor.CircuitBreakerPolicy;
+import org.nuxeo.client.spi.interceptor.ConcurrencyLimitInterceptor;
+import org.nuxeo.client.spi.interceptor.ConditionalRequestInterceptor;
+import org.nuxeo.client.spi.interceptor.GzipRequestInterceptor;
+import org.nuxeo.client.spi.interceptor.HedgingInterceptor;
+import org.nuxeo.client.spi.interceptor.HedgingPolicy;
+import org.nuxeo.client.spi.interceptor.LoadBalancingInterceptor;
+import org.nuxeo.client.spi.interceptor.MetricsInterceptor;
+import org.nuxeo.client.spi.interceptor.RequestCoalescingInterceptor;
+import org.nuxeo.client.spi.interceptor.RetryInterceptor;
+import org.nuxeo.client.spi.interceptor.RetryPolicy;
+import org.nuxeo.client.spi.jfr.FlightRecorderEvents;
+import org.nuxeo.client.spi.jfr.FlightRecorderEvents.CallRecord;
+import org.nuxeo.client.spi.metrics.CallTimingEventListener;
+import org.nuxeo.client.spi.metrics.CallTimingListener;
+import org.nuxeo.client.spi.metrics.InMemoryMetrics;
+import org.nuxeo.client.spi.metrics.MetricsRecorder;
+import org.nuxeo.client.spi.metrics.SlowRequestLog;
 
+import okhttp3.Dispatcher;
 import okhttp3.Headers;
 import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.RequestBody;
 import okhttp3.Response;
@@ -79,12 +112,90 @@ public class NuxeoClient extends AbstractBase<NuxeoClient> {
 
     protected NuxeoVersion serverVersion;
 
+    /**
+     * The executor completing futures returned by async calls, null means the okhttp dispatcher thread.
+     *
+     * @since 3.1
+     */
+    protected Executor asyncExecutor;
+
+    /**
+     * The executor service created by the client for okhttp dispatcher, it is shut down on {@link #disconnect()}.
+     *
+     * @since 3.1
+     */
+    protected ExecutorService ownedExecutorService;
+
+    /**
+     * @since 3.1
+     */
+    protected RequestCoalescingInterceptor requestCoalescing;
+
+    /**
+     * @since 3.1
+     */
+    protected ConcurrencyLimitInterceptor concurrencyLimiter;
+
+    /**
+     * @since 3.1
+     */
+    protected RetryInterceptor retryInterceptor;
+
+    /**
+     * @since 3.1
+     */
+    protected HedgingInterceptor hedgingInterceptor;
+
+    /**
+     * @since 3.1
+     */
+    protected CircuitBreakerInterceptor circuitBreaker;
+
+    /**
+     * @since 3.1
+     */
+    protected LoadBalancingInterceptor loadBalancer;
+
+    /**
+     * @since 3.1
+     */
+    protected MetricsRecorder metrics;
+
+    /**
+     * @since 3.1
+     */
+    protected ConditionalRequestInterceptor conditionalRequests;
+
     protected NuxeoClient(Builder builder) {
         super(builder);
         // converter factory
         converterFactory = builder.converterFactory;
         // nuxeo cache
         nuxeoCache = builder.cache;
+        conditionalRequests = builder.conditionalRequests;
+        // async executor
+        asyncExecutor = builder.asyncExecutor;
+        ownedExecutorService = builder.ownedExecutorService;
+        // request coalescing
+        requestCoalescing = builder.requestCoalescing;
+        // concurrency limiter
+        concurrencyLimiter = builder.concurrencyLimiter;
+        // retry
+        retryInterceptor = builder.retryInterceptor;
+        // hedging
+        hedgingInterceptor = builder.hedgingInterceptor;
+        if (hedgingInterceptor != null) {
+            hedgingInterceptor.setClient((OkHttpClient) retrofit.callFactory());
+        }
+        // circuit breaker
+        circuitBreaker = builder.circuitBreaker;
+        // load balancer
+        loadBalancer = builder.loadBalancer;
+        // metrics
+        metrics = builder.metrics;
+        if (metrics != null) {
+            metrics.bind(((OkHttpClient) retrofit.callFactory()).connectionPool());
+        }
         // define user agent
         header(HttpHeaders.USER_AGENT, computeUserAgent());
     }
@@ -93,6 +204,7 @@ public class NuxeoClient extends AbstractBase<NuxeoClient> {
      * Used by unit tests.
      */
     protected void addOkHttpInterceptor(Interceptor interceptor) {
+        ensureBuilders();
         okhttpBuilder.addInterceptor(interceptor);
         buildRetrofit();
     }
@@ -126,6 +238,63 @@ public class NuxeoClient extends AbstractBase<NuxeoClient> {
         return nuxeoCache != null;
     }
 
+    /**
+     * @return the interceptor collapsing identical GET requests, which holds the coalescing metrics, or null if
+     *         requests are not coalesced
+     * @since 3.1
+     */
+    public RequestCoalescingInterceptor getRequestCoalescing() {
+        return requestCoalescing;
+    }
+
+    /**
+     * @return the interceptor limiting the number of concurrent requests, or null if there's no limit
+     * @since 3.1
+     */
+    public ConcurrencyLimitInterceptor getConcurrencyLimiter() {
+        return concurrencyLimiter;
+    }
+
+    /**
+     * @return the retry interceptor, or null if retry is not enabled
+     * @since 3.1
+     */
+    public RetryInterceptor getRetryInterceptor() {
+        return retryInterceptor;
+    }
+
+    /**
+     * @return the hedging interceptor, or null if hedging is not enabled
+     * @since 3.1
+     */
+    public HedgingInterceptor getHedgingInterceptor() {
+        return hedgingInterceptor;
+    }
+
+    /**
+     * @return the circuit breaker, or null if circuit breaker is not enabled
+     * @since 3.1
+     */
+    public CircuitBreakerInterceptor getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    /**
+     * @return the load balancer, or null if the client targets a single url
+     * @since 3.1
+     */
+    public LoadBalancingInterceptor getLoadBalancer() {
+        return loadBalancer;
+    }
+
+    /**
+     * @return the metrics recorder, or null if metrics are not enabled
+     * @since 3.1
+     */
+    public MetricsRecorder getMetrics() {
+        return metrics;
+    }
+
     public NuxeoClient refreshCache() {
         if (isCacheEnabled()) {
             nuxeoCache.invalidateAll();
@@ -134,11 +303,16 @@ public class NuxeoClient extends AbstractBase<NuxeoClient> {
     }
 
     public void disconnect() {
+        ensureBuilders();
         okhttpBuilder.interceptors().clear();
-        headerInterceptors.clear();
-        headerValues.clear();
         nuxeoCache = null;
+        if (ownedExecutorService != null) {
+            ownedExecutorService.shutdown();
+            ownedExecutorService = null;
+        }
         buildRetrofit();
+        // header values could be shared with other objects
+        replaceHeaders(new HashMap<>());
     }
 
     /******************************
@@ -247,34 +421,94 @@ public class NuxeoClient extends AbstractBase<NuxeoClient> {
         try {
             Request.Builder requestBuilder = new Request.Builder().url(url);
             Request request = method.apply(requestBuilder).build();
-            return retrofit.callFactory().newCall(request).execute();
+            return getRetrofit().callFactory().newCall(request).execute();
         } catch (IOException e) {
             throw new NuxeoClientException("Error during call on url=" + url, e);
         }
     }
 
     public <T> T fetchResponse(Call<T> call) {
+        CallRecord event = FlightRecorderEvents.beginCall();
+        String cacheKey = null;
+        retrofit2.Response<T> staleResponse = null;
+        CacheValidators validators = null;
         if (useCache(call)) {
-            String cacheKey = computeCacheKey(call);
+            cacheKey = computeCacheKey(call);
             T result = nuxeoCache.getBody(cacheKey);
             if (result != null) {
+                event.record(call, null, true);
                 return result;
             }
+            if (nuxeoCache instanceof RevalidatingResponseCache && conditionalRequests != null) {
+                staleResponse = ((RevalidatingResponseCache) nuxeoCache).getStaleResponse(cacheKey);
+                validators = staleResponse == null ? null : CacheValidators.of(staleResponse);
+            }
         }
+        okhttp3.Response rawResponse = null;
         try {
-            retrofit2.Response<T> response = call.execute();
+            retrofit2.Response<T> response;
+            if (validators == null) {
+                response = call.execute();
+            } else {
+                Request request = call.request();
+                conditionalRequests.beginRevalidation(request, validators);
+                try {
+                    response = call.execute();
+                } finally {
+                    conditionalRequests.endRevalidation(request);
+                }
+            }
+            rawResponse = response.raw();
+            if (validators != null && response.code() == 304) {
+                // not modified, the stale response is fresh again with the validators of the revalidation
+                retrofit2.Response<T> revalidatedResponse = revalidate(staleResponse, rawResponse);
+                nuxeoCache.put(cacheKey, revalidatedResponse);
+                return revalidatedResponse.body();
+            }
             response = handleResponse(call, response);
             return response.body();
         } catch (IOException reason) {
             throw new NuxeoClientException("Error during call on Nuxeo server", reason);
+        } finally {
+            event.record(call, rawResponse, false);
+        }
+    }
+
+    /**
+     * @return the stale response updated with the headers of the {@code 304 Not Modified} response, except the ones
+     *         describing the content, as okhttp cache does
+     * @since 3.1
+     */
+    protected <T> retrofit2.Response<T> revalidate(retrofit2.Response<T> staleResponse,
+            okhttp3.Response notModifiedResponse) {
+        Headers.Builder headers = staleResponse.headers().newBuilder();
+        Headers notModifiedHeaders = notModifiedResponse.headers();
+        for (String name : notModifiedHeaders.names()) {
+            if (!"Content-Length".equalsIgnoreCase(name) && !"Content-Encoding".equalsIgnoreCase(name)
+                    && !"Content-Type".equalsIgnoreCase(name)) {
+                headers.removeAll(name);
+                for (String value : notModifiedHeaders.values(name)) {
+                    headers.add(name, value);
+                }
+            }
         }
+        okhttp3.Response rawResponse = staleResponse.raw()
+                                                    .newBuilder()
+                                                    .headers(headers.build())
+                                                    .sentRequestAtMillis(notModifiedResponse.sentRequestAtMillis())
+                                                    .receivedResponseAtMillis(
+                                                            notModifiedResponse.receivedResponseAtMillis())
+                                                    .build();
+        return retrofit2.Response.success(staleResponse.body(), rawResponse);
     }
 
     public <T> void fetchResponse(Call<T> call, Callback<T> callback) {
+        CallRecord event = FlightRecorderEvents.beginCall();
         call.enqueue(new Callback<T>() {
 
             @Override
             public void onResponse(Call<T> call, retrofit2.Response<T> response) {
+                event.record(call, response.raw(), false);
                 try {
                     callback.onResponse(call, handleResponse(call, response));
                 } catch (NuxeoClientException nce) {
@@ -284,12 +518,103 @@ public class NuxeoClient extends AbstractBase<NuxeoClient> {
 
             @Override
             public void onFailure(Call<T> call, Throwable t) {
+                event.record(call, null, false);
                 callback.onFailure(call, t);
             }
 
         });
     }
 
+    /**
+     * Executes the call asynchronously and returns a future completed with the response body. The future is completed
+     * by the executor given to {@link Builder#asyncExecutor(Executor)}, or by the okhttp dispatcher thread if none was
+     * given, dependent stages should use their own executor for blocking work.
+     * <p />
+     * Cancelling the returned future cancels the call.
+     *
+     * @since 3.1
+     */
+    public <T> CompletableFuture<T> fetchResponseAsync(Call<T> call) {
+        if (useCache(call)) {
+            String cacheKey = computeCacheKey(call);
+            T result = nuxeoCache.getBody(cacheKey);
+            if (result != null) {
+                FlightRecorderEvents.beginCall().record(call, null, true);
+                return CompletableFuture.completedFuture(result);
+            }
+        }
+        CompletableFuture<T> future = new CompletableFuture<>();
+        fetchResponse(call, new Callback<T>() {
+
+            @Override
+            public void onResponse(Call<T> call, retrofit2.Response<T> response) {
+                complete(() -> future.complete(response.body()));
+            }
+
+            @Override
+            public void onFailure(Call<T> call, Throwable t) {
+                Throwable reason = t instanceof IOException
+                        ? new NuxeoClientException("Error during call on Nuxeo server", t) : t;
+                complete(() -> future.completeExceptionally(reason));
+            }
+
+        });
+        future.whenComplete((result, t) -> {
+            if (future.isCancelled()) {
+                call.cancel();
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Executes the call and decodes its paginated response with a streaming parser, each entry is handed to the
+     * consumer as soon as it is parsed, see {@link NuxeoConverterFactory#readEntries}. Entries are connected to this
+     * client before being consumed.
+     * <p />
+     * The call bypasses the response converter and the cache, only the request it would send is used. It is sent with
+     * the input call factory, which has to be the one of the retrofit instance having created the call in order to
+     * apply the headers and options of the caller.
+     *
+     * @return the page without its entries
+     * @since 3.1
+     */
+    public <P extends PaginableEntity<E>, E> P fetchEntries(okhttp3.Call.Factory callFactory, Call<P> call,
+            Class<P> pageType, Class<E> entryType, Consumer<? super E> consumer) {
+        CallRecord event = FlightRecorderEvents.beginCall();
+        Request request = call.request();
+        Response rawResponse = null;
+        try (Response response = callFactory.newCall(request).execute()) {
+            rawResponse = response;
+            ResponseBody body = response.body();
+            if (!response.isSuccessful()) {
+                throw remoteException(response.code(), response.message(), body.string(), body.contentType());
+            }
+            P page = converterFactory.readEntries(body.charStream(), pageType, entryType, entry -> {
+                if (entry instanceof Connectable) {
+                    ((Connectable) entry).reconnectWith(this);
+                }
+                consumer.accept(entry);
+            });
+            if (page instanceof Connectable) {
+                ((Connectable) page).reconnectWith(this);
+            }
+            return page;
+        } catch (IOException reason) {
+            throw new NuxeoClientException("Error during call on url=" + request.url(), reason);
+        } finally {
+            event.record(call, rawResponse, false);
+        }
+    }
+
+    protected void complete(Runnable completion) {
+        if (asyncExecutor == null) {
+            completion.run();
+        } else {
+            asyncExecutor.execute(completion);
+        }
+    }
+
     @SuppressWarnings("unchecked")
     protected <T> retrofit2.Response<T> handleResponse(Call<T> call, retrofit2.Response<T> response) {
         try {
@@ -298,14 +623,8 @@ public class NuxeoClient extends AbstractBase<NuxeoClient> {
             String httpMessage = response.message();
             if (!response.isSuccessful() && httpCode != 308) {
                 // error body is not null as it's an error
-                String errorBody = response.errorBody().string();
-                // content type could be null
-                MediaType mediaType = MediaType.fromOkHttpMediaType(response.raw().body().contentType());
-                if (!StringUtils.EMPTY.equals(errorBody)
-                        && MediaTypes.APPLICATION_JSON.equalsTypeSubTypeWithoutSuffix(mediaType)) {
-                    throw converterFactory.readJSON(errorBody, NuxeoClientRemoteException.class);
-                }
-                throw new NuxeoClientRemoteException(httpCode, httpMessage, errorBody, null);
+                throw remoteException(httpCode, httpMessage, response.errorBody().string(),
+                        response.raw().body().contentType());
             }
             if (useCache(call)) {
                 nuxeoCache.put(computeCacheKey(call), response);
@@ -358,6 +677,20 @@ public class NuxeoClient extends AbstractBase<NuxeoClient> {
         }
     }
 
+    /**
+     * @param contentType the content type of the error body, could be null
+     * @since 3.1
+     */
+    protected NuxeoClientRemoteException remoteException(int httpCode, String httpMessage, String errorBody,
+            okhttp3.MediaType contentType) {
+        MediaType mediaType = MediaType.fromOkHttpMediaType(contentType);
+        if (!StringUtils.EMPTY.equals(errorBody)
+                && MediaTypes.APPLICATION_JSON.equalsTypeSubTypeWithoutSuffix(mediaType)) {
+            return converterFactory.readJSON(errorBody, NuxeoClientRemoteException.class);
+        }
+        return new NuxeoClientRemoteException(httpCode, httpMessage, errorBody, null);
+    }
+
     protected boolean useCache(Call<?> call) {
         return isCacheEnabled() && "GET".equals(call.request().method());
     }
@@ -395,8 +728,37 @@ public class NuxeoClient extends AbstractBase<NuxeoClient> {
 
         protected NuxeoResponseCache cache;
 
+        protected Executor asyncExecutor;
+
+        protected Dispatcher dispatcher;
+
+        protected ExecutorService ownedExecutorService;
+
+        protected RequestCoalescingInterceptor requestCoalescing;
+
+        protected ConcurrencyLimitInterceptor concurrencyLimiter;
+
+        protected RetryInterceptor retryInterceptor;
+
+        protected HedgingInterceptor hedgingInterceptor;
+
+        protected CircuitBreakerInterceptor circuitBreaker;
+
+        protected LoadBalancingInterceptor loadBalancer;
+
+        protected MetricsRecorder metrics;
+
+        protected MetricsInterceptor metricsInterceptor;
+
+        protected CallTimingEventListener.Factory callTimingListeners;
+
+        protected GzipRequestInterceptor requestCompression;
+
+        protected ConditionalRequestInterceptor conditionalRequests;
+
         public Builder() {
             super();
+            ensureBuilders();
             // converter factory
             converterFactory = NuxeoConverterFactory.create();
             retrofitBuilder.addConverterFactory(converterFactory);
@@ -412,6 +774,52 @@ public class NuxeoClient extends AbstractBase<NuxeoClient> {
             return this;
         }
 
+        /**
+         * Spreads requests across the input urls of Nuxeo cluster nodes, see {@link LoadBalancingInterceptor}. The first
+         * url is used to build requests, like the one given to {@link #url(String)}.
+         * <p />
+         * The load balancer is kept after the interceptors added to this builder, so each attempt of a request is routed
+         * independently.
+         *
+         * @since 3.1
+         */
+        public Builder urls(String url, String... otherUrls) {
+            List<String> urls = new ArrayList<>(1 + otherUrls.length);
+            urls.add(url);
+            urls.addAll(Arrays.asList(otherUrls));
+            return loadBalancer(new LoadBalancingInterceptor(urls));
+        }
+
+        /**
+         * Spreads requests across the nodes of the input load balancer, the first node url is used to build requests.
+         *
+         * @since 3.1
+         */
+        public Builder loadBalancer(LoadBalancingInterceptor loadBalancer) {
+            url(loadBalancer.getNodeUrls().get(0));
+            if (this.loadBalancer != null) {
+                okhttpBuilder.interceptors().remove(this.loadBalancer);
+            }
+            this.loadBalancer = loadBalancer;
+            okhttpBuilder.addInterceptor(loadBalancer);
+            return this;
+        }
+
+        /**
+         * Adds the input interceptor after the ones already added, but before the load balancer.
+         *
+         * @since 3.1
+         */
+        protected void addInterceptor(Interceptor interceptor) {
+            List<Interceptor> interceptors = okhttpBuilder.interceptors();
+            int index = loadBalancer == null ? -1 : interceptors.indexOf(loadBalancer);
+            if (index < 0) {
+                interceptors.add(interceptor);
+            } else {
+                interceptors.add(index, interceptor);
+            }
+        }
+
         public Builder authentication(String username, String password) {
             return authentication(new BasicAuthInterceptor(username, password));
         }
@@ -422,12 +830,299 @@ public class NuxeoClient extends AbstractBase<NuxeoClient> {
         }
 
         public Builder interceptor(Interceptor interceptor) {
-            okhttpBuilder.addInterceptor(interceptor);
+            addInterceptor(interceptor);
             return this;
         }
 
+        /**
+         * Caches responses of GET requests. If the cache is a {@link RevalidatingResponseCache}, stale responses are
+         * revalidated with a conditional request instead of being fetched again.
+         */
         public Builder cache(NuxeoResponseCache cache) {
             this.cache = cache;
+            if (cache instanceof RevalidatingResponseCache && conditionalRequests == null) {
+                conditionalRequests = new ConditionalRequestInterceptor();
+                // first interceptor in order to make the request conditional before the others see it
+                okhttpBuilder.interceptors().add(0, conditionalRequests);
+            }
+            return this;
+        }
+
+        /**
+         * Sets the executor completing the futures returned by async calls, for instance
+         * {@link NuxeoClient#fetchResponseAsync(Call)}. By default futures are completed by the okhttp dispatcher
+         * thread.
+         *
+         * @since 3.1
+         */
+        public Builder asyncExecutor(Executor asyncExecutor) {
+            this.asyncExecutor = asyncExecutor;
+            return this;
+        }
+
+        /**
+         * Collapses concurrent identical GET requests into a single call, see {@link RequestCoalescingInterceptor}.
+         * This avoids to send the same request many times when threads ask for the same resource at once, for instance
+         * after {@link NuxeoClient#refreshCache()}.
+         *
+         * @since 3.1
+         */
+        public Builder coalesceRequests() {
+            if (requestCoalescing == null) {
+                coalesceRequests(new RequestCoalescingInterceptor());
+            }
+            return this;
+        }
+
+        /**
+         * Collapses concurrent identical GET requests into a single call with the input interceptor.
+         *
+         * @since 3.1
+         */
+        public Builder coalesceRequests(RequestCoalescingInterceptor requestCoalescing) {
+            if (this.requestCoalescing != null) {
+                okhttpBuilder.interceptors().remove(this.requestCoalescing);
+            }
+            this.requestCoalescing = requestCoalescing;
+            addInterceptor(requestCoalescing);
+            return this;
+        }
+
+        /**
+         * Limits the number of requests running concurrently with an adaptive limit, see
+         * {@link ConcurrencyLimitInterceptor} for default values.
+         *
+         * @since 3.1
+         */
+        public Builder concurrencyLimiter() {
+            return concurrencyLimiter(new ConcurrencyLimitInterceptor());
+        }
+
+        /**
+         * Limits the number of requests running concurrently with the input limiter. Requests above the limit wait
+         * in a bounded queue and are rejected when it is full, which lets throughput adapt to the server capacity.
+         * <p />
+         * The limiter is installed as an okhttp interceptor, after the ones already added to this builder.
+         *
+         * @since 3.1
+         */
+        public Builder concurrencyLimiter(ConcurrencyLimitInterceptor concurrencyLimiter) {
+            if (this.concurrencyLimiter != null) {
+                okhttpBuilder.interceptors().remove(this.concurrencyLimiter);
+            }
+            this.concurrencyLimiter = concurrencyLimiter;
+            addInterceptor(concurrencyLimiter);
+            return this;
+        }
+
+        /**
+         * Retries idempotent requests failing on I/O errors or on retryable status according to the input policy, see
+         * {@link RetryPolicy} for default values.
+         * <p />
+         * The retry interceptor is installed as an okhttp interceptor, after the ones already added to this builder. For
+         * instance, when it is added after {@link #concurrencyLimiter()} retries don't ask for a new permit.
+         *
+         * @since 3.1
+         */
+        public Builder retryPolicy(RetryPolicy retryPolicy) {
+            if (retryInterceptor != null) {
+                okhttpBuilder.interceptors().remove(retryInterceptor);
+            }
+            retryInterceptor = new RetryInterceptor(retryPolicy);
+            addInterceptor(retryInterceptor);
+            return this;
+        }
+
+        /**
+         * Hedges reads according to the input policy: when a read is slower than usual, a duplicate request is sent
+         * and the first response is used, see {@link HedgingPolicy} for default values.
+         * <p />
+         * The hedging interceptor is installed as an okhttp interceptor, after the ones already added to this builder.
+         * Duplicate requests run the interceptors following it.
+         *
+         * @since 3.1
+         */
+        public Builder hedging(HedgingPolicy hedgingPolicy) {
+            if (hedgingInterceptor != null) {
+                okhttpBuilder.interceptors().remove(hedgingInterceptor);
+            }
+            hedgingInterceptor = new HedgingInterceptor(hedgingPolicy);
+            addInterceptor(hedgingInterceptor);
+            return this;
+        }
+
+        /**
+         * Enables a circuit breaker with default values, see {@link CircuitBreakerPolicy}.
+         *
+         * @since 3.1
+         */
+        public Builder circuitBreaker() {
+            return circuitBreaker(new CircuitBreakerPolicy());
+        }
+
+        /**
+         * Enables a circuit breaker according to the input policy: when an endpoint group of the server is unhealthy,
+         * its requests fail fast with a {@link org.nuxeo.client.spi.interceptor.CircuitBreakerOpenException} instead of
+         * waiting for timeouts. This applies to all calls, including {@link NuxeoClient#get(String)} and other raw
+         * helpers.
+         * <p />
+         * The circuit breaker is installed as an okhttp interceptor, after the ones already added to this builder. It
+         * should be added after {@link #retryPolicy(RetryPolicy)} in order to count each attempt and to reject retries
+         * when the circuit opens.
+         *
+         * @since 3.1
+         */
+        public Builder circuitBreaker(CircuitBreakerPolicy circuitBreakerPolicy) {
+            if (circuitBreaker != null) {
+                okhttpBuilder.interceptors().remove(circuitBreaker);
+            }
+            circuitBreaker = new CircuitBreakerInterceptor(circuitBreakerPolicy);
+            addInterceptor(circuitBreaker);
+            return this;
+        }
+
+        /**
+         * Records request metrics per logical endpoint in memory, see {@link InMemoryMetrics}.
+         *
+         * @since 3.1
+         */
+        public Builder metrics() {
+            return metrics(new InMemoryMetrics());
+        }
+
+        /**
+         * Records request metrics per logical endpoint with the input recorder, see {@link MetricsInterceptor} for
+         * endpoint names.
+         * <p />
+         * The metrics interceptor is installed as an okhttp interceptor, after the ones already added to this builder.
+         * For instance, when it is added before {@link #retryPolicy(RetryPolicy)} the latency of a request includes its
+         * retries.
+         *
+         * @since 3.1
+         */
+        public Builder metrics(MetricsRecorder metrics) {
+            if (metricsInterceptor != null) {
+                okhttpBuilder.interceptors().remove(metricsInterceptor);
+            }
+            this.metrics = metrics;
+            metricsInterceptor = new MetricsInterceptor(metrics);
+            addInterceptor(metricsInterceptor);
+            return this;
+        }
+
+        /**
+         * Adds a listener notified with the phase timings of each HTTP call: DNS, connect, TLS, request write, time to
+         * first byte, body read and deserialization, see {@link CallTimingEventListener}.
+         * <p />
+         * Timings are captured by an okhttp {@link okhttp3.EventListener}, it replaces the one set on okhttp builder.
+         *
+         * @since 3.1
+         */
+        public Builder callTimingListener(CallTimingListener listener) {
+            if (callTimingListeners == null) {
+                callTimingListeners = new CallTimingEventListener.Factory();
+                okhttpBuilder.eventListenerFactory(callTimingListeners);
+                // first interceptor in order to see the response body given to the converter
+                okhttpBuilder.interceptors().add(0, callTimingListeners);
+            }
+            callTimingListeners.addListener(listener);
+            return this;
+        }
+
+        /**
+         * Logs the calls slower than the input threshold with their phase timings, see {@link SlowRequestLog}.
+         *
+         * @param samplingRate the ratio of slow calls to log, in [0, 1]
+         * @since 3.1
+         */
+        public Builder slowRequestLog(long threshold, TimeUnit unit, double samplingRate) {
+            return callTimingListener(new SlowRequestLog(threshold, unit, samplingRate));
+        }
+
+        /**
+         * Compresses JSON request bodies larger than 1KB with gzip, see {@link GzipRequestInterceptor}.
+         *
+         * @since 3.1
+         */
+        public Builder compressRequests() {
+            return compressRequests(1024);
+        }
+
+        /**
+         * Compresses JSON request bodies larger than the input size with gzip, see {@link GzipRequestInterceptor}. This
+         * reduces the time spent on the wire by large document updates or operation bodies on slow links.
+         * <p />
+         * CAUTION: the server, or the proxy in front of it, has to decompress requests with
+         * {@code Content-Encoding: gzip}.
+         *
+         * @param minSize the minimum size in bytes of bodies to compress
+         * @since 3.1
+         */
+        public Builder compressRequests(long minSize) {
+            if (requestCompression != null) {
+                okhttpBuilder.networkInterceptors().remove(requestCompression);
+            }
+            requestCompression = new GzipRequestInterceptor(minSize);
+            // network interceptor in order to let application interceptors see the original body
+            okhttpBuilder.addNetworkInterceptor(requestCompression);
+            return this;
+        }
+
+        /**
+         * Sets the executor service running okhttp async calls and their callbacks.
+         *
+         * @since 3.1
+         */
+        public Builder executorService(ExecutorService executorService) {
+            Dispatcher newDispatcher = new Dispatcher(executorService);
+            if (dispatcher != null) {
+                newDispatcher.setMaxRequests(dispatcher.getMaxRequests());
+                newDispatcher.setMaxRequestsPerHost(dispatcher.getMaxRequestsPerHost());
+            }
+            dispatcher = newDispatcher;
+            okhttpBuilder.dispatcher(dispatcher);
+            ownedExecutorService = null;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of async requests to execute concurrently, above these limits requests are queued by
+         * okhttp. Default values are 64 and 5 per host.
+         *
+         * @since 3.1
+         */
+        public Builder maxRequests(int maxRequests, int maxRequestsPerHost) {
+            if (dispatcher == null) {
+                dispatcher = new Dispatcher();
+                okhttpBuilder.dispatcher(dispatcher);
+            }
+            dispatcher.setMaxRequests(maxRequests);
+            dispatcher.setMaxRequestsPerHost(maxRequestsPerHost);
+            return this;
+        }
+
+        /**
+         * Runs okhttp async calls, their callbacks and the completion of futures returned by async calls on a
+         * virtual-thread-per-task executor. The executor is shut down when the client is disconnected.
+         * <p />
+         * Synchronous calls run on the caller thread, they can be made from virtual threads: the client doesn't hold any
+         * monitor during I/O and doesn't keep any per-thread state, the state of a call, such as its deadline, cache
+         * validators or timings, is carried by its request and response.
+         * <p />
+         * CAUTION: Virtual threads are only available on Java 21 or later.
+         *
+         * @since 3.1
+         */
+        public Builder virtualThreads() {
+            ExecutorService executorService;
+            try {
+                executorService = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor")
+                                                                   .invoke(null);
+            } catch (ReflectiveOperationException e) {
+                throw new NuxeoClientException("Virtual threads are not available, Java 21 or later is required", e);
+            }
+            executorService(executorService);
+            ownedExecutorService = executorService;
             return this;
         }
 
@@ -0,0 +1,87 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Kevin Leturc <kleturc@nuxeo.com>
+ */
+package org.nuxeo.client.cache;
+
+import org.nuxeo.client.objects.Document;
+
+import okhttp3.Headers;
+import okhttp3.Request;
+import retrofit2.Response;
+
+/**
+ * Validators of a cached response, they are sent with a conditional request to check whether the response changed on
+ * server side. Validators are the {@code ETag} and {@code Last-Modified} headers of the response, the change token of
+ * a document is used when the response has no {@code ETag}.
+ *
+ * @since 3.1
+ */
+public class CacheValidators {
+
+    protected final String eTag;
+
+    protected final String lastModified;
+
+    public CacheValidators(String eTag, String lastModified) {
+        this.eTag = eTag;
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * @return the validators of the input response, or null if it has none
+     */
+    public static CacheValidators of(Response<?> response) {
+        Headers headers = response.headers();
+        String eTag = headers.get("ETag");
+        String lastModified = headers.get("Last-Modified");
+        Object body = response.body();
+        if (eTag == null && body instanceof Document) {
+            String changeToken = ((Document) body).getChangeToken();
+            if (changeToken != null) {
+                eTag = '"' + changeToken + '"';
+            }
+        }
+        if (eTag == null && lastModified == null) {
+            return null;
+        }
+        return new CacheValidators(eTag, lastModified);
+    }
+
+    public String getETag() {
+        return eTag;
+    }
+
+    public String getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * @return the input request made conditional with these validators
+     */
+    public Request applyTo(Request request) {
+        Request.Builder builder = request.newBuilder();
+        if (eTag != null) {
+            builder.header("If-None-Match", eTag);
+        }
+        if (lastModified != null) {
+            builder.header("If-Modified-Since", lastModified);
+        }
+        return builder.build();
+    }
+
+}
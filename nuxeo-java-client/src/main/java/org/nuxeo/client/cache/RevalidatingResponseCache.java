@@ -0,0 +1,39 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Kevin Leturc <kleturc@nuxeo.com>
+ */
+package org.nuxeo.client.cache;
+
+import retrofit2.Response;
+
+/**
+ * {@link NuxeoResponseCache} keeping responses after their expiration in order to revalidate them. A stale response is
+ * not returned by {@link #getResponse(String)} nor {@link #getBody(String)}, but {@link org.nuxeo.client.NuxeoClient}
+ * sends a conditional request with its validators, see {@link CacheValidators}, and serves it again if the server
+ * answers {@code 304 Not Modified}. The response is then updated with the headers of the {@code 304} response, such
+ * as its validators, and put again in the cache to make it fresh.
+ *
+ * @since 3.1
+ */
+public interface RevalidatingResponseCache extends NuxeoResponseCache {
+
+    /**
+     * @return the cached response, fresh or stale, or null if there's no response for the key
+     */
+    <T> Response<T> getStaleResponse(String key);
+
+}
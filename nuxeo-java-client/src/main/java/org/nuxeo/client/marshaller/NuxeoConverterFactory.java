@@ -20,17 +20,23 @@
 package org.nuxeo.client.marshaller;
 
 import java.io.IOException;
+import java.io.Reader;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Type;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.function.Consumer;
 
+import org.nuxeo.client.objects.PaginableEntity;
 import org.nuxeo.client.spi.NuxeoClientException;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 
 import okhttp3.RequestBody;
 import okhttp3.ResponseBody;
@@ -42,6 +48,8 @@ import retrofit2.Retrofit;
  */
 public class NuxeoConverterFactory extends Converter.Factory {
 
+    protected static final String ENTRIES = "entries";
+
     protected static final Map<String, Class<?>> entityTypeToClass = new HashMap<>();
 
     protected final ObjectMapper mapper;
@@ -112,6 +120,41 @@ public class NuxeoConverterFactory extends Converter.Factory {
         }
     }
 
+    /**
+     * Reads a paginated entity from the input reader with Jackson streaming parser, each entry is handed to the
+     * consumer as soon as it is parsed instead of being added to the page. The memory used is proportional to one
+     * entry whatever the page size.
+     *
+     * @param reader the reader of the json to unmarshall, it is not closed
+     * @param pageType the pojo to use for unmarshalling the page, its entries are empty
+     * @param entryType the pojo to use for unmarshalling the entries
+     * @param consumer the consumer of the entries
+     * @return the page without its entries
+     * @since 3.1
+     */
+    public <P extends PaginableEntity<E>, E> P readEntries(Reader reader, Class<P> pageType, Class<E> entryType,
+            Consumer<? super E> consumer) throws IOException {
+        JsonParser parser = mapper.getFactory().createParser(reader);
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new NuxeoClientException(
+                    "Converter Read Issue. Expected a json object, got: " + parser.getCurrentToken());
+        }
+        ObjectNode page = mapper.createObjectNode();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            if (ENTRIES.equals(fieldName) && token == JsonToken.START_ARRAY) {
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    consumer.accept(mapper.readValue(parser, entryType));
+                }
+            } else {
+                page.set(fieldName, mapper.readTree(parser));
+            }
+        }
+        page.putArray(ENTRIES);
+        return mapper.treeToValue(page, pageType);
+    }
+
     public String writeJSON(Object object) {
         try {
             return mapper.writeValueAsString(object);
@@ -24,6 +24,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -41,6 +42,9 @@ import org.nuxeo.client.objects.blob.Blob;
 import org.nuxeo.client.objects.blob.Blobs;
 import org.nuxeo.client.objects.blob.FileBlob;
 import org.nuxeo.client.spi.NuxeoClientException;
+import org.nuxeo.client.spi.jfr.FlightRecorderEvents;
+import org.nuxeo.client.spi.jfr.FlightRecorderEvents.BlobDownloadRecord;
+import org.nuxeo.client.spi.jfr.FlightRecorderEvents.DeserializationRecord;
 import org.nuxeo.client.util.IOUtils;
 
 import com.fasterxml.jackson.databind.JavaType;
@@ -69,30 +73,46 @@ public final class NuxeoResponseConverterFactory<T> implements Converter<Respons
     }
 
     @Override
-    @SuppressWarnings("unchecked")
     public T convert(ResponseBody body) throws IOException {
+        DeserializationRecord event = FlightRecorderEvents.beginDeserialization();
+        try {
+            return doConvert(body);
+        } finally {
+            event.record(javaType, body);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    protected T doConvert(ResponseBody body) throws IOException {
         // Checking if multipart outputs.
         MediaType mediaType = MediaType.fromOkHttpMediaType(body.contentType());
         if (!MediaTypes.APPLICATION_JSON.equalsTypeSubType(mediaType)
                 && !MediaTypes.APPLICATION_JSON_NXENTITY.equalsTypeSubType(mediaType)) {
             if (mediaType.type().equals(MediaTypes.MULTIPART_S)) {
+                BlobDownloadRecord event = FlightRecorderEvents.beginBlobDownload();
                 List<Blob> blobs = new ArrayList<>();
+                List<File> files = new ArrayList<>();
                 try (InputStream is = body.byteStream()) {
                     MimeMultipart mp = new MimeMultipart(new ByteArrayDataSource(is, mediaType.toString()));
                     int size = mp.getCount();
                     for (int i = 0; i < size; i++) {
                         BodyPart part = mp.getBodyPart(i);
                         // IOUtils.copyToTempFile close the input stream for us
-                        blobs.add(new FileBlob(IOUtils.copyToTempFile(part.getInputStream()), part.getFileName(),
-                                part.getContentType()));
+                        File tmpFile = IOUtils.copyToTempFile(part.getInputStream());
+                        files.add(tmpFile);
+                        blobs.add(new FileBlob(tmpFile, part.getFileName(), part.getContentType()));
                     }
                 } catch (MessagingException reason) {
                     throw new IOException(reason);
+                } finally {
+                    event.record(mediaType, files);
                 }
                 return (T) new Blobs(blobs);
             } else {
+                BlobDownloadRecord event = FlightRecorderEvents.beginBlobDownload();
                 // IOUtils.copyToTempFile close the input stream for us
                 File tmpFile = IOUtils.copyToTempFile(body.byteStream());
+                event.record(mediaType, Collections.singletonList(tmpFile));
                 return (T) new FileBlob(tmpFile);
             }
         }
@@ -20,6 +20,7 @@
 package org.nuxeo.client.methods;
 
 import org.nuxeo.client.objects.Document;
+import org.nuxeo.client.objects.DocumentViews;
 import org.nuxeo.client.objects.Documents;
 import org.nuxeo.client.objects.acl.ACP;
 import org.nuxeo.client.objects.annotation.Annotation;
@@ -111,6 +112,23 @@ public interface RepositoryAPI {
             @Query("sortBy") String sortBy, @Query("sortOrder") String sortOrder,
             @Query("queryParams") String queryParams);
 
+    /* Query - Views */
+
+    @GET("query")
+    Call<DocumentViews> queryAsViews(@Query("query") String query);
+
+    @GET("query")
+    Call<DocumentViews> queryAsViews(@Query("query") String query, @Query("pageSize") String pageSize,
+            @Query("currentPageIndex") String currentPageIndex, @Query("maxResults") String maxResults,
+            @Query("sortBy") String sortBy, @Query("sortOrder") String sortOrder,
+            @Query("queryParams") String queryParams);
+
+    @GET("query/{providerName}")
+    Call<DocumentViews> queryByProviderAsViews(@Path("providerName") String providerName,
+            @Query("pageSize") String pageSize, @Query("currentPageIndex") String currentPageIndex,
+            @Query("maxResults") String maxResults, @Query("sortBy") String sortBy,
+            @Query("sortOrder") String sortOrder, @Query("queryParams") String queryParams);
+
     /* Audit */
 
     @GET("path{documentPath}/@audit")
@@ -126,6 +144,14 @@ public interface RepositoryAPI {
     @GET("repo/{repositoryName}/id/{documentId}/@audit")
     Call<Audit> fetchAuditById(@Path("documentId") String documentId, @Path("repositoryName") String repositoryName);
 
+    @GET("id/{documentId}/@audit")
+    Call<Audit> fetchAuditById(@Path("documentId") String documentId,
+            @Query("currentPageIndex") String currentPageIndex, @Query("pageSize") String pageSize);
+
+    @GET("repo/{repositoryName}/id/{documentId}/@audit")
+    Call<Audit> fetchAuditById(@Path("documentId") String documentId, @Path("repositoryName") String repositoryName,
+            @Query("currentPageIndex") String currentPageIndex, @Query("pageSize") String pageSize);
+
     /* ACP */
 
     @GET("path{documentPath}/@acl")
@@ -157,6 +183,14 @@ public interface RepositoryAPI {
     @GET("repo/{repositoryName}/id/{parentId}/@children")
     Call<Documents> fetchChildrenById(@Path("parentId") String parentId, @Path("repositoryName") String repositoryName);
 
+    @GET("id/{parentId}/@children")
+    Call<Documents> fetchChildrenById(@Path("parentId") String parentId,
+            @Query("currentPageIndex") String currentPageIndex, @Query("pageSize") String pageSize);
+
+    @GET("repo/{repositoryName}/id/{parentId}/@children")
+    Call<Documents> fetchChildrenById(@Path("parentId") String parentId, @Path("repositoryName") String repositoryName,
+            @Query("currentPageIndex") String currentPageIndex, @Query("pageSize") String pageSize);
+
     /* Blobs */
 
     @GET("path{documentPath}/@blob/{fieldPath}")
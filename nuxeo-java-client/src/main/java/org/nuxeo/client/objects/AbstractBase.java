@@ -20,16 +20,17 @@ package org.nuxeo.client.objects;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 import java.util.concurrent.TimeUnit;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 
-import okhttp3.Interceptor;
+import okhttp3.Headers;
 import okhttp3.OkHttpClient;
-import okhttp3.Request;
 
 import org.nuxeo.client.HttpHeaders;
 
@@ -51,23 +52,39 @@ public class AbstractBase<B extends AbstractBase<B>> {
     protected Retrofit.Builder retrofitBuilder;
 
     @JsonIgnore
-    protected Map<String, Interceptor> headerInterceptors;
+    protected Map<String, List<String>> headerValues;
 
+    /**
+     * Immutable snapshot of {@link #headerValues}, this is what is sent to the server.
+     *
+     * @since 3.1
+     */
     @JsonIgnore
-    protected Map<String, List<String>> headerValues;
+    protected Headers headers;
 
+    /**
+     * The retrofit instance, its okhttp client doesn't apply {@link #headers}.
+     */
     @JsonIgnore
     protected Retrofit retrofit;
 
+    /**
+     * The retrofit contexts and API proxies created from {@link #retrofit}, this cache is shared by all objects sharing
+     * the retrofit instance.
+     *
+     * @since 3.1
+     */
+    @JsonIgnore
+    protected ApiCache apis;
+
+    /**
+     * Builders are lazily created by {@link #ensureBuilders()} when the configuration is mutated for the first time.
+     */
     public AbstractBase() {
-        // okhttp builder
-        okhttpBuilder = new OkHttpClient.Builder();
-        // retrofit builder
-        retrofitBuilder = new Retrofit.Builder();
-        // header interceptors
-        headerInterceptors = new HashMap<>();
         // header values
-        headerValues = new HashMap<>();
+        headerValues = Collections.emptyMap();
+        // headers
+        headers = Headers.of();
     }
 
     protected AbstractBase(AbstractBase<?> base) {
@@ -79,6 +96,7 @@ public class AbstractBase<B extends AbstractBase<B>> {
      */
     @SuppressWarnings("unchecked")
     public B timeout(long timeout) {
+        ensureBuilders();
         okhttpBuilder.connectTimeout(timeout, TimeUnit.SECONDS);
         okhttpBuilder.readTimeout(timeout, TimeUnit.SECONDS);
         buildRetrofit();
@@ -90,6 +108,7 @@ public class AbstractBase<B extends AbstractBase<B>> {
      */
     @SuppressWarnings("unchecked")
     public B connectTimeout(long connectTimeout) {
+        ensureBuilders();
         okhttpBuilder.connectTimeout(connectTimeout, TimeUnit.SECONDS);
         buildRetrofit();
         return (B) this;
@@ -100,6 +119,7 @@ public class AbstractBase<B extends AbstractBase<B>> {
      */
     @SuppressWarnings("unchecked")
     public B readTimeout(long readTimeout) {
+        ensureBuilders();
         okhttpBuilder.readTimeout(readTimeout, TimeUnit.SECONDS);
         buildRetrofit();
         return (B) this;
@@ -117,34 +137,58 @@ public class AbstractBase<B extends AbstractBase<B>> {
      */
     @SuppressWarnings("unchecked")
     public B header(boolean append, String header, String value, String... values) {
+        // header values could be shared with other objects, copy them before mutation
+        Map<String, List<String>> newHeaderValues = new HashMap<>(headerValues);
         // compute the header values and put it into the map (depending on append strategy)
-        List<String> lValues = headerValues.compute(header, (k, vOld) -> {
+        newHeaderValues.compute(header, (k, vOld) -> {
             List<String> vNew = new ArrayList<>(1 + values.length);
             vNew.add(value);
             vNew.addAll(Arrays.asList(values));
-            if (append) {
+            if (append && vOld != null) {
                 vNew.addAll(vOld);
             }
             return vNew;
         });
-        // remove previous header
-        Interceptor previousInterceptor = headerInterceptors.remove(header);
-        if (previousInterceptor != null) {
-            okhttpBuilder.interceptors().remove(previousInterceptor);
-        }
-        // compute the final header value and create a okhttp interceptor
-        String headerValue = String.join(",", lValues);
-        Interceptor interceptor = chain -> {
-            Request request = chain.request();
-            request = request.newBuilder().addHeader(header, headerValue).build();
-            return chain.proceed(request);
-        };
-        headerInterceptors.put(header, interceptor);
-        okhttpBuilder.interceptors().add(interceptor);
-        buildRetrofit();
+        replaceHeaders(newHeaderValues);
         return (B) this;
     }
 
+    /**
+     * Replaces the header values of this object and compiles them into a new {@link Headers} snapshot. This doesn't
+     * re-build the retrofit context, the snapshot is applied by the retrofit context cached for it in {@link #apis}.
+     *
+     * @since 3.1
+     */
+    protected void replaceHeaders(Map<String, List<String>> newHeaderValues) {
+        headers = compileHeaders(newHeaderValues);
+        headerValues = newHeaderValues;
+        headersChanged();
+    }
+
+    /**
+     * Called when the headers of this object changed.
+     * <p />
+     * You may want to override this method if you want to do more with the new headers, for instance get a new retrofit
+     * API.
+     *
+     * @since 3.1
+     */
+    protected void headersChanged() {
+        // nothing to do by default
+    }
+
+    /**
+     * Compiles header values into an immutable {@link Headers} snapshot. Headers are sorted by name in order to get
+     * equal snapshots for equal header values.
+     *
+     * @since 3.1
+     */
+    protected static Headers compileHeaders(Map<String, List<String>> headerValues) {
+        Headers.Builder builder = new Headers.Builder();
+        new TreeMap<>(headerValues).forEach((name, values) -> builder.add(name, String.join(",", values)));
+        return builder.build();
+    }
+
     public B transactionTimeout(long timeout) {
         return header(HttpHeaders.NUXEO_TX_TIMEOUT, String.valueOf(timeout));
     }
@@ -230,6 +274,62 @@ public class AbstractBase<B extends AbstractBase<B>> {
     protected void buildRetrofit() {
         OkHttpClient okhttp = okhttpBuilder.build();
         retrofit = retrofitBuilder.callFactory(okhttp).build();
+        apis = new ApiCache(retrofit);
+    }
+
+    /**
+     * Returns the API proxy for the input interface applying the headers of this object. Proxies are cached per
+     * retrofit instance and header snapshot, which means per configuration, so objects sharing a configuration don't
+     * create a new proxy.
+     *
+     * @since 3.1
+     */
+    protected <A> A getApi(Class<A> apiClass) {
+        return apis.getApi(apiClass, headers);
+    }
+
+    /**
+     * Returns the API proxy for the input interface applying the headers of this object and the input options on top
+     * of them. This doesn't mutate this object, proxies are cached per resulting configuration.
+     *
+     * @since 3.1
+     */
+    protected <A> A getApi(Class<A> apiClass, RequestOptions options) {
+        Headers callHeaders = headers;
+        if (!options.headerValues.isEmpty()) {
+            Map<String, List<String>> callHeaderValues = new HashMap<>(headerValues);
+            callHeaderValues.putAll(options.headerValues);
+            callHeaders = compileHeaders(callHeaderValues);
+        }
+        return apis.getApi(apiClass, callHeaders, options.connectTimeout, options.readTimeout);
+    }
+
+    /**
+     * @return the retrofit instance applying the headers of this object
+     * @since 3.1
+     */
+    protected Retrofit getRetrofit() {
+        return apis.getRetrofit(headers);
+    }
+
+    /**
+     * Creates the okhttp and retrofit builders of this object if it doesn't own them yet. Builders are created from
+     * the current retrofit instance (which could be shared) in order to keep the current configuration.
+     * <p />
+     * This method has to be called before any mutation of builders.
+     *
+     * @since 3.1
+     */
+    protected void ensureBuilders() {
+        if (okhttpBuilder == null) {
+            if (retrofit == null) {
+                okhttpBuilder = new OkHttpClient.Builder();
+                retrofitBuilder = new Retrofit.Builder();
+            } else {
+                okhttpBuilder = ((OkHttpClient) retrofit.callFactory()).newBuilder();
+                retrofitBuilder = retrofit.newBuilder();
+            }
+        }
     }
 
     /**
@@ -250,12 +350,34 @@ public class AbstractBase<B extends AbstractBase<B>> {
         okhttpBuilder = okhttp.newBuilder();
         // retrofit builder
         retrofitBuilder = retrofit.newBuilder();
-        // copy header interceptors
-        headerInterceptors = new HashMap<>();
-        headerInterceptors.putAll(base.headerInterceptors);
         // copy header values
         headerValues = new HashMap<>();
         headerValues.putAll(base.headerValues);
+        // headers are immutable
+        headers = base.headers;
+        // new retrofit means new apis
+        apis = new ApiCache(retrofit);
+    }
+
+    /**
+     * Shares the configuration of input {@link AbstractBase} with this one. Unlike {@link #replaceWith(AbstractBase)},
+     * this method doesn't create any okhttp or retrofit objects, this object will use the retrofit instance and the API
+     * proxies of the input one until its configuration is mutated.
+     * <p />
+     * DON'T REMOVE FINAL KEYWORD, THIS METHOD IS USED IN A CONSTRUCTOR.
+     *
+     * @param base the base to share
+     * @since 3.1
+     */
+    protected final void shareWith(AbstractBase<?> base) {
+        // builders will be created from shared retrofit on mutation
+        okhttpBuilder = null;
+        retrofitBuilder = null;
+        // header values are never mutated, they're replaced
+        headerValues = base.headerValues;
+        headers = base.headers;
+        retrofit = base.retrofit;
+        apis = base.apis;
     }
 
 }
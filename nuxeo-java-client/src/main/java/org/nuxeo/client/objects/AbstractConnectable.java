@@ -20,6 +20,7 @@
 package org.nuxeo.client.objects;
 
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 
 import org.nuxeo.client.NuxeoClient;
 
@@ -49,16 +50,16 @@ public class AbstractConnectable<A, B extends AbstractConnectable<A, B>> extends
      * Minimal constructor to use benefit of injection mechanism.
      */
     protected AbstractConnectable(Class<A> apiClass) {
-        // don't call super, this AbstractConnectable constructor is used for not yet connected object,
-        // at this moment we don't need okhttp or retrofit objects
+        // super constructor doesn't create any objects, this AbstractConnectable constructor is used for not yet
+        // connected object, at this moment we don't need okhttp or retrofit objects
         this.apiClass = Objects.requireNonNull(apiClass, "API interface must be provided");
     }
 
     protected AbstractConnectable(Class<A> apiClass, NuxeoClient nuxeoClient) {
-        super(nuxeoClient);
-        this.apiClass = Objects.requireNonNull(apiClass, "API interface must be provided");
+        this(apiClass);
+        shareWith(nuxeoClient);
         this.nuxeoClient = nuxeoClient;
-        this.api = retrofit.create(apiClass);
+        this.api = getApi(apiClass);
     }
 
     protected <T> T fetchResponse(Call<T> call) {
@@ -69,18 +70,33 @@ public class AbstractConnectable<A, B extends AbstractConnectable<A, B>> extends
         nuxeoClient.fetchResponse(call, callback);
     }
 
+    /**
+     * @since 3.1
+     */
+    protected <T> CompletableFuture<T> fetchResponseAsync(Call<T> call) {
+        return nuxeoClient.fetchResponseAsync(call);
+    }
+
     @Override
     public void reconnectWith(NuxeoClient nuxeoClient) {
-        replaceWith(nuxeoClient);
+        // share client configuration, this doesn't build any okhttp or retrofit objects
+        shareWith(nuxeoClient);
         this.nuxeoClient = nuxeoClient;
-        this.api = retrofit.create(apiClass);
+        this.api = getApi(apiClass);
     }
 
     @Override
     protected void buildRetrofit() {
         super.buildRetrofit();
         // now re-create an API
-        this.api = retrofit.create(this.apiClass);
+        this.api = getApi(apiClass);
+    }
+
+    @Override
+    protected void headersChanged() {
+        super.headersChanged();
+        // now get the API applying new headers
+        this.api = getApi(apiClass);
     }
 
 }
@@ -0,0 +1,249 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Kevin Leturc <kleturc@nuxeo.com>
+ */
+package org.nuxeo.client.objects;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import org.nuxeo.client.HttpHeaders;
+import org.nuxeo.client.spi.interceptor.DeadlineInterceptor;
+
+import okhttp3.Call;
+import okhttp3.Headers;
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import retrofit2.Retrofit;
+
+/**
+ * Cache of retrofit contexts and API proxies created from a retrofit instance. They're cached by header snapshot and
+ * timeouts, the headers of a snapshot are added to each request by the call factory of the context, so they're part of
+ * the request of retrofit calls, for instance in the response cache key, and all interceptors see them. The deadline
+ * of a call is one of its headers, it is applied by a {@link DeadlineInterceptor} shared by all contexts.
+ * <p />
+ * Objects sharing a retrofit instance share its cache, which means that a retrofit context and an API proxy are only
+ * created once per configuration. As per call options create configurations, the cache keeps the
+ * {@link #MAX_CONTEXTS} most recently used ones.
+ *
+ * @since 3.1
+ */
+public final class ApiCache {
+
+    public static final int MAX_CONTEXTS = 64;
+
+    protected final Retrofit retrofit;
+
+    protected final DeadlineInterceptor deadlineInterceptor = new DeadlineInterceptor();
+
+    protected final Map<Key, Context> contexts = new LinkedHashMap<Key, Context>(16, 0.75f, true) {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Context> eldest) {
+            return size() > MAX_CONTEXTS;
+        }
+
+    };
+
+    public ApiCache(Retrofit retrofit) {
+        this.retrofit = retrofit;
+    }
+
+    /**
+     * @return the retrofit instance applying the input headers
+     */
+    public Retrofit getRetrofit(Headers headers) {
+        return getContext(new Key(headers, 0, 0)).retrofit;
+    }
+
+    /**
+     * @return the API proxy applying the input headers
+     */
+    public <A> A getApi(Class<A> apiClass, Headers headers) {
+        return getApi(apiClass, headers, 0, 0);
+    }
+
+    /**
+     * The timeout unit is seconds, 0 means to keep the timeout of retrofit instance.
+     *
+     * @return the API proxy applying the input headers and timeouts
+     */
+    public <A> A getApi(Class<A> apiClass, Headers headers, long connectTimeout, long readTimeout) {
+        return getContext(new Key(headers, connectTimeout, readTimeout)).getApi(apiClass);
+    }
+
+    protected Context getContext(Key key) {
+        synchronized (contexts) {
+            Context context = contexts.get(key);
+            if (context != null) {
+                return context;
+            }
+        }
+        // build the context outside of the lock, a concurrent build of the same context is discarded
+        Context context = newContext(key);
+        synchronized (contexts) {
+            Context current = contexts.putIfAbsent(key, context);
+            return current == null ? context : current;
+        }
+    }
+
+    /**
+     * @return the number of cached contexts
+     */
+    public int size() {
+        synchronized (contexts) {
+            return contexts.size();
+        }
+    }
+
+    protected Context newContext(Key key) {
+        if (key.headers.size() == 0 && key.connectTimeout == 0 && key.readTimeout == 0) {
+            return new Context(retrofit);
+        }
+        // new okhttp client shares connection pool and dispatcher with the original one
+        OkHttpClient.Builder okhttpBuilder = ((OkHttpClient) retrofit.callFactory()).newBuilder();
+        if (key.connectTimeout > 0 || key.readTimeout > 0) {
+            okhttpBuilder.interceptors().add(0, new TimeoutsInterceptor(key));
+        }
+        if (key.headers.get(HttpHeaders.X_DEADLINE) != null) {
+            // first in order to bound all other interceptors
+            okhttpBuilder.interceptors().add(0, deadlineInterceptor);
+        }
+        HeadersCallFactory callFactory = new HeadersCallFactory(okhttpBuilder.build(), key.headers);
+        return new Context(retrofit.newBuilder().callFactory(callFactory).build());
+    }
+
+    /**
+     * Key of a retrofit context: a header snapshot and the timeouts to apply.
+     */
+    protected static final class Key {
+
+        protected final Headers headers;
+
+        protected final long connectTimeout;
+
+        protected final long readTimeout;
+
+        protected Key(Headers headers, long connectTimeout, long readTimeout) {
+            this.headers = headers;
+            this.connectTimeout = connectTimeout;
+            this.readTimeout = readTimeout;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) obj;
+            return connectTimeout == key.connectTimeout && readTimeout == key.readTimeout
+                    && headers.equals(key.headers);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(headers, connectTimeout, readTimeout);
+        }
+
+    }
+
+    protected static class Context {
+
+        protected final Retrofit retrofit;
+
+        protected final ConcurrentMap<Class<?>, Object> apis = new ConcurrentHashMap<>();
+
+        protected Context(Retrofit retrofit) {
+            this.retrofit = retrofit;
+        }
+
+        @SuppressWarnings("unchecked")
+        protected <A> A getApi(Class<A> apiClass) {
+            return (A) apis.computeIfAbsent(apiClass, retrofit::create);
+        }
+
+    }
+
+    /**
+     * Call factory adding an immutable header snapshot to requests. Requests are tagged with the factory in order to
+     * add the headers once, for instance when the request of a retrofit call is sent again with this factory.
+     */
+    protected static class HeadersCallFactory implements Call.Factory {
+
+        protected final OkHttpClient client;
+
+        protected final Headers headers;
+
+        protected HeadersCallFactory(OkHttpClient client, Headers headers) {
+            this.client = client;
+            this.headers = headers;
+        }
+
+        @Override
+        public Call newCall(Request request) {
+            if (request.tag() == this) {
+                return client.newCall(request);
+            }
+            Request.Builder builder = request.newBuilder().tag(this);
+            for (int i = 0; i < headers.size(); i++) {
+                builder.addHeader(headers.name(i), headers.value(i));
+            }
+            return client.newCall(builder.build());
+        }
+
+    }
+
+    /**
+     * Interceptor applying the timeouts of the context.
+     */
+    protected static class TimeoutsInterceptor implements Interceptor {
+
+        protected final int connectTimeout;
+
+        protected final int readTimeout;
+
+        protected TimeoutsInterceptor(Key key) {
+            this.connectTimeout = (int) key.connectTimeout;
+            this.readTimeout = (int) key.readTimeout;
+        }
+
+        @Override
+        public Response intercept(Chain chain) throws IOException {
+            if (connectTimeout > 0) {
+                chain = chain.withConnectTimeout(connectTimeout, TimeUnit.SECONDS);
+            }
+            if (readTimeout > 0) {
+                chain = chain.withReadTimeout(readTimeout, TimeUnit.SECONDS);
+            }
+            return chain.proceed(chain.request());
+        }
+
+    }
+
+}
@@ -29,6 +29,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.BiConsumer;
 
 import org.nuxeo.client.ConstantsV1;
@@ -179,6 +180,27 @@ public class Document extends RepositoryEntity<RepositoryAPI, Document> {
         return document;
     }
 
+    /**
+     * @return a shallow copy of this document with the input name, this document is left untouched
+     * @since 3.1
+     */
+    protected Document copyWithName(String name) {
+        Document document = new Document(uid, type);
+        try {
+            for (Field field : Document.class.getDeclaredFields()) {
+                int modifiers = field.getModifiers();
+                if (!Modifier.isStatic(modifiers) && !Modifier.isFinal(modifiers)) {
+                    field.set(document, field.get(this));
+                }
+            }
+        } catch (ReflectiveOperationException reason) {
+            throw new NuxeoClientException("Error during copy of document", reason);
+        }
+        document.repositoryName = repositoryName;
+        document.name = name;
+        return document;
+    }
+
     public String getId() {
         return uid;
     }
@@ -538,6 +560,76 @@ public class Document extends RepositoryEntity<RepositoryAPI, Document> {
         fetchResponse(api.startWorkflowInstanceWithDocId(uid, workflow, repositoryName), callback);
     }
 
+    /* CompletableFuture */
+
+    /**
+     * @since 3.1
+     */
+    public CompletableFuture<Document> updateDocumentAsync() {
+        setProperties(getDirtyProperties());
+        if (repositoryName == null) {
+            return fetchResponseAsync(api.updateDocument(uid, this));
+        }
+        return fetchResponseAsync(api.updateDocument(uid, this, repositoryName));
+    }
+
+    /**
+     * @since 3.1
+     */
+    public CompletableFuture<Audit> fetchAuditAsync() {
+        if (repositoryName == null) {
+            return fetchResponseAsync(api.fetchAuditById(uid));
+        }
+        return fetchResponseAsync(api.fetchAuditById(uid, repositoryName));
+    }
+
+    /**
+     * @since 3.1
+     */
+    public CompletableFuture<ACP> fetchPermissionsAsync() {
+        if (repositoryName == null) {
+            return fetchResponseAsync(api.fetchPermissionsById(uid));
+        }
+        return fetchResponseAsync(api.fetchPermissionsById(uid, repositoryName));
+    }
+
+    /**
+     * @since 3.1
+     */
+    public CompletableFuture<Documents> fetchChildrenAsync() {
+        if (repositoryName == null) {
+            return fetchResponseAsync(api.fetchChildrenById(uid));
+        }
+        return fetchResponseAsync(api.fetchChildrenById(uid, repositoryName));
+    }
+
+    /**
+     * @since 3.1
+     */
+    public CompletableFuture<FileBlob> fetchBlobAsync() {
+        return fetchBlobAsync(DEFAULT_FILE_CONTENT);
+    }
+
+    /**
+     * @since 3.1
+     */
+    public CompletableFuture<FileBlob> fetchBlobAsync(String fieldPath) {
+        if (repositoryName == null) {
+            return fetchResponseAsync(api.fetchBlobById(uid, fieldPath));
+        }
+        return fetchResponseAsync(api.fetchBlobById(uid, fieldPath, repositoryName));
+    }
+
+    /**
+     * @since 3.1
+     */
+    public CompletableFuture<Workflows> fetchWorkflowInstancesAsync() {
+        if (repositoryName == null) {
+            return fetchResponseAsync(api.fetchWorkflowInstances(uid));
+        }
+        return fetchResponseAsync(api.fetchWorkflowInstances(uid, repositoryName));
+    }
+
     /* Task */
 
     public Task fetchTask() {
@@ -0,0 +1,156 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Kevin Leturc <kleturc@nuxeo.com>
+ */
+package org.nuxeo.client.objects;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.nuxeo.client.NuxeoClient;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Read-only projection of a document. Unlike {@link Document}, a view doesn't hold any connection state, which makes it
+ * suitable to keep large result sets in memory.
+ * <p />
+ * Use {@link #toDocument(NuxeoClient)} to get a connected {@link Document} from a view.
+ *
+ * @since 3.1
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public final class DocumentView {
+
+    protected final String uid;
+
+    protected final String path;
+
+    protected final String type;
+
+    protected final String state;
+
+    protected final String title;
+
+    protected final String parentRef;
+
+    protected final String repositoryName;
+
+    protected final String changeToken;
+
+    protected final String lastModified;
+
+    protected final List<String> facets;
+
+    protected final Map<String, Object> properties;
+
+    @JsonCreator
+    public DocumentView(@JsonProperty("uid") String uid, @JsonProperty("path") String path,
+            @JsonProperty("type") String type, @JsonProperty("state") String state,
+            @JsonProperty("title") String title, @JsonProperty("parentRef") String parentRef,
+            @JsonProperty("repository") String repositoryName, @JsonProperty("changeToken") String changeToken,
+            @JsonProperty("lastModified") String lastModified, @JsonProperty("facets") List<String> facets,
+            @JsonProperty("properties") Map<String, Object> properties) {
+        this.uid = uid;
+        this.path = path;
+        this.type = type;
+        this.state = state;
+        this.title = title;
+        this.parentRef = parentRef;
+        this.repositoryName = repositoryName;
+        this.changeToken = changeToken;
+        this.lastModified = lastModified;
+        this.facets = facets == null ? Collections.emptyList() : Collections.unmodifiableList(facets);
+        this.properties = properties == null ? Collections.emptyMap() : Collections.unmodifiableMap(properties);
+    }
+
+    public String getId() {
+        return uid;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getState() {
+        return state;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getParentRef() {
+        return parentRef;
+    }
+
+    public String getRepositoryName() {
+        return repositoryName;
+    }
+
+    public String getChangeToken() {
+        return changeToken;
+    }
+
+    public String getLastModified() {
+        return lastModified;
+    }
+
+    public List<String> getFacets() {
+        return facets;
+    }
+
+    public Map<String, Object> getProperties() {
+        return properties;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T getPropertyValue(String key) {
+        return (T) properties.get(key);
+    }
+
+    /**
+     * Converts this view to a {@link Document} connected to the input client. Properties are copied, the returned
+     * document has no dirty properties.
+     *
+     * @param nuxeoClient the client to connect the document with
+     * @return a connected document
+     */
+    public Document toDocument(NuxeoClient nuxeoClient) {
+        Document document = Document.createWithId(uid, type);
+        document.path = path;
+        document.state = state;
+        document.title = title;
+        document.parentRef = parentRef;
+        document.repositoryName = repositoryName;
+        document.changeToken = changeToken;
+        document.lastModified = lastModified;
+        document.facets = facets;
+        document.properties = new HashMap<>(properties);
+        document.reconnectWith(nuxeoClient);
+        return document;
+    }
+
+}
@@ -25,6 +25,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import org.nuxeo.client.HttpHeaders;
 import org.nuxeo.client.NuxeoClient;
@@ -118,7 +119,34 @@ public class Operation extends ConnectableEntity<OperationAPI, Operation> {
         fetchResponse(getCallToExecute(), (Callback<Object>) callback);
     }
 
+    /**
+     * Executes the operation asynchronously, see {@link NuxeoClient#fetchResponseAsync(Call)}.
+     *
+     * @since 3.1
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> executeAsync() {
+        return (CompletableFuture<T>) fetchResponseAsync(getCallToExecute());
+    }
+
+    /**
+     * Executes the operation with the input options applied to this call only.
+     *
+     * @since 3.1
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(RequestOptions options) {
+        return (T) fetchResponse(getCallToExecute(getApi(apiClass, options)));
+    }
+
     protected Call<Object> getCallToExecute() {
+        return getCallToExecute(api);
+    }
+
+    /**
+     * @since 3.1
+     */
+    protected Call<Object> getCallToExecute(OperationAPI api) {
         Object input = body.getInput();
         if (input instanceof Blob) { // If input is blob or blobs -> use multipart
             Blob blob = (Blob) input;
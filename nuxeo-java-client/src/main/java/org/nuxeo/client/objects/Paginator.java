@@ -0,0 +1,216 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Kevin Leturc <kleturc@nuxeo.com>
+ */
+package org.nuxeo.client.objects;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.nuxeo.client.spi.NuxeoClientException;
+
+/**
+ * Iterator over the entries of a paginated result, pages are fetched asynchronously and the next pages are prefetched
+ * while the current one is consumed. The prefetch depth is the number of pages requested ahead of the current one, 1
+ * by default, 0 fetches pages sequentially.
+ * <p />
+ * Pages are requested before knowing whether they exist, so a prefetch depth greater than 1 can request pages after
+ * the last one, they're cancelled as soon as the last page is received.
+ * <p />
+ * Usage:
+ *
+ * <pre>
+ * try (Stream&lt;Document&gt; documents = repository.paginateQuery("SELECT * FROM Document", 100).prefetch(2).stream()) {
+ *     documents.forEach(this::index);
+ * }
+ * </pre>
+ *
+ * A paginator has to be consumed by a single thread.
+ *
+ * @param <T> The entry type.
+ * @since 3.1
+ */
+public class Paginator<T> implements Iterator<T>, AutoCloseable {
+
+    protected final IntFunction<PendingPage<T>> pageFetcher;
+
+    protected final Deque<PendingPage<T>> pendingPages = new ArrayDeque<>();
+
+    protected int prefetchDepth = 1;
+
+    protected int nextPageIndex;
+
+    protected Iterator<T> entries = Collections.emptyIterator();
+
+    protected boolean lastPage;
+
+    /**
+     * @param pageFetcher the function fetching a page from its index, starting from 0
+     * @param entries the function returning the entries of a page
+     * @param nextPageAvailable the predicate telling if there's a page after the input one
+     */
+    public <P> Paginator(IntFunction<? extends CompletableFuture<P>> pageFetcher,
+            Function<? super P, ? extends List<T>> entries, Predicate<? super P> nextPageAvailable) {
+        this.pageFetcher = pageIndex -> {
+            CompletableFuture<P> call = pageFetcher.apply(pageIndex);
+            return new PendingPage<>(call, call.thenApply(page -> page == null ? new Page<>(null, false)
+                    : new Page<>(entries.apply(page), nextPageAvailable.test(page))));
+        };
+    }
+
+    /**
+     * @param pageFetcher the function fetching a page from its index, starting from 0
+     * @return a paginator over the entries of the fetched {@link PaginableEntity}s
+     */
+    public static <T, P extends PaginableEntity<T>> Paginator<T> of(
+            IntFunction<? extends CompletableFuture<P>> pageFetcher) {
+        return new Paginator<>(pageFetcher, PaginableEntity::getEntries, PaginableEntity::isNextPageAvailable);
+    }
+
+    /**
+     * Sets the number of pages requested ahead of the current one, it has to be called before iterating.
+     */
+    public Paginator<T> prefetch(int prefetchDepth) {
+        if (prefetchDepth < 0) {
+            throw new IllegalArgumentException("Prefetch depth must not be negative, got: " + prefetchDepth);
+        }
+        this.prefetchDepth = prefetchDepth;
+        return this;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!entries.hasNext()) {
+            if (lastPage) {
+                return false;
+            }
+            fetchNextPage();
+        }
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return entries.next();
+    }
+
+    /**
+     * @return a sequential stream over the remaining entries, closing it cancels the prefetched pages
+     */
+    public Stream<T> stream() {
+        Spliterator<T> spliterator = Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED);
+        return StreamSupport.stream(spliterator, false).onClose(this::close);
+    }
+
+    /**
+     * Cancels the prefetched pages, it has to be called when the paginator is not consumed until the end.
+     */
+    @Override
+    public void close() {
+        lastPage = true;
+        entries = Collections.emptyIterator();
+        cancelPendingPages();
+    }
+
+    protected void fetchNextPage() {
+        // only the first page is not requested ahead
+        requestPages(1);
+        Page<T> page;
+        try {
+            page = pendingPages.poll().page.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            close();
+            throw new NuxeoClientException("Interrupted while fetching page", e);
+        } catch (ExecutionException e) {
+            close();
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new NuxeoClientException("Unable to fetch page", cause);
+        }
+        if (page.entries != null) {
+            entries = page.entries.iterator();
+        }
+        lastPage = page.entries == null || page.entries.isEmpty() || !page.nextPageAvailable;
+        if (lastPage) {
+            cancelPendingPages();
+        } else {
+            requestPages(prefetchDepth);
+        }
+    }
+
+    protected void requestPages(int count) {
+        while (pendingPages.size() < count) {
+            pendingPages.add(pageFetcher.apply(nextPageIndex++));
+        }
+    }
+
+    protected void cancelPendingPages() {
+        PendingPage<T> pendingPage;
+        while ((pendingPage = pendingPages.poll()) != null) {
+            pendingPage.call.cancel(true);
+        }
+    }
+
+    protected static class PendingPage<T> {
+
+        /**
+         * The future returned by the page fetcher, cancelling it cancels the call.
+         */
+        protected final CompletableFuture<?> call;
+
+        protected final CompletableFuture<Page<T>> page;
+
+        protected PendingPage(CompletableFuture<?> call, CompletableFuture<Page<T>> page) {
+            this.call = call;
+            this.page = page;
+        }
+
+    }
+
+    protected static class Page<T> {
+
+        protected final List<T> entries;
+
+        protected final boolean nextPageAvailable;
+
+        protected Page(List<T> entries, boolean nextPageAvailable) {
+            this.entries = entries;
+            this.nextPageAvailable = nextPageAvailable;
+        }
+
+    }
+
+}
@@ -19,18 +19,55 @@
  */
 package org.nuxeo.client.objects;
 
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.StringJoiner;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.nuxeo.client.HttpHeaders;
 import org.nuxeo.client.NuxeoClient;
+import org.nuxeo.client.methods.OperationAPI;
 import org.nuxeo.client.methods.RepositoryAPI;
 import org.nuxeo.client.objects.acl.ACP;
 import org.nuxeo.client.objects.annotation.Annotation;
 import org.nuxeo.client.objects.annotation.Annotations;
 import org.nuxeo.client.objects.audit.Audit;
+import org.nuxeo.client.objects.audit.LogEntry;
 import org.nuxeo.client.objects.blob.FileBlob;
+import org.nuxeo.client.objects.bulk.BulkItem;
+import org.nuxeo.client.objects.bulk.BulkOptions;
+import org.nuxeo.client.objects.bulk.BulkPipeline;
+import org.nuxeo.client.objects.bulk.BulkResult;
+import org.nuxeo.client.objects.operation.DocRefs;
+import org.nuxeo.client.objects.walk.DocumentVisitor;
+import org.nuxeo.client.objects.walk.DocumentWalker;
+import org.nuxeo.client.objects.walk.WalkOptions;
+import org.nuxeo.client.objects.walk.WalkResult;
 import org.nuxeo.client.objects.workflow.Graph;
 import org.nuxeo.client.objects.workflow.Workflow;
 import org.nuxeo.client.objects.workflow.Workflows;
+import org.nuxeo.client.spi.NuxeoClientException;
 
 import okhttp3.ResponseBody;
+import retrofit2.Call;
 import retrofit2.Callback;
 
 /**
@@ -38,6 +75,14 @@ import retrofit2.Callback;
  */
 public class Repository extends RepositoryEntity<RepositoryAPI, Repository> {
 
+    /**
+     * The maximum length of the encoded NXQL query sent by bulk fetches, it keeps request urls under the limit of
+     * common servers and proxies.
+     *
+     * @since 3.1
+     */
+    public static final int MAX_QUERY_LENGTH = 4000;
+
     public Repository(NuxeoClient nuxeoClient) {
         super(EntityTypes.DOCUMENT, RepositoryAPI.class, nuxeoClient);
     }
@@ -62,6 +107,17 @@ public class Repository extends RepositoryEntity<RepositoryAPI, Repository> {
         }
     }
 
+    /**
+     * @since 3.1
+     */
+    public Document fetchDocumentRoot(RequestOptions options) {
+        RepositoryAPI callApi = getApi(apiClass, options);
+        if (repositoryName == null) {
+            return fetchResponse(callApi.fetchDocumentRoot());
+        }
+        return fetchResponse(callApi.fetchDocumentRoot(repositoryName));
+    }
+
     /* By Id - Sync */
 
     public Document fetchDocumentById(String documentId) {
@@ -71,6 +127,19 @@ public class Repository extends RepositoryEntity<RepositoryAPI, Repository> {
         return fetchResponse(api.fetchDocumentById(documentId, repositoryName));
     }
 
+    /**
+     * Fetches the document with the input options applied to this call only.
+     *
+     * @since 3.1
+     */
+    public Document fetchDocumentById(String documentId, RequestOptions options) {
+        RepositoryAPI callApi = getApi(apiClass, options);
+        if (repositoryName == null) {
+            return fetchResponse(callApi.fetchDocumentById(documentId));
+        }
+        return fetchResponse(callApi.fetchDocumentById(documentId, repositoryName));
+    }
+
     public Document createDocumentById(String parentId, Document document) {
         if (repositoryName == null) {
             return fetchResponse(api.createDocumentById(parentId, document));
@@ -143,6 +212,19 @@ public class Repository extends RepositoryEntity<RepositoryAPI, Repository> {
         return fetchResponse(api.fetchDocumentByPath(documentPath, repositoryName));
     }
 
+    /**
+     * Fetches the document with the input options applied to this call only.
+     *
+     * @since 3.1
+     */
+    public Document fetchDocumentByPath(String documentPath, RequestOptions options) {
+        RepositoryAPI callApi = getApi(apiClass, options);
+        if (repositoryName == null) {
+            return fetchResponse(callApi.fetchDocumentByPath(documentPath));
+        }
+        return fetchResponse(callApi.fetchDocumentByPath(documentPath, repositoryName));
+    }
+
     public Document createDocumentByPath(String parentPath, Document document) {
         if (repositoryName == null) {
             return fetchResponse(api.createDocumentByPath(parentPath, document));
@@ -185,6 +267,33 @@ public class Repository extends RepositoryEntity<RepositoryAPI, Repository> {
                 sortOrder, queryParams));
     }
 
+    /**
+     * Queries documents with the input options applied to this call only.
+     *
+     * @since 3.1
+     */
+    public Documents query(String query, RequestOptions options) {
+        return fetchResponse(getApi(apiClass, options).query(query));
+    }
+
+    /**
+     * @since 3.1
+     */
+    public Documents query(String query, String pageSize, String currentPageIndex, String maxResults, String sortBy,
+            String sortOrder, String queryParams, RequestOptions options) {
+        return fetchResponse(getApi(apiClass, options).query(query, pageSize, currentPageIndex, maxResults, sortBy,
+                sortOrder, queryParams));
+    }
+
+    /**
+     * @since 3.1
+     */
+    public Documents queryByProvider(String providerName, String pageSize, String currentPageIndex, String maxResults,
+            String sortBy, String sortOrder, String queryParams, RequestOptions options) {
+        return fetchResponse(getApi(apiClass, options).queryByProvider(providerName, pageSize, currentPageIndex,
+                maxResults, sortBy, sortOrder, queryParams));
+    }
+
     /* Query - Async */
 
     public void query(String query, Callback<Documents> callback) {
@@ -203,6 +312,279 @@ public class Repository extends RepositoryEntity<RepositoryAPI, Repository> {
                 queryParams), callback);
     }
 
+    /* Query - Streaming */
+
+    /**
+     * Queries documents and hands each document to the consumer as soon as it is decoded, instead of materializing
+     * the whole page. This keeps the memory used by pages with many documents or large properties proportional to one
+     * document. Results are never cached.
+     *
+     * @return the page metadata, its entries are empty
+     * @since 3.1
+     */
+    public Documents streamQuery(String query, Consumer<? super Document> consumer) {
+        return streamDocuments(api.query(query), consumer);
+    }
+
+    /**
+     * @see #streamQuery(String, Consumer)
+     * @since 3.1
+     */
+    public Documents streamQuery(String query, String pageSize, String currentPageIndex, String maxResults,
+            String sortBy, String sortOrder, String queryParams, Consumer<? super Document> consumer) {
+        return streamDocuments(
+                api.query(query, pageSize, currentPageIndex, maxResults, sortBy, sortOrder, queryParams), consumer);
+    }
+
+    /**
+     * @see #streamQuery(String, Consumer)
+     * @since 3.1
+     */
+    public Documents streamQueryByProvider(String providerName, String pageSize, String currentPageIndex,
+            String maxResults, String sortBy, String sortOrder, String queryParams,
+            Consumer<? super Document> consumer) {
+        return streamDocuments(api.queryByProvider(providerName, pageSize, currentPageIndex, maxResults, sortBy,
+                sortOrder, queryParams), consumer);
+    }
+
+    /**
+     * @see #streamQuery(String, Consumer)
+     * @since 3.1
+     */
+    public Documents streamChildrenById(String parentId, String currentPageIndex, String pageSize,
+            Consumer<? super Document> consumer) {
+        if (repositoryName == null) {
+            return streamDocuments(api.fetchChildrenById(parentId, currentPageIndex, pageSize), consumer);
+        }
+        return streamDocuments(api.fetchChildrenById(parentId, repositoryName, currentPageIndex, pageSize), consumer);
+    }
+
+    /**
+     * @since 3.1
+     */
+    protected Documents streamDocuments(Call<Documents> call, Consumer<? super Document> consumer) {
+        return nuxeoClient.fetchEntries(getRetrofit().callFactory(), call, Documents.class, Document.class, consumer);
+    }
+
+    /* Query - Views */
+
+    /**
+     * Queries documents as read-only {@link DocumentView}s. Views don't hold any connection state, use
+     * {@link DocumentView#toDocument(NuxeoClient)} to get a connected document.
+     *
+     * @since 3.1
+     */
+    public DocumentViews queryAsViews(String query) {
+        return fetchResponse(api.queryAsViews(query));
+    }
+
+    /**
+     * @since 3.1
+     */
+    public DocumentViews queryAsViews(String query, String pageSize, String currentPageIndex, String maxResults,
+            String sortBy, String sortOrder, String queryParams) {
+        return fetchResponse(
+                api.queryAsViews(query, pageSize, currentPageIndex, maxResults, sortBy, sortOrder, queryParams));
+    }
+
+    /**
+     * @since 3.1
+     */
+    public DocumentViews queryByProviderAsViews(String providerName, String pageSize, String currentPageIndex,
+            String maxResults, String sortBy, String sortOrder, String queryParams) {
+        return fetchResponse(api.queryByProviderAsViews(providerName, pageSize, currentPageIndex, maxResults, sortBy,
+                sortOrder, queryParams));
+    }
+
+    /* CompletableFuture */
+
+    /**
+     * @since 3.1
+     */
+    public CompletableFuture<Document> fetchDocumentRootAsync() {
+        if (repositoryName == null) {
+            return fetchResponseAsync(api.fetchDocumentRoot());
+        }
+        return fetchResponseAsync(api.fetchDocumentRoot(repositoryName));
+    }
+
+    /**
+     * @since 3.1
+     */
+    public CompletableFuture<Document> fetchDocumentByIdAsync(String documentId) {
+        if (repositoryName == null) {
+            return fetchResponseAsync(api.fetchDocumentById(documentId));
+        }
+        return fetchResponseAsync(api.fetchDocumentById(documentId, repositoryName));
+    }
+
+    /**
+     * @since 3.1
+     */
+    public CompletableFuture<Document> fetchDocumentByPathAsync(String documentPath) {
+        if (repositoryName == null) {
+            return fetchResponseAsync(api.fetchDocumentByPath(documentPath));
+        }
+        return fetchResponseAsync(api.fetchDocumentByPath(documentPath, repositoryName));
+    }
+
+    /**
+     * @since 3.1
+     */
+    public CompletableFuture<Document> createDocumentByIdAsync(String parentId, Document document) {
+        if (repositoryName == null) {
+            return fetchResponseAsync(api.createDocumentById(parentId, document));
+        }
+        return fetchResponseAsync(api.createDocumentById(parentId, document, repositoryName));
+    }
+
+    /**
+     * @since 3.1
+     */
+    public CompletableFuture<Document> createDocumentByPathAsync(String parentPath, Document document) {
+        if (repositoryName == null) {
+            return fetchResponseAsync(api.createDocumentByPath(parentPath, document));
+        }
+        return fetchResponseAsync(api.createDocumentByPath(parentPath, document, repositoryName));
+    }
+
+    /**
+     * @since 3.1
+     */
+    public CompletableFuture<Document> updateDocumentAsync(Document document) {
+        document.setProperties(document.getDirtyProperties());
+        if (repositoryName == null) {
+            return fetchResponseAsync(api.updateDocument(document.getId(), document));
+        }
+        return fetchResponseAsync(api.updateDocument(document.getId(), document, repositoryName));
+    }
+
+    /**
+     * @since 3.1
+     */
+    public CompletableFuture<Void> deleteDocumentAsync(String documentId) {
+        if (repositoryName == null) {
+            return fetchResponseAsync(api.deleteDocument(documentId)).thenAccept(body -> {});
+        }
+        return fetchResponseAsync(api.deleteDocument(documentId, repositoryName)).thenAccept(body -> {});
+    }
+
+    /**
+     * @since 3.1
+     */
+    public CompletableFuture<Documents> queryAsync(String query) {
+        return fetchResponseAsync(api.query(query));
+    }
+
+    /**
+     * @since 3.1
+     */
+    public CompletableFuture<Documents> queryAsync(String query, String pageSize, String currentPageIndex,
+            String maxResults, String sortBy, String sortOrder, String queryParams) {
+        return fetchResponseAsync(
+                api.query(query, pageSize, currentPageIndex, maxResults, sortBy, sortOrder, queryParams));
+    }
+
+    /**
+     * @since 3.1
+     */
+    public CompletableFuture<Documents> queryByProviderAsync(String providerName, String pageSize,
+            String currentPageIndex, String maxResults, String sortBy, String sortOrder, String queryParams) {
+        return fetchResponseAsync(api.queryByProvider(providerName, pageSize, currentPageIndex, maxResults, sortBy,
+                sortOrder, queryParams));
+    }
+
+    /**
+     * @since 3.1
+     */
+    public CompletableFuture<Documents> fetchChildrenByIdAsync(String parentId) {
+        if (repositoryName == null) {
+            return fetchResponseAsync(api.fetchChildrenById(parentId));
+        }
+        return fetchResponseAsync(api.fetchChildrenById(parentId, repositoryName));
+    }
+
+    /**
+     * @since 3.1
+     */
+    public CompletableFuture<Documents> fetchChildrenByPathAsync(String parentPath) {
+        if (repositoryName == null) {
+            return fetchResponseAsync(api.fetchChildrenByPath(parentPath));
+        }
+        return fetchResponseAsync(api.fetchChildrenByPath(parentPath, repositoryName));
+    }
+
+    /**
+     * @since 3.1
+     */
+    public CompletableFuture<FileBlob> fetchBlobByIdAsync(String documentId, String fieldPath) {
+        if (repositoryName == null) {
+            return fetchResponseAsync(api.fetchBlobById(documentId, fieldPath));
+        }
+        return fetchResponseAsync(api.fetchBlobById(documentId, fieldPath, repositoryName));
+    }
+
+    /**
+     * @since 3.1
+     */
+    public CompletableFuture<FileBlob> fetchBlobByPathAsync(String documentPath, String fieldPath) {
+        if (repositoryName == null) {
+            return fetchResponseAsync(api.fetchBlobByPath(documentPath, fieldPath));
+        }
+        return fetchResponseAsync(api.fetchBlobByPath(documentPath, fieldPath, repositoryName));
+    }
+
+    /**
+     * @since 3.1
+     */
+    public CompletableFuture<Audit> fetchAuditByIdAsync(String documentId, String currentPageIndex, String pageSize) {
+        if (repositoryName == null) {
+            return fetchResponseAsync(api.fetchAuditById(documentId, currentPageIndex, pageSize));
+        }
+        return fetchResponseAsync(api.fetchAuditById(documentId, repositoryName, currentPageIndex, pageSize));
+    }
+
+    /* Pagination */
+
+    /**
+     * @return a paginator over all the documents matching the query, see {@link Paginator}
+     * @since 3.1
+     */
+    public Paginator<Document> paginateQuery(String query, int pageSize) {
+        return paginateQuery(query, pageSize, null, null, null);
+    }
+
+    /**
+     * @return a paginator over all the documents matching the query, see {@link Paginator}
+     * @since 3.1
+     */
+    public Paginator<Document> paginateQuery(String query, int pageSize, String sortBy, String sortOrder,
+            String queryParams) {
+        String size = String.valueOf(pageSize);
+        return Paginator.of(pageIndex -> queryAsync(query, size, String.valueOf(pageIndex), null, sortBy, sortOrder,
+                queryParams));
+    }
+
+    /**
+     * @return a paginator over all the documents returned by the page provider, see {@link Paginator}
+     * @since 3.1
+     */
+    public Paginator<Document> paginateQueryByProvider(String providerName, int pageSize, String sortBy,
+            String sortOrder, String queryParams) {
+        String size = String.valueOf(pageSize);
+        return Paginator.of(pageIndex -> queryByProviderAsync(providerName, size, String.valueOf(pageIndex), null,
+                sortBy, sortOrder, queryParams));
+    }
+
+    /**
+     * @return a paginator over all the audit entries of the document, see {@link Paginator}
+     * @since 3.1
+     */
+    public Paginator<LogEntry> paginateAuditById(String documentId, int pageSize) {
+        String size = String.valueOf(pageSize);
+        return Paginator.of(pageIndex -> fetchAuditByIdAsync(documentId, String.valueOf(pageIndex), size));
+    }
+
     /* Audit - Sync */
 
     public Audit fetchAuditByPath(String documentPath) {
@@ -219,6 +601,16 @@ public class Repository extends RepositoryEntity<RepositoryAPI, Repository> {
         return fetchResponse(api.fetchAuditById(documentId, repositoryName));
     }
 
+    /**
+     * @since 3.1
+     */
+    public Audit fetchAuditById(String documentId, String currentPageIndex, String pageSize) {
+        if (repositoryName == null) {
+            return fetchResponse(api.fetchAuditById(documentId, currentPageIndex, pageSize));
+        }
+        return fetchResponse(api.fetchAuditById(documentId, repositoryName, currentPageIndex, pageSize));
+    }
+
     /* Audit - Async */
 
     public void fetchAuditByPath(String documentPath, Callback<Audit> callback) {
@@ -287,6 +679,38 @@ public class Repository extends RepositoryEntity<RepositoryAPI, Repository> {
         return fetchResponse(api.fetchChildrenById(parentId, repositoryName));
     }
 
+    /**
+     * @since 3.1
+     */
+    public Documents fetchChildrenById(String parentId, String currentPageIndex, String pageSize) {
+        if (repositoryName == null) {
+            return fetchResponse(api.fetchChildrenById(parentId, currentPageIndex, pageSize));
+        }
+        return fetchResponse(api.fetchChildrenById(parentId, repositoryName, currentPageIndex, pageSize));
+    }
+
+    /**
+     * @since 3.1
+     */
+    public Documents fetchChildrenByPath(String parentPath, RequestOptions options) {
+        RepositoryAPI callApi = getApi(apiClass, options);
+        if (repositoryName == null) {
+            return fetchResponse(callApi.fetchChildrenByPath(parentPath));
+        }
+        return fetchResponse(callApi.fetchChildrenByPath(parentPath, repositoryName));
+    }
+
+    /**
+     * @since 3.1
+     */
+    public Documents fetchChildrenById(String parentId, RequestOptions options) {
+        RepositoryAPI callApi = getApi(apiClass, options);
+        if (repositoryName == null) {
+            return fetchResponse(callApi.fetchChildrenById(parentId));
+        }
+        return fetchResponse(callApi.fetchChildrenById(parentId, repositoryName));
+    }
+
     /* Children - Async */
 
     public void fetchChildrenByPath(String parentPath, Callback<Documents> callback) {
@@ -511,4 +935,395 @@ public class Repository extends RepositoryEntity<RepositoryAPI, Repository> {
         }
     }
 
+    /* Walk */
+
+    /**
+     * Walks the tree under the input root with default {@link WalkOptions}, see
+     * {@link #walk(String, DocumentVisitor, WalkOptions)}.
+     *
+     * @since 3.1
+     */
+    public WalkResult walk(String rootPath, DocumentVisitor visitor) {
+        return walk(rootPath, visitor, new WalkOptions());
+    }
+
+    /**
+     * Walks the tree under the input root, the root is visited at depth 0. Children of folderish documents are fetched
+     * page by page and visited as pages are received, sub trees are walked concurrently with up to parallelism
+     * children requests in flight. The visitor can skip the children of a document or stop the walk.
+     * <p />
+     * Failures to fetch children are reported in the result and don't stop the walk, exceptions thrown by the visitor
+     * stop it and are rethrown.
+     *
+     * @since 3.1
+     */
+    public WalkResult walk(String rootPath, DocumentVisitor visitor, WalkOptions options) {
+        return new DocumentWalker(this, visitor, options).walk(fetchDocumentByPath(rootPath));
+    }
+
+    /* Bulk */
+
+    /**
+     * Updates the input documents with default {@link BulkOptions}, see
+     * {@link #updateDocuments(Collection, BulkOptions)}.
+     *
+     * @since 3.1
+     */
+    public BulkResult<Document> updateDocuments(Collection<Document> documents) {
+        return updateDocuments(documents, new BulkOptions());
+    }
+
+    /**
+     * Updates the dirty properties of the input documents. Documents with identical dirty properties are updated
+     * together by {@code Document.Update} operation calls of up to batch size documents, the others are updated one by
+     * one. Calls are pipelined with up to parallelism calls in flight.
+     *
+     * @return the updated documents and the failures by document id
+     * @since 3.1
+     */
+    public BulkResult<Document> updateDocuments(Collection<Document> documents, BulkOptions options) {
+        List<String> ids = new ArrayList<>(documents.size());
+        // group documents by dirty properties
+        Map<Map<String, Object>, List<Document>> groups = new LinkedHashMap<>();
+        for (Document document : documents) {
+            if (document.getId() == null) {
+                throw new IllegalArgumentException("Documents to update must have an id");
+            }
+            ids.add(document.getId());
+            groups.computeIfAbsent(new HashMap<>(document.getDirtyProperties()), k -> new ArrayList<>())
+                  .add(document);
+        }
+        BulkResult<Document> result = new BulkResult<>(ids);
+        BulkPipeline pipeline = new BulkPipeline(options.getParallelism());
+        for (Map.Entry<Map<String, Object>, List<Document>> group : groups.entrySet()) {
+            Map<String, Object> properties = group.getKey();
+            List<Document> groupDocuments = group.getValue();
+            if (groupDocuments.size() == 1 || properties.isEmpty()) {
+                for (Document document : groupDocuments) {
+                    pipeline.submit(() -> updateDocumentAsync(document), (updated, t) -> {
+                        if (t == null) {
+                            result.success(document.getId(), updated);
+                        } else {
+                            result.failure(document.getId(), t);
+                        }
+                    });
+                }
+                continue;
+            }
+            for (int i = 0; i < groupDocuments.size(); i += options.getBatchSize()) {
+                List<Document> batch = groupDocuments.subList(i,
+                        Math.min(i + options.getBatchSize(), groupDocuments.size()));
+                pipeline.submit(() -> updateDocumentsAsync(batch, properties), (updated, t) -> {
+                    Map<String, Document> updatedById = new HashMap<>();
+                    if (t == null) {
+                        updated.getDocuments().forEach(document -> updatedById.put(document.getId(), document));
+                    }
+                    for (Document document : batch) {
+                        Document updatedDocument = updatedById.get(document.getId());
+                        if (updatedDocument != null) {
+                            result.success(document.getId(), updatedDocument);
+                        } else if (t != null) {
+                            result.failure(document.getId(), t);
+                        } else {
+                            result.failure(document.getId(),
+                                    new NuxeoClientException("Document was not returned by Document.Update"));
+                        }
+                    }
+                });
+            }
+        }
+        pipeline.await();
+        return result;
+    }
+
+    /**
+     * Fetches the input documents with default {@link BulkOptions}, see
+     * {@link #fetchDocumentsByIds(Collection, BulkOptions)}.
+     *
+     * @since 3.1
+     */
+    public BulkResult<Document> fetchDocumentsByIds(Collection<String> documentIds) {
+        return fetchDocumentsByIds(documentIds, new BulkOptions());
+    }
+
+    /**
+     * Fetches the input documents with NXQL queries on their ids. Ids are grouped in queries of at most batch size ids
+     * which stay under {@link #MAX_QUERY_LENGTH}, up to parallelism queries are executed concurrently.
+     * <p />
+     * The result is keyed by document id, ids not matching a document are reported as failures.
+     *
+     * @since 3.1
+     */
+    public BulkResult<Document> fetchDocumentsByIds(Collection<String> documentIds, BulkOptions options) {
+        return fetchDocuments(documentIds, "SELECT * FROM Document WHERE ecm:uuid IN (", ", ", ")",
+                Repository::nxqlLiteral, Document::getId, options);
+    }
+
+    /**
+     * Fetches the input documents with default {@link BulkOptions}, see
+     * {@link #fetchDocumentsByPaths(Collection, BulkOptions)}.
+     *
+     * @since 3.1
+     */
+    public BulkResult<Document> fetchDocumentsByPaths(Collection<String> documentPaths) {
+        return fetchDocumentsByPaths(documentPaths, new BulkOptions());
+    }
+
+    /**
+     * Fetches the input documents with NXQL queries on their paths, see
+     * {@link #fetchDocumentsByIds(Collection, BulkOptions)}.
+     * <p />
+     * The result is keyed by document path, paths not matching a document are reported as failures.
+     *
+     * @since 3.1
+     */
+    public BulkResult<Document> fetchDocumentsByPaths(Collection<String> documentPaths, BulkOptions options) {
+        // ecm:path only supports the equality operator
+        return fetchDocuments(documentPaths, "SELECT * FROM Document WHERE ", " OR ", "",
+                path -> "ecm:path = " + nxqlLiteral(path), Document::getPath, options);
+    }
+
+    /**
+     * Creates the input documents with default {@link BulkOptions}, see
+     * {@link #createDocuments(String, Iterable, BulkOptions)}.
+     *
+     * @since 3.1
+     */
+    public Stream<BulkItem<Document, Document>> createDocuments(String parentPath, Iterable<Document> documents) {
+        return createDocuments(parentPath, documents, new BulkOptions());
+    }
+
+    /**
+     * Creates the input documents under the input parent. Creations are pipelined with up to parallelism calls in
+     * flight, documents are read from the input while the returned stream is consumed, which gives back-pressure to
+     * the code producing the documents. The stream returns the outcome of each creation in completion order.
+     * <p />
+     * Nested trees are created by giving documents a name relative to the parent, such as {@code folder/child}. A
+     * document is created once its parent is created if the parent is part of the input, so parents have to come
+     * before their children, and it fails if its parent failed. The document is created with the last segment of its
+     * name, the input document is left untouched.
+     * <p />
+     * Usage:
+     *
+     * <pre>
+     * repository.createDocuments("/default-domain/workspaces/ws", documents, new BulkOptions().parallelism(8))
+     *           .filter(item -&gt; !item.isSuccessful())
+     *           .forEach(item -&gt; log.error("Unable to create: " + item.getInput().getName(), item.getFailure()));
+     * </pre>
+     *
+     * @since 3.1
+     */
+    public Stream<BulkItem<Document, Document>> createDocuments(String parentPath, Iterable<Document> documents,
+            BulkOptions options) {
+        Spliterator<BulkItem<Document, Document>> spliterator = new CreationSpliterator(parentPath,
+                documents.iterator(), options.getParallelism());
+        return StreamSupport.stream(spliterator, false);
+    }
+
+    /**
+     * Fetches the documents matching the input keys with queries made of the input prefix, the terms of the keys
+     * joined by the input delimiter, and the input suffix.
+     *
+     * @since 3.1
+     */
+    protected BulkResult<Document> fetchDocuments(Collection<String> keys, String prefix, String delimiter,
+            String suffix, Function<String, String> term, Function<Document, String> keyOf, BulkOptions options) {
+        List<String> distinctKeys = new ArrayList<>(new LinkedHashSet<>(keys));
+        BulkResult<Document> result = new BulkResult<>(distinctKeys);
+        BulkPipeline pipeline = new BulkPipeline(options.getParallelism());
+        int fixedLength = encodedLength(prefix) + encodedLength(suffix);
+        int delimiterLength = encodedLength(delimiter);
+        List<String> chunk = new ArrayList<>();
+        StringJoiner query = new StringJoiner(delimiter, prefix, suffix);
+        int length = fixedLength;
+        for (String key : distinctKeys) {
+            String keyTerm = term.apply(key);
+            int termLength = encodedLength(keyTerm) + (chunk.isEmpty() ? 0 : delimiterLength);
+            boolean full = chunk.size() == options.getBatchSize() || length + termLength > MAX_QUERY_LENGTH;
+            if (!chunk.isEmpty() && full) {
+                fetchDocuments(chunk, query.toString(), keyOf, result, pipeline);
+                chunk = new ArrayList<>();
+                query = new StringJoiner(delimiter, prefix, suffix);
+                length = fixedLength;
+                termLength -= delimiterLength;
+            }
+            chunk.add(key);
+            query.add(keyTerm);
+            length += termLength;
+        }
+        if (!chunk.isEmpty()) {
+            fetchDocuments(chunk, query.toString(), keyOf, result, pipeline);
+        }
+        pipeline.await();
+        return result;
+    }
+
+    protected void fetchDocuments(List<String> keys, String query, Function<Document, String> keyOf,
+            BulkResult<Document> result, BulkPipeline pipeline) {
+        String pageSize = String.valueOf(keys.size());
+        pipeline.submit(() -> queryAsync(query, pageSize, "0", null, null, null, null), (documents, t) -> {
+            Map<String, Document> documentsByKey = new HashMap<>();
+            if (documents != null) {
+                documents.streamEntries().forEach(document -> documentsByKey.put(keyOf.apply(document), document));
+            }
+            for (String key : keys) {
+                Document document = documentsByKey.get(key);
+                if (document != null) {
+                    result.success(key, document);
+                } else if (t != null) {
+                    result.failure(key, t);
+                } else {
+                    result.failure(key, new NuxeoClientException("Document not found: " + key));
+                }
+            }
+        });
+    }
+
+    /**
+     * @return the input value as a NXQL string literal
+     * @since 3.1
+     */
+    protected static String nxqlLiteral(String value) {
+        return "'" + value.replace("\\", "\\\\").replace("'", "\\'") + "'";
+    }
+
+    /**
+     * @return the length of the input value once encoded in a query parameter
+     * @since 3.1
+     */
+    protected static int encodedLength(String value) {
+        try {
+            return URLEncoder.encode(value, StandardCharsets.UTF_8.name()).length();
+        } catch (UnsupportedEncodingException e) {
+            throw new NuxeoClientException("UTF-8 is not supported", e);
+        }
+    }
+
+    /**
+     * Updates the input documents with the same properties in one call.
+     *
+     * @since 3.1
+     */
+    protected CompletableFuture<Documents> updateDocumentsAsync(List<Document> documents,
+            Map<String, Object> properties) {
+        DocRefs docRefs = new DocRefs(documents.size());
+        documents.forEach(document -> docRefs.add(document.getId()));
+        return operation("Document.Update").input(docRefs).param("properties", properties).executeAsync();
+    }
+
+    /**
+     * @return a new operation sharing the configuration of this repository
+     * @since 3.1
+     */
+    protected Operation operation(String operationId) {
+        Operation operation = new Operation(nuxeoClient, operationId);
+        operation.shareWith(this);
+        operation.api = operation.getApi(OperationAPI.class);
+        if (repositoryName != null) {
+            operation.header(HttpHeaders.X_REPOSITORY, repositoryName);
+        }
+        return operation;
+    }
+
+    /**
+     * Spliterator pipelining the creation of documents, it submits creations while there are less than parallelism
+     * calls in flight and returns their outcome as they complete. It has to be consumed by a single thread.
+     *
+     * @since 3.1
+     */
+    protected class CreationSpliterator extends Spliterators.AbstractSpliterator<BulkItem<Document, Document>> {
+
+        /**
+         * The maximum number of created documents remembered in order to create their children by id.
+         */
+        protected static final int MAX_PARENTS = 10_000;
+
+        protected final String parentPath;
+
+        protected final Iterator<Document> documents;
+
+        protected final int parallelism;
+
+        protected final BlockingQueue<BulkItem<Document, Document>> completed = new LinkedBlockingQueue<>();
+
+        protected final Map<String, CompletableFuture<Document>> creations = new LinkedHashMap<>();
+
+        protected int inFlight;
+
+        protected CreationSpliterator(String parentPath, Iterator<Document> documents, int parallelism) {
+            super(Long.MAX_VALUE, Spliterator.NONNULL);
+            this.parentPath = parentPath;
+            this.documents = documents;
+            this.parallelism = parallelism;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super BulkItem<Document, Document>> action) {
+            while (inFlight < parallelism && documents.hasNext()) {
+                submit(documents.next());
+            }
+            if (inFlight == 0) {
+                return false;
+            }
+            try {
+                action.accept(completed.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new NuxeoClientException("Interrupted while waiting for document creations", e);
+            }
+            inFlight--;
+            return true;
+        }
+
+        protected void submit(Document document) {
+            String name = document.getName();
+            int index = name == null ? -1 : name.lastIndexOf('/');
+            CompletableFuture<Document> creation;
+            if (index < 0) {
+                creation = createDocumentByPathAsync(parentPath, document);
+            } else {
+                String relativeParentPath = name.substring(0, index);
+                // don't mutate the input document which is returned in the bulk item
+                Document leaf = document.copyWithName(name.substring(index + 1));
+                CompletableFuture<Document> parentCreation = creations.get(relativeParentPath);
+                if (parentCreation == null) {
+                    // parent is not part of the input or was created long ago
+                    creation = createDocumentByPathAsync(parentPath + '/' + relativeParentPath, leaf);
+                } else {
+                    creation = parentCreation.handle((parent, t) -> {
+                        if (t != null) {
+                            throw new NuxeoClientException("Creation of parent " + relativeParentPath + " failed",
+                                    unwrap(t));
+                        }
+                        return parent;
+                    }).thenCompose(parent -> createDocumentByIdAsync(parent.getId(), leaf));
+                }
+            }
+            if (name != null) {
+                creations.put(name, creation);
+                evictCreations();
+            }
+            inFlight++;
+            creation.whenComplete((created, t) -> completed.add(new BulkItem<>(document, created, unwrap(t))));
+        }
+
+        /**
+         * Evicts the eldest completed creations above {@link #MAX_PARENTS}, creations in progress are kept as their
+         * children wait for them.
+         */
+        protected void evictCreations() {
+            Iterator<CompletableFuture<Document>> iterator = creations.values().iterator();
+            while (creations.size() > MAX_PARENTS && iterator.hasNext()) {
+                if (iterator.next().isDone()) {
+                    iterator.remove();
+                }
+            }
+        }
+
+        protected Throwable unwrap(Throwable t) {
+            return t instanceof CompletionException && t.getCause() != null ? t.getCause() : t;
+        }
+
+    }
+
 }
@@ -0,0 +1,103 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Kevin Leturc <kleturc@nuxeo.com>
+ */
+package org.nuxeo.client.objects;
+
+import java.util.concurrent.TimeUnit;
+
+import org.nuxeo.client.HttpHeaders;
+import org.nuxeo.client.spi.interceptor.DeadlineInterceptor;
+
+/**
+ * Options to apply to a single call, such as schemas, enrichers, fetch properties, depth, timeouts or deadline.
+ * <p />
+ * Options are applied on top of the configuration of the object doing the call, their headers replace the ones of the
+ * object with the same name. Unlike configuring the object itself, passing options to a call doesn't mutate anything,
+ * so it is safe to use the same object from several threads with different options.
+ * <p />
+ * Usage:
+ *
+ * <pre>
+ * RequestOptions options = new RequestOptions().schemas("dublincore").enrichersForDocument("breadcrumb");
+ * Document document = nuxeoClient.repository().fetchDocumentById(documentId, options);
+ * </pre>
+ *
+ * @since 3.1
+ */
+public class RequestOptions extends AbstractBase<RequestOptions> {
+
+    protected long connectTimeout;
+
+    protected long readTimeout;
+
+    protected long deadlineMillis;
+
+    /**
+     * Sets the given timeout to connect and read timeout of the call. The timeout unit is seconds.
+     */
+    @Override
+    public RequestOptions timeout(long timeout) {
+        this.connectTimeout = timeout;
+        this.readTimeout = timeout;
+        return this;
+    }
+
+    /**
+     * The timeout unit is seconds.
+     */
+    @Override
+    public RequestOptions connectTimeout(long connectTimeout) {
+        this.connectTimeout = connectTimeout;
+        return this;
+    }
+
+    /**
+     * The timeout unit is seconds.
+     */
+    @Override
+    public RequestOptions readTimeout(long readTimeout) {
+        this.readTimeout = readTimeout;
+        return this;
+    }
+
+    /**
+     * Sets a deadline bounding the whole call: waits before sending the request, retries and response read. The
+     * transaction timeout sent to the server is the time remaining and the call is cancelled when the deadline expires,
+     * see {@link DeadlineInterceptor}.
+     */
+    public RequestOptions deadline(long timeout, TimeUnit unit) {
+        this.deadlineMillis = unit.toMillis(timeout);
+        return header(HttpHeaders.X_DEADLINE, String.valueOf(deadlineMillis));
+    }
+
+    public long getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public long getReadTimeout() {
+        return readTimeout;
+    }
+
+    /**
+     * @return the deadline in milliseconds, 0 means no deadline
+     */
+    public long getDeadlineMillis() {
+        return deadlineMillis;
+    }
+
+}
@@ -0,0 +1,64 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Kevin Leturc <kleturc@nuxeo.com>
+ */
+package org.nuxeo.client.objects.bulk;
+
+/**
+ * Outcome of a bulk call for one input: its result or its failure.
+ *
+ * @param <I> The input type.
+ * @param <T> The result type.
+ * @since 3.1
+ */
+public class BulkItem<I, T> {
+
+    protected final I input;
+
+    protected final T result;
+
+    protected final Throwable failure;
+
+    public BulkItem(I input, T result, Throwable failure) {
+        this.input = input;
+        this.result = result;
+        this.failure = failure;
+    }
+
+    public I getInput() {
+        return input;
+    }
+
+    /**
+     * @return the result, or null if the input failed
+     */
+    public T getResult() {
+        return result;
+    }
+
+    /**
+     * @return the failure, or null if the input succeeded
+     */
+    public Throwable getFailure() {
+        return failure;
+    }
+
+    public boolean isSuccessful() {
+        return failure == null;
+    }
+
+}
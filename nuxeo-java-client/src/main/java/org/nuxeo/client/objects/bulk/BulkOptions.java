@@ -0,0 +1,69 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Kevin Leturc <kleturc@nuxeo.com>
+ */
+package org.nuxeo.client.objects.bulk;
+
+/**
+ * Options of bulk calls on many documents, such as {@link org.nuxeo.client.objects.Repository#updateDocuments}.
+ * <p />
+ * Usage:
+ *
+ * <pre>
+ * BulkOptions options = new BulkOptions().batchSize(200).parallelism(8);
+ * BulkResult&lt;Document&gt; result = nuxeoClient.repository().updateDocuments(documents, options);
+ * </pre>
+ *
+ * @since 3.1
+ */
+public class BulkOptions {
+
+    protected int batchSize = 100;
+
+    protected int parallelism = 4;
+
+    /**
+     * Sets the maximum number of documents handled by a single request. Default is 100.
+     */
+    public BulkOptions batchSize(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive, got: " + batchSize);
+        }
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of requests running concurrently. Default is 4.
+     */
+    public BulkOptions parallelism(int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Parallelism must be positive, got: " + parallelism);
+        }
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+}
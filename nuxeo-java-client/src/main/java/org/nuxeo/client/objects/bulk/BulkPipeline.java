@@ -0,0 +1,94 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Kevin Leturc <kleturc@nuxeo.com>
+ */
+package org.nuxeo.client.objects.bulk;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+import org.nuxeo.client.spi.NuxeoClientException;
+
+/**
+ * Pipeline of async calls bounding the number of calls in flight. Submitting a call blocks the caller while the
+ * pipeline is full, this gives back-pressure to the code producing the calls.
+ *
+ * @since 3.1
+ */
+public class BulkPipeline {
+
+    protected final Semaphore permits;
+
+    protected final Phaser inFlight = new Phaser(1);
+
+    protected final AtomicReference<RuntimeException> callbackFailure = new AtomicReference<>();
+
+    public BulkPipeline(int parallelism) {
+        this.permits = new Semaphore(parallelism);
+    }
+
+    /**
+     * Submits an async call, the input callback is called with its result or failure when the call completes.
+     */
+    public <T> void submit(Supplier<CompletableFuture<T>> call, BiConsumer<? super T, ? super Throwable> callback) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new NuxeoClientException("Interrupted while waiting for a bulk call",
+                    new InterruptedIOException(e.getMessage()));
+        }
+        inFlight.register();
+        CompletableFuture<T> future;
+        try {
+            future = call.get();
+        } catch (RuntimeException e) {
+            future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+        }
+        future.whenComplete((result, t) -> {
+            try {
+                callback.accept(result, t instanceof CompletionException && t.getCause() != null ? t.getCause() : t);
+            } catch (RuntimeException e) {
+                callbackFailure.compareAndSet(null, e);
+            } finally {
+                permits.release();
+                inFlight.arriveAndDeregister();
+            }
+        });
+    }
+
+    /**
+     * Waits for the completion of all submitted calls.
+     *
+     * @throws RuntimeException the first exception thrown by a callback
+     */
+    public void await() {
+        inFlight.arriveAndAwaitAdvance();
+        RuntimeException failure = callbackFailure.get();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+}
@@ -0,0 +1,102 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Kevin Leturc <kleturc@nuxeo.com>
+ */
+package org.nuxeo.client.objects.bulk;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Result of a bulk call on many documents: the result or the failure of each input, they're identified by a key such
+ * as the document id. Results and failures are returned in input order.
+ *
+ * @param <T> The result type.
+ * @since 3.1
+ */
+public class BulkResult<T> {
+
+    protected final List<String> keys;
+
+    protected final Map<String, T> results = new ConcurrentHashMap<>();
+
+    protected final Map<String, Throwable> failures = new ConcurrentHashMap<>();
+
+    /**
+     * @param keys the keys of inputs in input order
+     */
+    public BulkResult(List<String> keys) {
+        this.keys = keys;
+    }
+
+    public void success(String key, T result) {
+        failures.remove(key);
+        results.put(key, result);
+    }
+
+    public void failure(String key, Throwable failure) {
+        results.remove(key);
+        failures.put(key, failure);
+    }
+
+    /**
+     * @return the results of successful inputs in input order
+     */
+    public List<T> getResults() {
+        List<T> list = new ArrayList<>(results.size());
+        for (String key : keys) {
+            T result = results.get(key);
+            if (result != null) {
+                list.add(result);
+            }
+        }
+        return list;
+    }
+
+    /**
+     * @return the result of the input with the given key, or null if it failed
+     */
+    public T getResult(String key) {
+        return results.get(key);
+    }
+
+    /**
+     * @return the failures by key in input order
+     */
+    public Map<String, Throwable> getFailures() {
+        if (failures.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, Throwable> map = new LinkedHashMap<>();
+        for (String key : keys) {
+            Throwable failure = failures.get(key);
+            if (failure != null) {
+                map.put(key, failure);
+            }
+        }
+        return map;
+    }
+
+    public boolean isSuccessful() {
+        return failures.isEmpty();
+    }
+
+}
@@ -19,11 +19,14 @@
 package org.nuxeo.client.objects.directory;
 
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 
 import org.nuxeo.client.NuxeoClient;
 import org.nuxeo.client.methods.DirectoryManagerAPI;
 import org.nuxeo.client.objects.ConnectableEntity;
 import org.nuxeo.client.objects.EntityTypes;
+import org.nuxeo.client.objects.Paginator;
+import org.nuxeo.client.objects.RequestOptions;
 
 /**
  * @since 3.0
@@ -73,6 +76,39 @@ public class Directory extends ConnectableEntity<DirectoryManagerAPI, Directory>
                 api.fetchDirectoryEntries(name, currentPageIndex, pageSize, maxResults, sortBy, sortOrder));
     }
 
+    /**
+     * Fetches the entries with the input options applied to this call only.
+     *
+     * @since 3.1
+     */
+    public DirectoryEntries fetchEntries(String currentPageIndex, String pageSize, String maxResults, String sortBy,
+            String sortOrder, RequestOptions options) {
+        return fetchResponse(getApi(apiClass, options).fetchDirectoryEntries(name, currentPageIndex, pageSize,
+                maxResults, sortBy, sortOrder));
+    }
+
+    /**
+     * @since 3.1
+     */
+    public CompletableFuture<DirectoryEntries> fetchEntriesAsync(String currentPageIndex, String pageSize,
+            String maxResults, String sortBy, String sortOrder) {
+        return fetchResponseAsync(
+                api.fetchDirectoryEntries(name, currentPageIndex, pageSize, maxResults, sortBy, sortOrder));
+    }
+
+    /**
+     * Returns a paginator over all the entries of the directory, see {@link Paginator}. Directory entries don't tell
+     * whether there's a next page, so pagination stops on the first page with less than page size entries.
+     *
+     * @since 3.1
+     */
+    public Paginator<DirectoryEntry> paginateEntries(int pageSize, String sortBy, String sortOrder) {
+        String size = String.valueOf(pageSize);
+        return new Paginator<>(
+                pageIndex -> fetchEntriesAsync(String.valueOf(pageIndex), size, null, sortBy, sortOrder),
+                DirectoryEntries::getDirectoryEntries, entries -> entries.getDirectoryEntries().size() >= pageSize);
+    }
+
     public DirectoryEntry createEntry(DirectoryEntry entry) {
         entry.setDirectoryName(name);
         return fetchResponse(api.createDirectoryEntry(name, entry));
@@ -82,6 +118,13 @@ public class Directory extends ConnectableEntity<DirectoryManagerAPI, Directory>
         return fetchResponse(api.fetchDirectoryEntry(name, entryId));
     }
 
+    /**
+     * @since 3.1
+     */
+    public DirectoryEntry fetchEntry(String entryId, RequestOptions options) {
+        return fetchResponse(getApi(apiClass, options).fetchDirectoryEntry(name, entryId));
+    }
+
     public DirectoryEntry updateEntry(DirectoryEntry entry) {
         entry.setDirectoryName(name);
         String entryId = Objects.requireNonNull(entry.getId(), "You have to give the entry id to your entry.");
@@ -22,6 +22,7 @@ package org.nuxeo.client.objects.directory;
 import org.nuxeo.client.NuxeoClient;
 import org.nuxeo.client.methods.DirectoryManagerAPI;
 import org.nuxeo.client.objects.AbstractConnectable;
+import org.nuxeo.client.objects.RequestOptions;
 
 /**
  * @since 0.1
@@ -39,6 +40,17 @@ public class DirectoryManager extends AbstractConnectable<DirectoryManagerAPI, D
         return fetchResponse(api.fetchDirectories());
     }
 
+    /**
+     * Fetches the directories with the input options applied to this call only.
+     * <p />
+     * CAUTION: Only available for Nuxeo Server greater than LTS 2016 - 8.10
+     *
+     * @since 3.1
+     */
+    public Directories fetchDirectories(RequestOptions options) {
+        return fetchResponse(getApi(apiClass, options).fetchDirectories());
+    }
+
     /**
      * @return a new {@link Directory} instance to make remote calls on it
      * @since 3.0
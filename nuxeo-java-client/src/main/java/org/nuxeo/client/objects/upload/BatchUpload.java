@@ -23,8 +23,10 @@ import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.RandomAccessFile;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import org.apache.commons.io.FilenameUtils;
 import org.nuxeo.client.ConstantsV1;
@@ -34,6 +36,8 @@ import org.nuxeo.client.methods.BatchUploadAPI;
 import org.nuxeo.client.objects.AbstractConnectable;
 import org.nuxeo.client.objects.operation.OperationBody;
 import org.nuxeo.client.spi.NuxeoClientException;
+import org.nuxeo.client.spi.jfr.FlightRecorderEvents;
+import org.nuxeo.client.spi.jfr.FlightRecorderEvents.UploadChunkRecord;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
@@ -134,8 +138,16 @@ public class BatchUpload extends AbstractConnectable<BatchUploadAPI, BatchUpload
         if (chunkSize == 0) {
             // Post file
             RequestBody fbody = RequestBody.create(MediaType.parse(fileType), file);
-            BatchUpload response = fetchResponse(api.upload(name, Long.toString(length), fileType,
-                    ConstantsV1.UPLOAD_NORMAL_TYPE, "0", "1", batchId, fileIdx, fbody));
+            UploadChunkRecord event = FlightRecorderEvents.beginUploadChunk();
+            boolean success = false;
+            BatchUpload response;
+            try {
+                response = fetchResponse(api.upload(name, Long.toString(length), fileType,
+                        ConstantsV1.UPLOAD_NORMAL_TYPE, "0", "1", batchId, fileIdx, fbody));
+                success = true;
+            } finally {
+                event.record(batchId, fileIdx, 0, 1, length, success);
+            }
             response.name = name;
             response.batchId = batchId;
             response.fileIdx = fileIdx;
@@ -151,9 +163,16 @@ public class BatchUpload extends AbstractConnectable<BatchUploadAPI, BatchUpload
                 // Post chunk as a stream
                 RequestBody requestBody = RequestBody.create(MediaTypes.APPLICATION_OCTET_STREAM.toOkHttpMediaType(),
                         buffer, 0, contentLength);
-                response = fetchResponse(api.upload(name, Long.toString(length), fileType,
-                        ConstantsV1.UPLOAD_CHUNKED_TYPE, Integer.toString(chunkIndex), Long.toString(chunkCount),
-                        batchId, fileIdx, requestBody));
+                UploadChunkRecord event = FlightRecorderEvents.beginUploadChunk();
+                boolean success = false;
+                try {
+                    response = fetchResponse(api.upload(name, Long.toString(length), fileType,
+                            ConstantsV1.UPLOAD_CHUNKED_TYPE, Integer.toString(chunkIndex), Long.toString(chunkCount),
+                            batchId, fileIdx, requestBody));
+                    success = true;
+                } finally {
+                    event.record(batchId, fileIdx, chunkIndex, chunkCount, contentLength, success);
+                }
                 chunkIndex++;
             }
             if (response != null) {
@@ -170,6 +189,90 @@ public class BatchUpload extends AbstractConnectable<BatchUploadAPI, BatchUpload
         }
     }
 
+    /**
+     * @since 3.1
+     */
+    public CompletableFuture<BatchUpload> uploadAsync(String fileIdx, File file) {
+        return uploadAsync(fileIdx, file, file.getName());
+    }
+
+    /**
+     * @since 3.1
+     */
+    public CompletableFuture<BatchUpload> uploadAsync(String fileIdx, File file, String name) {
+        return uploadAsync(fileIdx, file, name, FilenameUtils.getExtension(file.getName()));
+    }
+
+    /**
+     * @since 3.1
+     */
+    public CompletableFuture<BatchUpload> uploadAsync(String fileIdx, File file, String name, String fileType) {
+        return uploadAsync(fileIdx, file, name, fileType, file.length());
+    }
+
+    /**
+     * Uploads the file asynchronously. When chunks are enabled, they are uploaded one after the other, each chunk is
+     * read when the previous one has been uploaded.
+     *
+     * @since 3.1
+     */
+    public CompletableFuture<BatchUpload> uploadAsync(String fileIdx, File file, String name, String fileType,
+            long length) {
+        if (chunkSize == 0) {
+            // Post file
+            RequestBody fbody = RequestBody.create(MediaType.parse(fileType), file);
+            return fetchResponseAsync(api.upload(name, Long.toString(length), fileType, ConstantsV1.UPLOAD_NORMAL_TYPE,
+                    "0", "1", batchId, fileIdx, fbody)).thenApply(response -> {
+                        response.name = name;
+                        response.batchId = batchId;
+                        response.fileIdx = fileIdx;
+                        return response;
+                    });
+        }
+        long chunkCount = (file.length() + chunkSize - 1) / chunkSize;
+        if (chunkCount == 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return uploadChunkAsync(fileIdx, file, name, fileType, length, 0, chunkCount).thenApply(response -> {
+            response.name = name;
+            // batchId and fileIdx are retrieved
+            // set back the internal value in order to upload with same settings
+            response.chunkSize = chunkSize;
+            // uploadedSize doesn't have the right value
+            response.uploadedSize = length;
+            return response;
+        });
+    }
+
+    protected CompletableFuture<BatchUpload> uploadChunkAsync(String fileIdx, File file, String name, String fileType,
+            long length, int chunkIndex, long chunkCount) {
+        RequestBody requestBody;
+        long chunkLength;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            long offset = (long) chunkIndex * chunkSize;
+            byte[] buffer = new byte[(int) Math.min(chunkSize, raf.length() - offset)];
+            raf.seek(offset);
+            raf.readFully(buffer);
+            chunkLength = buffer.length;
+            // Post chunk as a stream
+            requestBody = RequestBody.create(MediaTypes.APPLICATION_OCTET_STREAM.toOkHttpMediaType(), buffer);
+        } catch (IOException reason) {
+            CompletableFuture<BatchUpload> future = new CompletableFuture<>();
+            future.completeExceptionally(new NuxeoClientException("Error during batch upload", reason));
+            return future;
+        }
+        UploadChunkRecord event = FlightRecorderEvents.beginUploadChunk();
+        CompletableFuture<BatchUpload> future = fetchResponseAsync(api.upload(name, Long.toString(length), fileType,
+                ConstantsV1.UPLOAD_CHUNKED_TYPE, Integer.toString(chunkIndex), Long.toString(chunkCount), batchId,
+                fileIdx, requestBody)).whenComplete((response, t) -> event.record(batchId, fileIdx, chunkIndex,
+                        chunkCount, chunkLength, t == null));
+        if (chunkIndex + 1 == chunkCount) {
+            return future;
+        }
+        return future.thenCompose(
+                response -> uploadChunkAsync(fileIdx, file, name, fileType, length, chunkIndex + 1, chunkCount));
+    }
+
     public void cancel() {
         fetchResponse(api.cancel(batchId));
     }
@@ -19,9 +19,13 @@
  */
 package org.nuxeo.client.objects.user;
 
+import java.util.concurrent.CompletableFuture;
+
 import org.nuxeo.client.NuxeoClient;
 import org.nuxeo.client.methods.UserManagerAPI;
 import org.nuxeo.client.objects.AbstractConnectable;
+import org.nuxeo.client.objects.Paginator;
+import org.nuxeo.client.objects.RequestOptions;
 import org.nuxeo.client.objects.workflow.Workflow;
 import org.nuxeo.client.objects.workflow.Workflows;
 
@@ -43,6 +47,15 @@ public class UserManager extends AbstractConnectable<UserManagerAPI, UserManager
         return fetchResponse(api.fetchGroup(groupName));
     }
 
+    /**
+     * Fetches the group with the input options applied to this call only.
+     *
+     * @since 3.1
+     */
+    public Group fetchGroup(String groupName, RequestOptions options) {
+        return fetchResponse(getApi(apiClass, options).fetchGroup(groupName));
+    }
+
     public Group updateGroup(String groupName, Group group) {
         return fetchResponse(api.updateGroup(groupName, group));
     }
@@ -67,6 +80,13 @@ public class UserManager extends AbstractConnectable<UserManagerAPI, UserManager
         return fetchResponse(api.searchGroup(query, currentPageIndex, pageSize));
     }
 
+    /**
+     * @since 3.1
+     */
+    public Groups searchGroup(String query, int currentPageIndex, int pageSize, RequestOptions options) {
+        return fetchResponse(getApi(apiClass, options).searchGroup(query, currentPageIndex, pageSize));
+    }
+
     public User addUserToGroup(String userName, String groupName) {
         return fetchResponse(api.addUserToGroup(userName, groupName));
     }
@@ -93,6 +113,15 @@ public class UserManager extends AbstractConnectable<UserManagerAPI, UserManager
         return fetchResponse(api.fetchUser(userName));
     }
 
+    /**
+     * Fetches the user with the input options applied to this call only.
+     *
+     * @since 3.1
+     */
+    public User fetchUser(String userName, RequestOptions options) {
+        return fetchResponse(getApi(apiClass, options).fetchUser(userName));
+    }
+
     public User updateUser(String userName, User user) {
         return fetchResponse(api.fetchUser(userName));
     }
@@ -117,6 +146,13 @@ public class UserManager extends AbstractConnectable<UserManagerAPI, UserManager
         return fetchResponse(api.searchUser(query, currentPageIndex, pageSize));
     }
 
+    /**
+     * @since 3.1
+     */
+    public Users searchUser(String query, int currentPageIndex, int pageSize, RequestOptions options) {
+        return fetchResponse(getApi(apiClass, options).searchUser(query, currentPageIndex, pageSize));
+    }
+
     public User attachGroupToUser(String groupName, String userName) {
         return fetchResponse(api.attachGroupToUser(groupName, userName));
     }
@@ -196,5 +232,116 @@ public class UserManager extends AbstractConnectable<UserManagerAPI, UserManager
     public void attachGroupToUser(String groupName, String userName, Callback<User> callback) {
         fetchResponse(api.attachGroupToUser(groupName, userName), callback);
     }
-    
+
+    /** CompletableFuture **/
+
+    /**
+     * @since 3.1
+     */
+    public CompletableFuture<Group> fetchGroupAsync(String groupName) {
+        return fetchResponseAsync(api.fetchGroup(groupName));
+    }
+
+    /**
+     * @since 3.1
+     */
+    public CompletableFuture<Group> updateGroupAsync(Group group) {
+        return fetchResponseAsync(api.updateGroup(group.getGroupName(), group));
+    }
+
+    /**
+     * @since 3.1
+     */
+    public CompletableFuture<Void> deleteGroupAsync(String groupName) {
+        return fetchResponseAsync(api.deleteGroup(groupName)).thenAccept(body -> {});
+    }
+
+    /**
+     * @since 3.1
+     */
+    public CompletableFuture<Group> createGroupAsync(Group group) {
+        return fetchResponseAsync(api.createGroup(group));
+    }
+
+    /**
+     * @since 3.1
+     */
+    public CompletableFuture<Groups> searchGroupAsync(String query) {
+        return fetchResponseAsync(api.searchGroup(query));
+    }
+
+    /**
+     * @since 3.1
+     */
+    public CompletableFuture<Groups> searchGroupAsync(String query, int currentPageIndex, int pageSize) {
+        return fetchResponseAsync(api.searchGroup(query, currentPageIndex, pageSize));
+    }
+
+    /**
+     * @since 3.1
+     */
+    public CompletableFuture<User> fetchCurrentUserAsync() {
+        return fetchResponseAsync(api.fetchCurrentUser());
+    }
+
+    /**
+     * @since 3.1
+     */
+    public CompletableFuture<User> fetchUserAsync(String userName) {
+        return fetchResponseAsync(api.fetchUser(userName));
+    }
+
+    /**
+     * @since 3.1
+     */
+    public CompletableFuture<User> updateUserAsync(User user) {
+        return fetchResponseAsync(api.updateUser(user.getUserName(), user));
+    }
+
+    /**
+     * @since 3.1
+     */
+    public CompletableFuture<Void> deleteUserAsync(String userName) {
+        return fetchResponseAsync(api.deleteUser(userName)).thenAccept(body -> {});
+    }
+
+    /**
+     * @since 3.1
+     */
+    public CompletableFuture<User> createUserAsync(User user) {
+        return fetchResponseAsync(api.createUser(user));
+    }
+
+    /**
+     * @since 3.1
+     */
+    public CompletableFuture<Users> searchUserAsync(String query) {
+        return fetchResponseAsync(api.searchUser(query));
+    }
+
+    /**
+     * @since 3.1
+     */
+    public CompletableFuture<Users> searchUserAsync(String query, int currentPageIndex, int pageSize) {
+        return fetchResponseAsync(api.searchUser(query, currentPageIndex, pageSize));
+    }
+
+    /** Pagination **/
+
+    /**
+     * @return a paginator over all the groups matching the query, see {@link Paginator}
+     * @since 3.1
+     */
+    public Paginator<Group> paginateSearchGroup(String query, int pageSize) {
+        return Paginator.of(pageIndex -> searchGroupAsync(query, pageIndex, pageSize));
+    }
+
+    /**
+     * @return a paginator over all the users matching the query, see {@link Paginator}
+     * @since 3.1
+     */
+    public Paginator<User> paginateSearchUser(String query, int pageSize) {
+        return Paginator.of(pageIndex -> searchUserAsync(query, pageIndex, pageSize));
+    }
+
 }
@@ -0,0 +1,39 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Kevin Leturc <kleturc@nuxeo.com>
+ */
+package org.nuxeo.client.objects.walk;
+
+import org.nuxeo.client.objects.Document;
+
+/**
+ * Visitor of the documents of a tree, see {@link org.nuxeo.client.objects.Repository#walk}. Documents are visited
+ * concurrently, so implementations must be thread safe.
+ *
+ * @since 3.1
+ */
+@FunctionalInterface
+public interface DocumentVisitor {
+
+    /**
+     * @param document the visited document
+     * @param depth the depth of the document, 0 for the root of the walk
+     * @return how to continue the walk
+     */
+    VisitResult visit(Document document, int depth);
+
+}
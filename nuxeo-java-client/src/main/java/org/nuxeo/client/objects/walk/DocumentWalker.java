@@ -0,0 +1,148 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Kevin Leturc <kleturc@nuxeo.com>
+ */
+package org.nuxeo.client.objects.walk;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountedCompleter;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.nuxeo.client.objects.Document;
+import org.nuxeo.client.objects.Documents;
+import org.nuxeo.client.objects.Repository;
+import org.nuxeo.client.spi.NuxeoClientException;
+
+/**
+ * Walker of a document tree, children of each folderish document are fetched page by page and walked concurrently by
+ * a work-stealing pool of parallelism threads.
+ * <p />
+ * Tasks never wait for their children to complete, so the pool doesn't spawn compensation threads and there are at
+ * most parallelism children requests in flight. Leaf documents are visited by the task of their parent, only folderish
+ * documents get their own task.
+ *
+ * @since 3.1
+ */
+public class DocumentWalker {
+
+    protected static final String FOLDERISH = "Folderish";
+
+    protected final Repository repository;
+
+    protected final DocumentVisitor visitor;
+
+    protected final WalkOptions options;
+
+    protected final AtomicLong visitedCount = new AtomicLong();
+
+    protected final Map<String, Throwable> failures = new ConcurrentHashMap<>();
+
+    protected volatile boolean terminated;
+
+    public DocumentWalker(Repository repository, DocumentVisitor visitor, WalkOptions options) {
+        this.repository = repository;
+        this.visitor = visitor;
+        this.options = options;
+    }
+
+    /**
+     * Walks the tree under the input root, exceptions thrown by the visitor stop the walk and are rethrown.
+     */
+    public WalkResult walk(Document root) {
+        ForkJoinPool pool = new ForkJoinPool(options.getParallelism());
+        try {
+            if (visit(root, 0)) {
+                pool.invoke(new WalkTask(null, root, 0));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        return new WalkResult(visitedCount.get(), failures, terminated);
+    }
+
+    /**
+     * @return whether the children of the input document have to be walked
+     */
+    protected boolean visit(Document document, int depth) {
+        VisitResult result = VisitResult.CONTINUE;
+        if (options.accepts(document.getType())) {
+            visitedCount.incrementAndGet();
+            try {
+                result = visitor.visit(document, depth);
+            } catch (RuntimeException e) {
+                terminated = true;
+                throw e;
+            }
+        }
+        if (result == VisitResult.TERMINATE) {
+            terminated = true;
+        }
+        return result == VisitResult.CONTINUE && depth < options.getMaxDepth() && isFolderish(document);
+    }
+
+    protected boolean isFolderish(Document document) {
+        // walk documents fetched without their facets
+        return document.getFacets() == null || document.getFacets().contains(FOLDERISH);
+    }
+
+    /**
+     * Task walking the children of a document which has already been visited.
+     */
+    protected class WalkTask extends CountedCompleter<Void> {
+
+        protected final Document parent;
+
+        protected final int depth;
+
+        protected WalkTask(CountedCompleter<?> completer, Document parent, int depth) {
+            super(completer);
+            this.parent = parent;
+            this.depth = depth;
+        }
+
+        @Override
+        public void compute() {
+            String pageSize = String.valueOf(options.getPageSize());
+            int pageIndex = 0;
+            boolean nextPageAvailable = true;
+            while (nextPageAvailable && !terminated) {
+                Documents page;
+                try {
+                    page = repository.fetchChildrenById(parent.getId(), String.valueOf(pageIndex++), pageSize);
+                } catch (NuxeoClientException e) {
+                    failures.put(parent.getId(), e);
+                    break;
+                }
+                for (Document child : page.getDocuments()) {
+                    if (terminated) {
+                        break;
+                    }
+                    if (visit(child, depth + 1)) {
+                        addToPendingCount(1);
+                        new WalkTask(this, child, depth + 1).fork();
+                    }
+                }
+                nextPageAvailable = page.isNextPageAvailable();
+            }
+            tryComplete();
+        }
+
+    }
+
+}
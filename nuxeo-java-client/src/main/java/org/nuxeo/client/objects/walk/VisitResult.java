@@ -0,0 +1,43 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Kevin Leturc <kleturc@nuxeo.com>
+ */
+package org.nuxeo.client.objects.walk;
+
+/**
+ * Result of a {@link DocumentVisitor} visit, it drives the rest of the walk.
+ *
+ * @since 3.1
+ */
+public enum VisitResult {
+
+    /**
+     * Continues the walk with the children of the visited document.
+     */
+    CONTINUE,
+
+    /**
+     * Continues the walk without the children of the visited document.
+     */
+    SKIP_CHILDREN,
+
+    /**
+     * Stops the walk, documents being visited concurrently are still visited.
+     */
+    TERMINATE
+
+}
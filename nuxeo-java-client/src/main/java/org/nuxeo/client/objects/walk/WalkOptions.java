@@ -0,0 +1,116 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Kevin Leturc <kleturc@nuxeo.com>
+ */
+package org.nuxeo.client.objects.walk;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Options of a tree walk, see {@link org.nuxeo.client.objects.Repository#walk}.
+ * <p />
+ * Usage:
+ *
+ * <pre>
+ * WalkOptions options = new WalkOptions().maxDepth(3).types("File", "Note").parallelism(8);
+ * nuxeoClient.repository().walk("/default-domain/workspaces", (document, depth) -&gt; {
+ *     audit(document);
+ *     return VisitResult.CONTINUE;
+ * }, options);
+ * </pre>
+ *
+ * @since 3.1
+ */
+public class WalkOptions {
+
+    protected int maxDepth = Integer.MAX_VALUE;
+
+    protected int parallelism = 4;
+
+    protected int pageSize = 100;
+
+    protected Set<String> types = Collections.emptySet();
+
+    /**
+     * Sets the maximum depth of visited documents, 0 only visits the root. Default is unlimited.
+     */
+    public WalkOptions maxDepth(int maxDepth) {
+        if (maxDepth < 0) {
+            throw new IllegalArgumentException("Max depth must not be negative, got: " + maxDepth);
+        }
+        this.maxDepth = maxDepth;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of children requests running concurrently. Default is 4.
+     */
+    public WalkOptions parallelism(int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Parallelism must be positive, got: " + parallelism);
+        }
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * Sets the number of children fetched by a single request. Default is 100.
+     */
+    public WalkOptions pageSize(int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive, got: " + pageSize);
+        }
+        this.pageSize = pageSize;
+        return this;
+    }
+
+    /**
+     * Restricts the visited documents to the input types. Children of documents with other types are still walked.
+     * Default is all types.
+     */
+    public WalkOptions types(String... types) {
+        this.types = new HashSet<>(Arrays.asList(types));
+        return this;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public Set<String> getTypes() {
+        return Collections.unmodifiableSet(types);
+    }
+
+    /**
+     * @return whether the input document has to be visited
+     */
+    public boolean accepts(String type) {
+        return types.isEmpty() || types.contains(type);
+    }
+
+}
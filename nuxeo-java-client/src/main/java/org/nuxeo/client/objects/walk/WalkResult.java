@@ -0,0 +1,67 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Kevin Leturc <kleturc@nuxeo.com>
+ */
+package org.nuxeo.client.objects.walk;
+
+import java.util.Map;
+
+/**
+ * Result of a tree walk.
+ *
+ * @since 3.1
+ */
+public class WalkResult {
+
+    protected final long visitedCount;
+
+    protected final Map<String, Throwable> failures;
+
+    protected final boolean terminated;
+
+    public WalkResult(long visitedCount, Map<String, Throwable> failures, boolean terminated) {
+        this.visitedCount = visitedCount;
+        this.failures = failures;
+        this.terminated = terminated;
+    }
+
+    /**
+     * @return the number of visited documents
+     */
+    public long getVisitedCount() {
+        return visitedCount;
+    }
+
+    /**
+     * @return the failures to fetch children by parent id, children of these parents were not walked
+     */
+    public Map<String, Throwable> getFailures() {
+        return failures;
+    }
+
+    /**
+     * @return whether the walk was stopped by the visitor
+     */
+    public boolean isTerminated() {
+        return terminated;
+    }
+
+    public boolean isSuccessful() {
+        return failures.isEmpty();
+    }
+
+}
@@ -0,0 +1,80 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Kevin Leturc <kleturc@nuxeo.com>
+ */
+package org.nuxeo.client.spi.interceptor;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Additive increase / multiplicative decrease limit: the limit is increased by one when a request succeeds while the
+ * limit is used, and multiplied by a backoff ratio when a request is dropped or slower than a latency threshold.
+ *
+ * @since 3.1
+ */
+public class AimdConcurrencyLimit implements ConcurrencyLimit {
+
+    protected final int minLimit;
+
+    protected final int maxLimit;
+
+    protected final double backoffRatio;
+
+    protected final long latencyThresholdNanos;
+
+    protected final AtomicInteger limit;
+
+    /**
+     * Creates an AIMD limit starting at 20 requests, between 1 and 200, with a backoff ratio of 0.9 and a latency
+     * threshold of 5 seconds.
+     */
+    public AimdConcurrencyLimit() {
+        this(20, 1, 200, 0.9, 5, TimeUnit.SECONDS);
+    }
+
+    public AimdConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, double backoffRatio,
+            long latencyThreshold, TimeUnit unit) {
+        if (minLimit < 1 || initialLimit < minLimit || maxLimit < initialLimit) {
+            throw new IllegalArgumentException("Limits must verify 1 <= minLimit <= initialLimit <= maxLimit");
+        }
+        if (backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("Backoff ratio must be in ]0, 1[");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.latencyThresholdNanos = unit.toNanos(latencyThreshold);
+        this.limit = new AtomicInteger(initialLimit);
+    }
+
+    @Override
+    public int getLimit() {
+        return limit.get();
+    }
+
+    @Override
+    public void onSample(long rttNanos, int inFlight, boolean dropped) {
+        if (dropped || rttNanos > latencyThresholdNanos) {
+            limit.updateAndGet(current -> Math.max(minLimit, (int) (current * backoffRatio)));
+        } else {
+            // only increase the limit if it is used, otherwise it could grow without bound
+            limit.updateAndGet(current -> inFlight * 2 >= current ? Math.min(maxLimit, current + 1) : current);
+        }
+    }
+
+}
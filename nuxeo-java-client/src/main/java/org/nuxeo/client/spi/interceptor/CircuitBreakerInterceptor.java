@@ -0,0 +1,242 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Kevin Leturc <kleturc@nuxeo.com>
+ */
+package org.nuxeo.client.spi.interceptor;
+
+import java.io.IOException;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Interceptor failing fast when the server is unhealthy: calls are tracked per endpoint group and the circuit of a
+ * group opens when its failure rate is too high. While the circuit is open, requests are rejected with a
+ * {@link CircuitBreakerOpenException} without reaching the server. After a while the circuit becomes half-open and
+ * lets a few probe calls through to decide whether to close it. See {@link CircuitBreakerPolicy} for default values.
+ * <p />
+ * Cancelled calls, such as hedged requests losing the race or calls exceeding their {@link Deadline}, don't tell
+ * anything about the server health, they're not recorded.
+ *
+ * @since 3.1
+ */
+public class CircuitBreakerInterceptor implements Interceptor {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    protected final CircuitBreakerPolicy policy;
+
+    protected final ConcurrentMap<String, Circuit> circuits = new ConcurrentHashMap<>();
+
+    protected final AtomicLong rejectedCount = new AtomicLong();
+
+    public CircuitBreakerInterceptor() {
+        this(new CircuitBreakerPolicy());
+    }
+
+    public CircuitBreakerInterceptor(CircuitBreakerPolicy policy) {
+        this.policy = Objects.requireNonNull(policy, "Circuit breaker policy must be provided");
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        String group = policy.getGroup(request);
+        Circuit circuit = circuits.computeIfAbsent(group, key -> new Circuit());
+        boolean probe = circuit.acquire(group);
+        boolean success = false;
+        boolean cancelled = false;
+        try {
+            Response response = chain.proceed(request);
+            success = !policy.isFailure(response.code());
+            return response;
+        } catch (IOException | RuntimeException e) {
+            cancelled = isCancellation(chain, e);
+            throw e;
+        } finally {
+            if (cancelled) {
+                circuit.onCancel(probe);
+            } else {
+                circuit.onResult(success, probe);
+            }
+        }
+    }
+
+    /**
+     * @return whether the input failure comes from the cancellation of the call
+     */
+    protected boolean isCancellation(Chain chain, Exception e) {
+        if (chain.call().isCanceled() || e instanceof DeadlineExceededException) {
+            return true;
+        }
+        // read timeout bounded by the deadline
+        Deadline deadline = Deadline.of(chain.request());
+        return deadline != null && deadline.isExpired();
+    }
+
+    /**
+     * @return the state of the circuit of the input endpoint group, see {@link CircuitBreakerPolicy#endpointGroup}
+     */
+    public State getState(String group) {
+        Circuit circuit = circuits.get(group);
+        return circuit == null ? State.CLOSED : circuit.getState();
+    }
+
+    /**
+     * @return the number of requests rejected because their circuit was open
+     */
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    /**
+     * The circuit of an endpoint group, outcomes of the latest calls are kept in a ring buffer.
+     */
+    protected class Circuit {
+
+        protected final Lock lock = new ReentrantLock();
+
+        protected final boolean[] failures = new boolean[policy.getWindowSize()];
+
+        protected int callCount;
+
+        protected int failureCount;
+
+        protected int next;
+
+        protected State state = State.CLOSED;
+
+        protected long openedAt;
+
+        protected int probes;
+
+        protected int probeSuccesses;
+
+        /**
+         * @return whether the call is a probe call
+         */
+        protected boolean acquire(String group) throws CircuitBreakerOpenException {
+            lock.lock();
+            try {
+                if (state == State.OPEN && System.nanoTime() - openedAt >= policy.getOpenDurationNanos()) {
+                    state = State.HALF_OPEN;
+                    probes = 0;
+                    probeSuccesses = 0;
+                }
+                if (state == State.CLOSED) {
+                    return false;
+                }
+                if (state == State.HALF_OPEN && probes < policy.getProbeCalls()) {
+                    probes++;
+                    return true;
+                }
+            } finally {
+                lock.unlock();
+            }
+            rejectedCount.incrementAndGet();
+            throw new CircuitBreakerOpenException("Circuit is open for endpoint group: " + group);
+        }
+
+        protected void onResult(boolean success, boolean probe) {
+            lock.lock();
+            try {
+                if (probe) {
+                    if (state != State.HALF_OPEN) {
+                        return;
+                    }
+                    if (!success) {
+                        open();
+                    } else if (++probeSuccesses >= policy.getProbeCalls()) {
+                        close();
+                    }
+                } else if (state == State.CLOSED) {
+                    record(!success);
+                    if (callCount >= policy.getMinimumCalls()
+                            && failureCount >= policy.getFailureRateThreshold() * callCount) {
+                        open();
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Releases the probe slot of a cancelled call, the outcome of the call is not recorded.
+         */
+        protected void onCancel(boolean probe) {
+            lock.lock();
+            try {
+                if (probe && state == State.HALF_OPEN && probes > 0) {
+                    probes--;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        protected void record(boolean failure) {
+            if (callCount == failures.length) {
+                if (failures[next]) {
+                    failureCount--;
+                }
+            } else {
+                callCount++;
+            }
+            failures[next] = failure;
+            if (failure) {
+                failureCount++;
+            }
+            next = (next + 1) % failures.length;
+        }
+
+        protected void open() {
+            state = State.OPEN;
+            openedAt = System.nanoTime();
+        }
+
+        protected void close() {
+            state = State.CLOSED;
+            callCount = 0;
+            failureCount = 0;
+            next = 0;
+        }
+
+        protected State getState() {
+            lock.lock();
+            try {
+                if (state == State.OPEN && System.nanoTime() - openedAt >= policy.getOpenDurationNanos()) {
+                    return State.HALF_OPEN;
+                }
+                return state;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,38 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Kevin Leturc <kleturc@nuxeo.com>
+ */
+package org.nuxeo.client.spi.interceptor;
+
+import java.io.IOException;
+
+/**
+ * Thrown when a request is rejected by {@link CircuitBreakerInterceptor} because the circuit of its endpoint group is
+ * open.
+ * <p />
+ * This is an {@link IOException} in order to be propagated by okhttp to async callbacks, synchronous calls get it as
+ * cause of a {@link org.nuxeo.client.spi.NuxeoClientException}.
+ *
+ * @since 3.1
+ */
+public class CircuitBreakerOpenException extends IOException {
+
+    public CircuitBreakerOpenException(String message) {
+        super(message);
+    }
+
+}
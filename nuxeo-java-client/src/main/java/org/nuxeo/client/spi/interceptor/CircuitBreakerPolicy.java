@@ -0,0 +1,155 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Kevin Leturc <kleturc@nuxeo.com>
+ */
+package org.nuxeo.client.spi.interceptor;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import okhttp3.HttpUrl;
+import okhttp3.Request;
+
+/**
+ * Configuration of {@link CircuitBreakerInterceptor}.
+ * <p />
+ * By default, the circuit of an endpoint group opens when at least 50% of the last 100 calls failed, after 20 calls at
+ * least. It stays open for 30 seconds, then 3 probe calls are let through: the circuit closes if they all succeed and
+ * opens again otherwise. A call fails on I/O errors (including timeouts) and on 502, 503 and 504 status.
+ * <p />
+ * Endpoint groups are the first segment of the REST API path on a host, for instance {@code id}, {@code path},
+ * {@code automation} or {@code upload}.
+ *
+ * @since 3.1
+ */
+public class CircuitBreakerPolicy {
+
+    protected static final List<String> API_PATH = Arrays.asList("api", "v1");
+
+    protected double failureRateThreshold = 0.5;
+
+    protected int windowSize = 100;
+
+    protected int minimumCalls = 20;
+
+    protected long openDurationNanos = TimeUnit.SECONDS.toNanos(30);
+
+    protected int probeCalls = 3;
+
+    protected Set<Integer> failureStatuses = new HashSet<>(Arrays.asList(502, 503, 504));
+
+    protected Function<Request, String> groupBy = CircuitBreakerPolicy::endpointGroup;
+
+    /**
+     * @param failureRateThreshold the failure rate opening the circuit, in ]0, 1]
+     * @param windowSize the number of latest calls used to compute the failure rate
+     * @param minimumCalls the number of calls to do before computing the failure rate
+     */
+    public CircuitBreakerPolicy failureRate(double failureRateThreshold, int windowSize, int minimumCalls) {
+        if (failureRateThreshold <= 0 || failureRateThreshold > 1) {
+            throw new IllegalArgumentException("Failure rate threshold must be in ]0, 1]");
+        }
+        this.failureRateThreshold = failureRateThreshold;
+        this.windowSize = windowSize;
+        this.minimumCalls = Math.min(minimumCalls, windowSize);
+        return this;
+    }
+
+    /**
+     * Sets the time the circuit stays open before letting probe calls through.
+     */
+    public CircuitBreakerPolicy openDuration(long openDuration, TimeUnit unit) {
+        this.openDurationNanos = unit.toNanos(openDuration);
+        return this;
+    }
+
+    /**
+     * @param probeCalls the number of calls let through when the circuit is half-open, they all have to succeed to
+     *            close the circuit
+     */
+    public CircuitBreakerPolicy probeCalls(int probeCalls) {
+        if (probeCalls < 1) {
+            throw new IllegalArgumentException("Probe calls must be greater than 0");
+        }
+        this.probeCalls = probeCalls;
+        return this;
+    }
+
+    /**
+     * Replaces the HTTP status codes counted as failures.
+     */
+    public CircuitBreakerPolicy failureStatuses(Integer... statuses) {
+        this.failureStatuses = new HashSet<>(Arrays.asList(statuses));
+        return this;
+    }
+
+    /**
+     * Replaces the function computing the endpoint group of a request, requests of a group share a circuit.
+     */
+    public CircuitBreakerPolicy groupBy(Function<Request, String> groupBy) {
+        this.groupBy = Objects.requireNonNull(groupBy, "Group function must be provided");
+        return this;
+    }
+
+    public double getFailureRateThreshold() {
+        return failureRateThreshold;
+    }
+
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    public int getMinimumCalls() {
+        return minimumCalls;
+    }
+
+    public long getOpenDurationNanos() {
+        return openDurationNanos;
+    }
+
+    public int getProbeCalls() {
+        return probeCalls;
+    }
+
+    public boolean isFailure(int status) {
+        return failureStatuses.contains(status);
+    }
+
+    public String getGroup(Request request) {
+        return groupBy.apply(request);
+    }
+
+    /**
+     * @return the host and port of the request followed by the first segment of the REST API path, if any
+     */
+    public static String endpointGroup(Request request) {
+        HttpUrl url = request.url();
+        String group = url.host() + ':' + url.port();
+        List<String> segments = url.pathSegments();
+        int index = segments.indexOf(API_PATH.get(0));
+        if (index >= 0 && index + 2 < segments.size() && API_PATH.get(1).equals(segments.get(index + 1))) {
+            group += '/' + segments.get(index + 2);
+        }
+        return group;
+    }
+
+}
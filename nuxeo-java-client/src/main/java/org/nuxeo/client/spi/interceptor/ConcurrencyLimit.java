@@ -0,0 +1,43 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Kevin Leturc <kleturc@nuxeo.com>
+ */
+package org.nuxeo.client.spi.interceptor;
+
+/**
+ * Algorithm computing the number of requests allowed to run concurrently from the observed requests.
+ *
+ * @see ConcurrencyLimitInterceptor
+ * @since 3.1
+ */
+public interface ConcurrencyLimit {
+
+    /**
+     * @return the current number of requests allowed to run concurrently
+     */
+    int getLimit();
+
+    /**
+     * Updates the limit with the sample of a finished request.
+     *
+     * @param rttNanos the round trip time of the request in nanoseconds
+     * @param inFlight the number of requests in flight when the request finished, including it
+     * @param dropped whether the request failed because of server overload (timeout, 503 or 429 status)
+     */
+    void onSample(long rttNanos, int inFlight, boolean dropped);
+
+}
@@ -0,0 +1,200 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Kevin Leturc <kleturc@nuxeo.com>
+ */
+package org.nuxeo.client.spi.interceptor;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import okhttp3.Interceptor;
+import okhttp3.Response;
+
+/**
+ * Interceptor limiting the number of requests running concurrently, the limit is computed by a
+ * {@link ConcurrencyLimit} from the latency and errors of requests, so throughput adapts to the server capacity.
+ * <p />
+ * Requests above the limit wait in a bounded queue, a request is rejected with a
+ * {@link ConcurrencyLimitExceededException} if the queue is full or if it waited longer than the maximum wait time.
+ *
+ * @since 3.1
+ */
+public class ConcurrencyLimitInterceptor implements Interceptor {
+
+    protected final ConcurrencyLimit limit;
+
+    protected final int maxQueueSize;
+
+    protected final long maxWaitNanos;
+
+    protected final Lock lock = new ReentrantLock();
+
+    protected final Condition available = lock.newCondition();
+
+    protected int inFlight;
+
+    protected int waiting;
+
+    /**
+     * Creates a limiter with an {@link AimdConcurrencyLimit}, a queue of 100 requests and a maximum wait of 30
+     * seconds.
+     */
+    public ConcurrencyLimitInterceptor() {
+        this(new AimdConcurrencyLimit(), 100, 30, TimeUnit.SECONDS);
+    }
+
+    public ConcurrencyLimitInterceptor(ConcurrencyLimit limit, int maxQueueSize, long maxWait, TimeUnit unit) {
+        this.limit = Objects.requireNonNull(limit, "Limit must be provided");
+        this.maxQueueSize = maxQueueSize;
+        this.maxWaitNanos = unit.toNanos(maxWait);
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        acquire(Deadline.of(chain.request()));
+        long start = System.nanoTime();
+        boolean sampled = false;
+        boolean dropped = false;
+        try {
+            Response response = chain.proceed(chain.request());
+            sampled = true;
+            dropped = response.code() == 503 || response.code() == 429;
+            return response;
+        } catch (IOException e) {
+            // the server didn't push back on a cancelled call
+            sampled = dropped = !isCancellation(chain, e);
+            throw e;
+        } finally {
+            if (sampled) {
+                release(System.nanoTime() - start, dropped);
+            } else {
+                release();
+            }
+        }
+    }
+
+    /**
+     * @return whether the input failure comes from the cancellation of the call or from its deadline
+     */
+    protected boolean isCancellation(Chain chain, IOException e) {
+        if (chain.call().isCanceled() || e instanceof DeadlineExceededException) {
+            return true;
+        }
+        // read timeout bounded by the deadline
+        Deadline deadline = Deadline.of(chain.request());
+        return deadline != null && deadline.isExpired();
+    }
+
+    /**
+     * @param deadline the deadline of the request bounding its wait, could be null
+     */
+    protected void acquire(Deadline deadline) throws IOException {
+        lock.lock();
+        try {
+            if (inFlight < limit.getLimit()) {
+                inFlight++;
+                return;
+            }
+            if (waiting >= maxQueueSize) {
+                throw new ConcurrencyLimitExceededException(
+                        "Concurrency limit reached and wait queue is full, limit=" + limit.getLimit());
+            }
+            waiting++;
+            try {
+                long nanos = maxWaitNanos;
+                boolean deadlineFirst = deadline != null && deadline.remainingNanos() < nanos;
+                if (deadlineFirst) {
+                    nanos = deadline.remainingNanos();
+                }
+                while (inFlight >= limit.getLimit()) {
+                    if (nanos <= 0 && deadlineFirst) {
+                        throw deadline.exceeded();
+                    } else if (nanos <= 0) {
+                        throw new ConcurrencyLimitExceededException(
+                                "Concurrency limit reached and request waited too long, limit=" + limit.getLimit());
+                    }
+                    nanos = available.awaitNanos(nanos);
+                }
+                inFlight++;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the concurrency limit");
+            } finally {
+                waiting--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    protected void release(long rttNanos, boolean dropped) {
+        lock.lock();
+        try {
+            int oldLimit = limit.getLimit();
+            limit.onSample(rttNanos, inFlight, dropped);
+            inFlight--;
+            if (limit.getLimit() > oldLimit) {
+                available.signalAll();
+            } else {
+                available.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Releases the permit of a request without adjusting the limit.
+     */
+    protected void release() {
+        lock.lock();
+        try {
+            inFlight--;
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getLimit() {
+        return limit.getLimit();
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getWaiting() {
+        lock.lock();
+        try {
+            return waiting;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+}
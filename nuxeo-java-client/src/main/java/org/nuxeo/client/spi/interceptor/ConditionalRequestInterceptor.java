@@ -0,0 +1,71 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Kevin Leturc <kleturc@nuxeo.com>
+ */
+package org.nuxeo.client.spi.interceptor;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.nuxeo.client.cache.CacheValidators;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Interceptor making a call conditional when {@link org.nuxeo.client.NuxeoClient} is revalidating a stale cached
+ * response, see {@link org.nuxeo.client.cache.RevalidatingResponseCache}.
+ * <p />
+ * Validators are registered for the original request of the call, which is the one of
+ * {@link retrofit2.Call#request()}, before executing it. This interceptor is the first one of the chain in order to
+ * make the request conditional before the other interceptors see it.
+ *
+ * @since 3.1
+ */
+public class ConditionalRequestInterceptor implements Interceptor {
+
+    /**
+     * The validators of the stale responses being revalidated by their original request.
+     */
+    protected final Map<Request, CacheValidators> revalidations = Collections.synchronizedMap(new IdentityHashMap<>());
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        // only the first request of the call is conditional
+        CacheValidators validators = revalidations.remove(chain.call().request());
+        if (validators == null || !"GET".equals(request.method())) {
+            return chain.proceed(request);
+        }
+        return chain.proceed(validators.applyTo(request));
+    }
+
+    /**
+     * Makes the call whose original request is the input one conditional.
+     */
+    public void beginRevalidation(Request request, CacheValidators validators) {
+        revalidations.put(request, validators);
+    }
+
+    public void endRevalidation(Request request) {
+        revalidations.remove(request);
+    }
+
+}
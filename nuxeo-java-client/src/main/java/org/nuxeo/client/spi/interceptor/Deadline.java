@@ -0,0 +1,127 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Kevin Leturc <kleturc@nuxeo.com>
+ */
+package org.nuxeo.client.spi.interceptor;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.nuxeo.client.HttpHeaders;
+
+import okhttp3.Interceptor.Chain;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Deadline of a call, it is carried by the request tag in order to let interceptors bound their waits with the time
+ * remaining before the deadline, see {@link DeadlineInterceptor}.
+ *
+ * @since 3.1
+ */
+public class Deadline {
+
+    protected final long timeoutMillis;
+
+    protected final long deadlineNanos;
+
+    protected Deadline(long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+        this.deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+    }
+
+    /**
+     * @return a deadline expiring after the input timeout from now
+     */
+    public static Deadline after(long timeout, TimeUnit unit) {
+        return new Deadline(unit.toMillis(timeout));
+    }
+
+    /**
+     * @return the deadline of the input request, or null if it has none
+     */
+    public static Deadline of(Request request) {
+        Object tag = request.tag();
+        return tag instanceof Deadline ? (Deadline) tag : null;
+    }
+
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    public long remainingNanos() {
+        return deadlineNanos - System.nanoTime();
+    }
+
+    public long remainingMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(remainingNanos());
+    }
+
+    public boolean isExpired() {
+        return remainingNanos() <= 0;
+    }
+
+    /**
+     * @throws DeadlineExceededException if the deadline is expired
+     */
+    public void check() throws DeadlineExceededException {
+        if (isExpired()) {
+            throw exceeded();
+        }
+    }
+
+    public DeadlineExceededException exceeded() {
+        return new DeadlineExceededException("Deadline of " + timeoutMillis + "ms exceeded");
+    }
+
+    /**
+     * Proceeds the input request with the remaining time: the transaction timeout of the request and the timeouts of
+     * the chain are bounded by it.
+     */
+    public Response proceed(Chain chain, Request request) throws IOException {
+        long remaining = remainingMillis();
+        if (remaining <= 0) {
+            throw exceeded();
+        }
+        // transaction timeout unit is seconds, round it up to not let the server abort a call which could succeed
+        long transactionTimeout = TimeUnit.MILLISECONDS.toSeconds(remaining + 999);
+        String currentTimeout = request.header(HttpHeaders.NUXEO_TX_TIMEOUT);
+        if (currentTimeout != null) {
+            try {
+                transactionTimeout = Math.min(transactionTimeout, Long.parseLong(currentTimeout.trim()));
+            } catch (NumberFormatException e) {
+                // let the server handle it
+            }
+        }
+        Request boundedRequest = request.newBuilder()
+                                        .header(HttpHeaders.NUXEO_TX_TIMEOUT, String.valueOf(transactionTimeout))
+                                        .build();
+        int timeout = (int) Math.min(remaining, Integer.MAX_VALUE);
+        Chain boundedChain = chain;
+        if (chain.connectTimeoutMillis() == 0 || chain.connectTimeoutMillis() > timeout) {
+            boundedChain = boundedChain.withConnectTimeout(timeout, TimeUnit.MILLISECONDS);
+        }
+        if (chain.readTimeoutMillis() == 0 || chain.readTimeoutMillis() > timeout) {
+            boundedChain = boundedChain.withReadTimeout(timeout, TimeUnit.MILLISECONDS);
+        }
+        if (chain.writeTimeoutMillis() == 0 || chain.writeTimeoutMillis() > timeout) {
+            boundedChain = boundedChain.withWriteTimeout(timeout, TimeUnit.MILLISECONDS);
+        }
+        return boundedChain.proceed(boundedRequest);
+    }
+
+}
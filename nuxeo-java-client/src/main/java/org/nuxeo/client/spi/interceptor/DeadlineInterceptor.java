@@ -0,0 +1,157 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Kevin Leturc <kleturc@nuxeo.com>
+ */
+package org.nuxeo.client.spi.interceptor;
+
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.nuxeo.client.HttpHeaders;
+
+import okhttp3.Call;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+
+/**
+ * Interceptor bounding the whole call with a {@link Deadline}: waits in interceptors (concurrency limit, retries) and
+ * attempts are bounded by the time remaining, the transaction timeout sent to the server is the time remaining, and the
+ * call is cancelled when the deadline expires, even while the response body is read. The call then fails with a
+ * {@link DeadlineExceededException}.
+ * <p />
+ * The deadline of a call is given by the {@link HttpHeaders#X_DEADLINE} header, which is replaced by the request tag,
+ * requests without this header are not bounded. This interceptor has to be the first one of the chain in order to
+ * bound the others, a single instance is installed for the calls given a
+ * {@link org.nuxeo.client.objects.RequestOptions#deadline(long, TimeUnit) deadline}.
+ *
+ * @since 3.1
+ */
+public class DeadlineInterceptor implements Interceptor {
+
+    protected static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "nuxeo-client-deadline");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        String timeout = request.header(HttpHeaders.X_DEADLINE);
+        if (timeout == null) {
+            return chain.proceed(request);
+        }
+        long timeoutMillis = Long.parseLong(timeout);
+        Deadline deadline = Deadline.after(timeoutMillis, TimeUnit.MILLISECONDS);
+        Call call = chain.call();
+        ScheduledFuture<?> cancellation = SCHEDULER.schedule(call::cancel, timeoutMillis, TimeUnit.MILLISECONDS);
+        try {
+            Response response = deadline.proceed(chain,
+                    request.newBuilder().removeHeader(HttpHeaders.X_DEADLINE).tag(deadline).build());
+            ResponseBody body = response.body();
+            if (body == null) {
+                cancellation.cancel(false);
+                return response;
+            }
+            return response.newBuilder().body(new DeadlineResponseBody(body, deadline, cancellation)).build();
+        } catch (IOException | RuntimeException e) {
+            cancellation.cancel(false);
+            if (deadline.isExpired() && !(e instanceof DeadlineExceededException)) {
+                DeadlineExceededException exceeded = deadline.exceeded();
+                exceeded.initCause(e);
+                throw exceeded;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Response body keeping the cancellation of the call until the body is read.
+     */
+    protected static class DeadlineResponseBody extends ResponseBody {
+
+        protected final ResponseBody delegate;
+
+        protected final Deadline deadline;
+
+        protected final ScheduledFuture<?> cancellation;
+
+        protected BufferedSource source;
+
+        protected DeadlineResponseBody(ResponseBody delegate, Deadline deadline, ScheduledFuture<?> cancellation) {
+            this.delegate = delegate;
+            this.deadline = deadline;
+            this.cancellation = cancellation;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return delegate.contentType();
+        }
+
+        @Override
+        public long contentLength() {
+            return delegate.contentLength();
+        }
+
+        @Override
+        public BufferedSource source() {
+            if (source == null) {
+                source = Okio.buffer(new ForwardingSource(delegate.source()) {
+
+                    @Override
+                    public long read(Buffer sink, long byteCount) throws IOException {
+                        try {
+                            long read = super.read(sink, byteCount);
+                            if (read == -1) {
+                                cancellation.cancel(false);
+                            }
+                            return read;
+                        } catch (IOException e) {
+                            if (deadline.isExpired()) {
+                                DeadlineExceededException exceeded = deadline.exceeded();
+                                exceeded.initCause(e);
+                                throw exceeded;
+                            }
+                            throw e;
+                        }
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        cancellation.cancel(false);
+                        super.close();
+                    }
+
+                });
+            }
+            return source;
+        }
+
+    }
+
+}
@@ -0,0 +1,106 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Kevin Leturc <kleturc@nuxeo.com>
+ */
+package org.nuxeo.client.spi.interceptor;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Gradient limit: the limit follows the ratio between the long term average latency and the latency of the last
+ * request. When latency increases, requests queue on server side and the limit decreases, when latency is stable the
+ * limit grows by the square root of the current limit, which is the queue allowed on server side.
+ * <p />
+ * A dropped request counts as the lowest gradient (0.5).
+ *
+ * @since 3.1
+ */
+public class GradientConcurrencyLimit implements ConcurrencyLimit {
+
+    protected static final double MIN_GRADIENT = 0.5;
+
+    protected final int minLimit;
+
+    protected final int maxLimit;
+
+    protected final double smoothing;
+
+    protected final int longWindow;
+
+    protected final Lock lock = new ReentrantLock();
+
+    protected double estimatedLimit;
+
+    protected double longRttNanos;
+
+    protected volatile int limit;
+
+    /**
+     * Creates a gradient limit starting at 20 requests, between 1 and 200, with a smoothing of 0.2 and a long latency
+     * window of 600 requests.
+     */
+    public GradientConcurrencyLimit() {
+        this(20, 1, 200, 0.2, 600);
+    }
+
+    public GradientConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, double smoothing, int longWindow) {
+        if (minLimit < 1 || initialLimit < minLimit || maxLimit < initialLimit) {
+            throw new IllegalArgumentException("Limits must verify 1 <= minLimit <= initialLimit <= maxLimit");
+        }
+        if (smoothing <= 0 || smoothing > 1) {
+            throw new IllegalArgumentException("Smoothing must be in ]0, 1]");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.smoothing = smoothing;
+        this.longWindow = longWindow;
+        this.estimatedLimit = initialLimit;
+        this.limit = initialLimit;
+    }
+
+    @Override
+    public int getLimit() {
+        return limit;
+    }
+
+    @Override
+    public void onSample(long rttNanos, int inFlight, boolean dropped) {
+        lock.lock();
+        try {
+            if (longRttNanos == 0) {
+                longRttNanos = rttNanos;
+            } else {
+                // exponential moving average of latency
+                longRttNanos += (rttNanos - longRttNanos) / longWindow;
+            }
+            // don't grow the limit if it isn't used
+            if (!dropped && inFlight * 2 < estimatedLimit) {
+                return;
+            }
+            double gradient = dropped ? MIN_GRADIENT
+                    : Math.max(MIN_GRADIENT, Math.min(1.0, longRttNanos / Math.max(1, rttNanos)));
+            double newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+            newLimit = estimatedLimit * (1 - smoothing) + newLimit * smoothing;
+            estimatedLimit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+            limit = (int) estimatedLimit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+}
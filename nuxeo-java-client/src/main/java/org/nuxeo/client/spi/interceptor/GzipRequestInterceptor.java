@@ -0,0 +1,117 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Kevin Leturc <kleturc@nuxeo.com>
+ */
+package org.nuxeo.client.spi.interceptor;
+
+import java.io.IOException;
+
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okio.BufferedSink;
+import okio.GzipSink;
+import okio.Okio;
+
+/**
+ * Network interceptor compressing request bodies with gzip, a body is compressed if its size is greater than the
+ * minimum size and if it's a text content, such as JSON documents or operation bodies. Blobs are never compressed.
+ * <p />
+ * The body is compressed while it's written to the connection, without buffering, so the compressed request is sent
+ * with chunked transfer encoding.
+ * <p />
+ * CAUTION: the server, or the proxy in front of it, has to decompress requests with {@code Content-Encoding: gzip}.
+ *
+ * @since 3.1
+ */
+public class GzipRequestInterceptor implements Interceptor {
+
+    protected static final String CONTENT_ENCODING = "Content-Encoding";
+
+    protected final long minSize;
+
+    /**
+     * Compresses bodies larger than 1KB.
+     */
+    public GzipRequestInterceptor() {
+        this(1024);
+    }
+
+    /**
+     * @param minSize the minimum size in bytes of bodies to compress
+     */
+    public GzipRequestInterceptor(long minSize) {
+        this.minSize = minSize;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        RequestBody body = request.body();
+        if (body == null || request.header(CONTENT_ENCODING) != null || !isCompressible(body.contentType())
+                || body.contentLength() < minSize) {
+            return chain.proceed(request);
+        }
+        Request compressedRequest = request.newBuilder()
+                                           .header(CONTENT_ENCODING, "gzip")
+                                           // length set by okhttp is the one of the original body
+                                           .removeHeader("Content-Length")
+                                           .header("Transfer-Encoding", "chunked")
+                                           .method(request.method(), new GzipRequestBody(body))
+                                           .build();
+        return chain.proceed(compressedRequest);
+    }
+
+    protected boolean isCompressible(MediaType contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        String subtype = contentType.subtype();
+        return "text".equals(contentType.type()) || subtype.endsWith("json") || subtype.endsWith("xml");
+    }
+
+    protected static class GzipRequestBody extends RequestBody {
+
+        protected final RequestBody delegate;
+
+        protected GzipRequestBody(RequestBody delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return delegate.contentType();
+        }
+
+        @Override
+        public long contentLength() {
+            // unknown until compressed
+            return -1;
+        }
+
+        @Override
+        public void writeTo(BufferedSink sink) throws IOException {
+            try (BufferedSink gzipSink = Okio.buffer(new GzipSink(sink))) {
+                delegate.writeTo(gzipSink);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,469 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Kevin Leturc <kleturc@nuxeo.com>
+ */
+package org.nuxeo.client.spi.interceptor;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import okhttp3.Call;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+
+/**
+ * Interceptor hedging reads to cut tail latency: when a read didn't get a response after a delay computed from the
+ * latencies of previous reads, a duplicate request is sent and the first response is used, the other request is
+ * cancelled. See {@link HedgingPolicy} for the delay and the budget limiting the extra load.
+ * <p />
+ * The read is sent on the caller thread and the duplicate request on {@link HedgingPolicy#executor(Executor) the
+ * executor}, each one by its own okhttp call running the interceptors following this one. This lets the losing request
+ * be cancelled without cancelling the call of the caller, whose cancellation is propagated to both requests. The
+ * interceptor needs the okhttp client to do that, see {@link #setClient(OkHttpClient)}. Without client, requests are
+ * not hedged.
+ *
+ * @since 3.1
+ */
+public class HedgingInterceptor implements Interceptor {
+
+    protected static final int RECOMPUTE_INTERVAL = 50;
+
+    protected static final int MAX_HEDGING_THREADS = 64;
+
+    protected static final long CANCELLATION_CHECK_MILLIS = 10;
+
+    protected static final Executor DEFAULT_EXECUTOR = new ThreadPoolExecutor(0, MAX_HEDGING_THREADS, 60,
+            TimeUnit.SECONDS, new SynchronousQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, "nuxeo-client-hedging");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    protected static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "nuxeo-client-hedging-scheduler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    protected final HedgingPolicy policy;
+
+    protected final Executor executor;
+
+    protected final ConcurrentMap<String, OkHttpClient> transports = new ConcurrentHashMap<>();
+
+    protected volatile OkHttpClient client;
+
+    protected final Lock lock = new ReentrantLock();
+
+    protected final long[] latencies;
+
+    protected long sampleCount;
+
+    protected double budget;
+
+    protected volatile long hedgeDelayNanos;
+
+    protected final AtomicLong hedgedCount = new AtomicLong();
+
+    protected final AtomicLong hedgeWonCount = new AtomicLong();
+
+    protected final AtomicLong budgetExhaustedCount = new AtomicLong();
+
+    public HedgingInterceptor(HedgingPolicy policy) {
+        this.policy = Objects.requireNonNull(policy, "Hedging policy must be provided");
+        this.executor = policy.getExecutor() == null ? DEFAULT_EXECUTOR : policy.getExecutor();
+        this.latencies = new long[policy.getWindow()];
+        this.budget = policy.getMaxBudget();
+        this.hedgeDelayNanos = Math.max(policy.getInitialDelayNanos(), policy.getMinDelayNanos());
+    }
+
+    /**
+     * Sets the okhttp client containing this interceptor, requests are sent with the interceptors following this one
+     * in the client.
+     */
+    public void setClient(OkHttpClient client) {
+        this.client = client;
+        transports.clear();
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        OkHttpClient transport = getTransport(chain);
+        if (transport == null || !policy.isHedgeable(request)) {
+            return chain.proceed(request);
+        }
+        deposit();
+        long start = System.nanoTime();
+        Hedge hedge = new Hedge(transport, chain.call(), transport.newCall(request), policy.hedgeRequest(request));
+        hedge.schedule(hedgeDelayNanos);
+        Response response;
+        try {
+            try {
+                response = hedge.readCall.execute();
+            } catch (IOException | RuntimeException e) {
+                response = hedge.recover(e);
+                record(System.nanoTime() - start);
+                return hedge.watch(response);
+            }
+            if (!hedge.complete()) {
+                // hedged request responded first
+                response.close();
+                response = hedge.recover(null);
+            }
+        } catch (IOException | RuntimeException e) {
+            hedge.unwatch();
+            throw e;
+        }
+        record(System.nanoTime() - start);
+        return hedge.watch(response);
+    }
+
+    protected OkHttpClient getTransport(Chain chain) {
+        OkHttpClient base = client;
+        if (base == null) {
+            return null;
+        }
+        String key = chain.connectTimeoutMillis() + ":" + chain.readTimeoutMillis() + ":"
+                + chain.writeTimeoutMillis();
+        return transports.computeIfAbsent(key, k -> newTransport(base, chain));
+    }
+
+    /**
+     * @return the okhttp client running the interceptors following this one with the timeouts of the chain
+     */
+    protected OkHttpClient newTransport(OkHttpClient base, Chain chain) {
+        OkHttpClient.Builder builder = base.newBuilder()
+                                           .connectTimeout(chain.connectTimeoutMillis(), TimeUnit.MILLISECONDS)
+                                           .readTimeout(chain.readTimeoutMillis(), TimeUnit.MILLISECONDS)
+                                           .writeTimeout(chain.writeTimeoutMillis(), TimeUnit.MILLISECONDS);
+        List<Interceptor> interceptors = builder.interceptors();
+        List<Interceptor> following = new ArrayList<>(
+                interceptors.subList(interceptors.indexOf(this) + 1, interceptors.size()));
+        interceptors.clear();
+        interceptors.addAll(following);
+        return builder.build();
+    }
+
+    protected void record(long latencyNanos) {
+        lock.lock();
+        try {
+            latencies[(int) (sampleCount++ % latencies.length)] = latencyNanos;
+            if (sampleCount >= policy.getMinSamples() && sampleCount % RECOMPUTE_INTERVAL == 0) {
+                long[] sorted = Arrays.copyOf(latencies, (int) Math.min(sampleCount, latencies.length));
+                Arrays.sort(sorted);
+                int index = (int) Math.ceil(policy.getPercentile() * sorted.length) - 1;
+                hedgeDelayNanos = Math.max(sorted[Math.max(index, 0)], policy.getMinDelayNanos());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    protected void deposit() {
+        lock.lock();
+        try {
+            budget = Math.min(policy.getMaxBudget(), budget + policy.getBudgetRatio());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    protected boolean withdraw() {
+        lock.lock();
+        try {
+            if (budget >= 1) {
+                budget--;
+                return true;
+            }
+            budgetExhaustedCount.incrementAndGet();
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the delay in milliseconds after which a read is hedged
+     */
+    public long getHedgeDelay() {
+        return TimeUnit.NANOSECONDS.toMillis(hedgeDelayNanos);
+    }
+
+    /**
+     * @return the number of hedged requests sent
+     */
+    public long getHedgedCount() {
+        return hedgedCount.get();
+    }
+
+    /**
+     * @return the number of hedged requests which responded first
+     */
+    public long getHedgeWonCount() {
+        return hedgeWonCount.get();
+    }
+
+    /**
+     * @return the number of hedged requests not sent because the budget was exhausted
+     */
+    public long getBudgetExhaustedCount() {
+        return budgetExhaustedCount.get();
+    }
+
+    /**
+     * The hedged request of a read, it is sent after a delay if the read didn't respond yet. The first response wins
+     * and the other request is cancelled. Until the response body is closed, the call of the caller is watched in
+     * order to cancel the requests when it is cancelled.
+     */
+    protected class Hedge {
+
+        protected final OkHttpClient transport;
+
+        /**
+         * The call of the caller, never cancelled by the hedge.
+         */
+        protected final Call call;
+
+        /**
+         * The call of the read, cancelled to stop the read when the hedged request wins.
+         */
+        protected final Call readCall;
+
+        protected final Request request;
+
+        protected final AtomicBoolean done = new AtomicBoolean();
+
+        protected final CompletableFuture<Response> result = new CompletableFuture<>();
+
+        protected volatile Call hedgeCall;
+
+        protected volatile boolean hedgeWon;
+
+        protected ScheduledFuture<?> scheduled;
+
+        protected volatile ScheduledFuture<?> watcher;
+
+        protected Hedge(OkHttpClient transport, Call call, Call readCall, Request request) {
+            this.transport = transport;
+            this.call = call;
+            this.readCall = readCall;
+            this.request = request;
+        }
+
+        protected void schedule(long delayNanos) {
+            scheduled = SCHEDULER.schedule(this::send, delayNanos, TimeUnit.NANOSECONDS);
+            watcher = SCHEDULER.scheduleWithFixedDelay(this::checkCancellation, CANCELLATION_CHECK_MILLIS,
+                    CANCELLATION_CHECK_MILLIS, TimeUnit.MILLISECONDS);
+        }
+
+        protected void checkCancellation() {
+            if (call.isCanceled()) {
+                readCall.cancel();
+                cancelHedge();
+                watcher.cancel(false);
+            }
+        }
+
+        /**
+         * @return the input response whose body stops the watch of the caller call once closed or consumed
+         */
+        protected Response watch(Response response) {
+            ResponseBody body = response.body();
+            if (body == null) {
+                unwatch();
+                return response;
+            }
+            return response.newBuilder().body(new HedgedResponseBody(body, watcher)).build();
+        }
+
+        protected void unwatch() {
+            watcher.cancel(false);
+        }
+
+        protected void send() {
+            if (done.get() || !withdraw()) {
+                return;
+            }
+            hedgedCount.incrementAndGet();
+            Call hedge = transport.newCall(request);
+            hedgeCall = hedge;
+            try {
+                executor.execute(() -> execute(hedge));
+            } catch (RejectedExecutionException e) {
+                result.completeExceptionally(new IOException("Unable to send hedged request", e));
+            }
+        }
+
+        protected void execute(Call hedge) {
+            try {
+                Response response = hedge.execute();
+                if (done.compareAndSet(false, true)) {
+                    hedgeWon = true;
+                    hedgeWonCount.incrementAndGet();
+                    result.complete(response);
+                    readCall.cancel();
+                } else {
+                    response.close();
+                    result.complete(null);
+                }
+            } catch (IOException | RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        }
+
+        /**
+         * Called when the read got its response.
+         *
+         * @return whether the read won, if not the response of the hedged request has to be used
+         */
+        protected boolean complete() {
+            scheduled.cancel(false);
+            if (done.compareAndSet(false, true)) {
+                cancelHedge();
+                return true;
+            }
+            return false;
+        }
+
+        protected void cancelHedge() {
+            Call hedge = hedgeCall;
+            if (hedge != null) {
+                hedge.cancel();
+            }
+        }
+
+        /**
+         * Called when the read failed or lost, the read failure is the one of the read, or null if it lost.
+         *
+         * @return the response of the hedged request
+         */
+        protected Response recover(Exception failure) throws IOException {
+            scheduled.cancel(false);
+            boolean cancelled = failure != null && !hedgeWon && call.isCanceled();
+            if (failure != null && (hedgeCall == null || cancelled) && done.compareAndSet(false, true)) {
+                // no hedged request running or the caller gave up
+                cancelHedge();
+                throw rethrow(failure);
+            }
+            try {
+                Response response = result.get();
+                if (response == null) {
+                    throw rethrow(failure);
+                }
+                return response;
+            } catch (InterruptedException e) {
+                cancelHedge();
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the hedged request");
+            } catch (ExecutionException e) {
+                // both requests failed, report the failure of the read
+                throw rethrow(failure == null ? (Exception) e.getCause() : failure);
+            }
+        }
+
+        protected IOException rethrow(Exception failure) throws IOException {
+            if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            }
+            throw (IOException) failure;
+        }
+
+    }
+
+    /**
+     * Response body stopping the watch of the caller call when it is consumed or closed.
+     */
+    protected static class HedgedResponseBody extends ResponseBody {
+
+        protected final ResponseBody delegate;
+
+        protected final ScheduledFuture<?> watcher;
+
+        protected BufferedSource source;
+
+        protected HedgedResponseBody(ResponseBody delegate, ScheduledFuture<?> watcher) {
+            this.delegate = delegate;
+            this.watcher = watcher;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return delegate.contentType();
+        }
+
+        @Override
+        public long contentLength() {
+            return delegate.contentLength();
+        }
+
+        @Override
+        public BufferedSource source() {
+            if (source == null) {
+                source = Okio.buffer(new ForwardingSource(delegate.source()) {
+
+                    @Override
+                    public long read(Buffer sink, long byteCount) throws IOException {
+                        long read = super.read(sink, byteCount);
+                        if (read == -1) {
+                            watcher.cancel(false);
+                        }
+                        return read;
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        watcher.cancel(false);
+                        super.close();
+                    }
+
+                });
+            }
+            return source;
+        }
+
+    }
+
+}
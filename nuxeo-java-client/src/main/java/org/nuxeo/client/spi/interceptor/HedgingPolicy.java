@@ -0,0 +1,181 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Kevin Leturc <kleturc@nuxeo.com>
+ */
+package org.nuxeo.client.spi.interceptor;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.HttpUrl;
+import okhttp3.Request;
+
+/**
+ * Configuration of {@link HedgingInterceptor}.
+ * <p />
+ * By default, a GET or HEAD request is hedged when it didn't get a response after the 95th percentile of the latencies
+ * of the last 1000 reads, or after 100 milliseconds until 100 reads were done. Hedged requests are limited by a budget
+ * shared by all requests of the client: each read gives {@link #budget(double, int) a ratio} of a hedged request, by
+ * default 0.1 which means at most 10% of extra load.
+ *
+ * @since 3.1
+ */
+public class HedgingPolicy {
+
+    protected static final List<String> READ_METHODS = Arrays.asList("GET", "HEAD");
+
+    protected double percentile = 0.95;
+
+    protected int window = 1000;
+
+    protected int minSamples = 100;
+
+    protected long initialDelayNanos = TimeUnit.MILLISECONDS.toNanos(100);
+
+    protected long minDelayNanos = TimeUnit.MILLISECONDS.toNanos(5);
+
+    protected double budgetRatio = 0.1;
+
+    protected int maxBudget = 10;
+
+    protected HttpUrl alternateUrl;
+
+    protected Executor executor;
+
+    /**
+     * Sets the percentile of read latencies after which a request is hedged.
+     *
+     * @param percentile the percentile, in ]0, 1]
+     * @param window the number of latest reads used to compute the percentile
+     * @param minSamples the number of reads to do before using the percentile instead of the initial delay
+     */
+    public HedgingPolicy percentile(double percentile, int window, int minSamples) {
+        if (percentile <= 0 || percentile > 1) {
+            throw new IllegalArgumentException("Percentile must be in ]0, 1]");
+        }
+        this.percentile = percentile;
+        this.window = window;
+        this.minSamples = Math.min(minSamples, window);
+        return this;
+    }
+
+    /**
+     * Sets the delay used until enough reads were done to compute the percentile.
+     */
+    public HedgingPolicy initialDelay(long initialDelay, TimeUnit unit) {
+        this.initialDelayNanos = unit.toNanos(initialDelay);
+        return this;
+    }
+
+    /**
+     * Sets the minimum delay before hedging a request, whatever the percentile is.
+     */
+    public HedgingPolicy minDelay(long minDelay, TimeUnit unit) {
+        this.minDelayNanos = unit.toNanos(minDelay);
+        return this;
+    }
+
+    /**
+     * Sets the hedging budget of the client.
+     *
+     * @param ratio the ratio of a hedged request given by each read, 0.1 allows one hedged request for 10 reads
+     * @param maxBudget the maximum number of hedged requests which can be saved by reads, the budget starts full and
+     *            drains to 0 when hedged requests outpace reads
+     */
+    public HedgingPolicy budget(double ratio, int maxBudget) {
+        this.budgetRatio = ratio;
+        this.maxBudget = maxBudget;
+        return this;
+    }
+
+    /**
+     * Sends hedged requests to another Nuxeo node, for instance the url of a node behind the load balancer.
+     *
+     * @param url the url of the node, scheme, host and port are used
+     */
+    public HedgingPolicy alternateUrl(String url) {
+        this.alternateUrl = HttpUrl.parse(url);
+        if (alternateUrl == null) {
+            throw new IllegalArgumentException("Invalid url: " + url);
+        }
+        return this;
+    }
+
+    /**
+     * Sets the executor running the hedged requests, by default a pool of up to 64 daemon threads shared by all
+     * clients. A hedged request rejected by the executor is not sent.
+     */
+    public HedgingPolicy executor(Executor executor) {
+        this.executor = executor;
+        return this;
+    }
+
+    public double getPercentile() {
+        return percentile;
+    }
+
+    public int getWindow() {
+        return window;
+    }
+
+    public int getMinSamples() {
+        return minSamples;
+    }
+
+    public long getInitialDelayNanos() {
+        return initialDelayNanos;
+    }
+
+    public long getMinDelayNanos() {
+        return minDelayNanos;
+    }
+
+    public double getBudgetRatio() {
+        return budgetRatio;
+    }
+
+    public int getMaxBudget() {
+        return maxBudget;
+    }
+
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    public boolean isHedgeable(Request request) {
+        return READ_METHODS.contains(request.method());
+    }
+
+    /**
+     * @return the request to send as hedged request
+     */
+    public Request hedgeRequest(Request request) {
+        if (alternateUrl == null) {
+            return request;
+        }
+        HttpUrl url = request.url()
+                             .newBuilder()
+                             .scheme(alternateUrl.scheme())
+                             .host(alternateUrl.host())
+                             .port(alternateUrl.port())
+                             .build();
+        return request.newBuilder().url(url).build();
+    }
+
+}
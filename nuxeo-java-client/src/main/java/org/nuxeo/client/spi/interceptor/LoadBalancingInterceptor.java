@@ -0,0 +1,379 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Kevin Leturc <kleturc@nuxeo.com>
+ */
+package org.nuxeo.client.spi.interceptor;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.apache.commons.lang3.StringUtils;
+import org.nuxeo.client.ConstantsV1;
+import org.nuxeo.client.spi.NuxeoClientException;
+
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okio.Buffer;
+
+/**
+ * Interceptor spreading requests across the nodes of a Nuxeo cluster. Requests are built against the first node url
+ * and this interceptor sends them to the chosen node.
+ * <p />
+ * A node is chosen among two random healthy nodes, the one with the lowest score wins, the score being the latency
+ * average (EWMA) multiplied by the number of outstanding requests. A node is ejected for a while after several
+ * consecutive failures (I/O errors, 502, 503 and 504 status), if all nodes are ejected they're all used.
+ * <p />
+ * Batch uploads are sticky: a batch is stored on the node which created it, so all requests on the batch, including
+ * documents referencing it with {@code upload-batch} property, are sent to this node.
+ * <p />
+ * This interceptor should be the last one in order to route each attempt of a request independently, for instance the
+ * ones of {@link RetryInterceptor} or {@link HedgingInterceptor}.
+ *
+ * @since 3.1
+ */
+public class LoadBalancingInterceptor implements Interceptor {
+
+    protected static final String UPLOAD_PATH = ConstantsV1.API_PATH + "upload";
+
+    protected static final Pattern BATCH_ID_PATTERN = Pattern.compile("\"batchId\"\\s*:\\s*\"([^\"]+)\"");
+
+    protected static final Pattern BATCH_REFERENCE_PATTERN = Pattern.compile(
+            "\"upload-batch\"\\s*:\\s*\"([^\"]+)\"");
+
+    protected static final long MAX_SCANNED_BODY_SIZE = 64 * 1024;
+
+    protected static final int MAX_STICKY_BATCHES = 10_000;
+
+    protected static final double EWMA_WEIGHT = 0.3;
+
+    protected final List<Node> nodes;
+
+    protected final int maxFailures;
+
+    protected final long ejectionNanos;
+
+    protected final Lock lock = new ReentrantLock();
+
+    protected final Map<String, Node> stickyBatches = new LinkedHashMap<String, Node>(16, 0.75f, true) {
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Node> eldest) {
+            return size() > MAX_STICKY_BATCHES;
+        }
+
+    };
+
+    /**
+     * Creates a load balancer ejecting a node for 30 seconds after 5 consecutive failures.
+     */
+    public LoadBalancingInterceptor(List<String> urls) {
+        this(urls, 5, 30, TimeUnit.SECONDS);
+    }
+
+    public LoadBalancingInterceptor(List<String> urls, int maxFailures, long ejection, TimeUnit unit) {
+        if (urls.isEmpty()) {
+            throw new NuxeoClientException("At least one node url must be provided");
+        }
+        this.nodes = urls.stream().map(url -> new Node(StringUtils.removeEnd(url, "/"))).collect(
+                Collectors.toList());
+        this.maxFailures = maxFailures;
+        this.ejectionNanos = unit.toNanos(ejection);
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        String url = request.url().toString();
+        String primaryUrl = nodes.get(0).url;
+        if (!isClusterUrl(url, primaryUrl)) {
+            // not a request to the cluster
+            return chain.proceed(request);
+        }
+        String path = url.substring(primaryUrl.length());
+        String batchId = getBatchId(request, path);
+        Node node = batchId == null ? null : getStickyNode(batchId);
+        if (node == null) {
+            node = chooseNode();
+        }
+        node.start();
+        long start = System.nanoTime();
+        boolean failure = true;
+        boolean cancelled = false;
+        try {
+            Response response = chain.proceed(request.newBuilder().url(node.url + path).build());
+            failure = isFailure(response.code());
+            if (response.isSuccessful() && path.startsWith(UPLOAD_PATH)) {
+                onUploadResponse(request, batchId, node, response);
+            }
+            return response;
+        } catch (IOException | RuntimeException e) {
+            cancelled = isCancellation(chain, e);
+            throw e;
+        } finally {
+            if (cancelled) {
+                node.cancel();
+            } else {
+                node.end(System.nanoTime() - start, failure);
+            }
+        }
+    }
+
+    /**
+     * @return whether the input url targets the first node, ie: it is the node url or one of its sub paths
+     */
+    protected boolean isClusterUrl(String url, String primaryUrl) {
+        return url.startsWith(primaryUrl)
+                && (url.length() == primaryUrl.length() || url.charAt(primaryUrl.length()) == '/');
+    }
+
+    protected boolean isFailure(int status) {
+        return status == 502 || status == 503 || status == 504;
+    }
+
+    /**
+     * @return whether the input failure comes from the cancellation of the call, in which case the node is not to
+     *         blame
+     */
+    protected boolean isCancellation(Chain chain, Exception e) {
+        if (chain.call().isCanceled() || e instanceof DeadlineExceededException) {
+            return true;
+        }
+        // read timeout bounded by the deadline
+        Deadline deadline = Deadline.of(chain.request());
+        return deadline != null && deadline.isExpired();
+    }
+
+    /**
+     * @return the node with the lowest score among two random healthy nodes
+     */
+    protected Node chooseNode() {
+        long now = System.nanoTime();
+        List<Node> candidates = nodes.stream().filter(node -> !node.isEjected(now)).collect(Collectors.toList());
+        if (candidates.isEmpty()) {
+            candidates = nodes;
+        }
+        int size = candidates.size();
+        if (size == 1) {
+            return candidates.get(0);
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(size);
+        int second = random.nextInt(size - 1);
+        if (second >= first) {
+            second++;
+        }
+        Node node1 = candidates.get(first);
+        Node node2 = candidates.get(second);
+        return node1.score() <= node2.score() ? node1 : node2;
+    }
+
+    /**
+     * @return the batch id of the request, if it's a request on a batch or a request referencing a batch
+     */
+    protected String getBatchId(Request request, String path) throws IOException {
+        if (path.startsWith(UPLOAD_PATH + '/')) {
+            String batchId = StringUtils.substringBefore(path.substring(UPLOAD_PATH.length() + 1), "/");
+            batchId = StringUtils.substringBefore(batchId, "?");
+            return batchId.isEmpty() ? null : batchId;
+        }
+        RequestBody body = request.body();
+        if (body == null || isStickyBatchesEmpty()) {
+            return null;
+        }
+        MediaType contentType = body.contentType();
+        long contentLength = body.contentLength();
+        if (contentType == null || !contentType.subtype().endsWith("json") || contentLength < 0
+                || contentLength > MAX_SCANNED_BODY_SIZE) {
+            return null;
+        }
+        Buffer buffer = new Buffer();
+        body.writeTo(buffer);
+        Matcher matcher = BATCH_REFERENCE_PATTERN.matcher(buffer.readUtf8());
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    protected void onUploadResponse(Request request, String batchId, Node node, Response response)
+            throws IOException {
+        if (batchId == null && "POST".equals(request.method())) {
+            // batch creation
+            Matcher matcher = BATCH_ID_PATTERN.matcher(response.peekBody(MAX_SCANNED_BODY_SIZE).string());
+            if (matcher.find()) {
+                putStickyNode(matcher.group(1), node);
+            }
+        } else if (batchId != null && "DELETE".equals(request.method())) {
+            removeStickyNode(batchId);
+        }
+    }
+
+    protected boolean isStickyBatchesEmpty() {
+        lock.lock();
+        try {
+            return stickyBatches.isEmpty();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    protected Node getStickyNode(String batchId) {
+        lock.lock();
+        try {
+            return stickyBatches.get(batchId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    protected void putStickyNode(String batchId, Node node) {
+        lock.lock();
+        try {
+            stickyBatches.put(batchId, node);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    protected void removeStickyNode(String batchId) {
+        lock.lock();
+        try {
+            stickyBatches.remove(batchId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    protected Node getNode(String url) {
+        String nodeUrl = StringUtils.removeEnd(url, "/");
+        return nodes.stream()
+                    .filter(node -> node.url.equals(nodeUrl))
+                    .findFirst()
+                    .orElseThrow(() -> new NuxeoClientException("Unknown node url: " + url));
+    }
+
+    public List<String> getNodeUrls() {
+        return nodes.stream().map(node -> node.url).collect(Collectors.toList());
+    }
+
+    /**
+     * @return the number of requests sent to the input node
+     */
+    public long getRequestCount(String url) {
+        return getNode(url).requestCount.get();
+    }
+
+    /**
+     * @return the number of requests currently running on the input node
+     */
+    public int getOutstanding(String url) {
+        return getNode(url).outstanding.get();
+    }
+
+    /**
+     * @return whether the input node is currently ejected
+     */
+    public boolean isEjected(String url) {
+        return getNode(url).isEjected(System.nanoTime());
+    }
+
+    /**
+     * @return the url of the node holding the input batch, or null if unknown
+     */
+    public String getBatchNodeUrl(String batchId) {
+        Node node = getStickyNode(batchId);
+        return node == null ? null : node.url;
+    }
+
+    protected class Node {
+
+        protected final String url;
+
+        protected final AtomicInteger outstanding = new AtomicInteger();
+
+        protected final AtomicLong requestCount = new AtomicLong();
+
+        protected final Lock lock = new ReentrantLock();
+
+        protected volatile double latencyNanos;
+
+        protected volatile boolean ejected;
+
+        protected volatile long ejectedUntil;
+
+        protected int consecutiveFailures;
+
+        protected Node(String url) {
+            this.url = url;
+        }
+
+        protected double score() {
+            return latencyNanos * (outstanding.get() + 1);
+        }
+
+        protected boolean isEjected(long now) {
+            return ejected && now - ejectedUntil < 0;
+        }
+
+        protected void start() {
+            outstanding.incrementAndGet();
+            requestCount.incrementAndGet();
+        }
+
+        /**
+         * Ends a cancelled request without recording its outcome.
+         */
+        protected void cancel() {
+            outstanding.decrementAndGet();
+        }
+
+        protected void end(long rttNanos, boolean failure) {
+            outstanding.decrementAndGet();
+            lock.lock();
+            try {
+                if (failure) {
+                    if (++consecutiveFailures >= maxFailures) {
+                        consecutiveFailures = 0;
+                        ejectedUntil = System.nanoTime() + ejectionNanos;
+                        ejected = true;
+                    }
+                } else {
+                    consecutiveFailures = 0;
+                    ejected = false;
+                    latencyNanos = latencyNanos == 0 ? rttNanos
+                            : latencyNanos + EWMA_WEIGHT * (rttNanos - latencyNanos);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+    }
+
+}
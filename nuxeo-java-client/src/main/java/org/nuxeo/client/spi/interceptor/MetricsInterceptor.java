@@ -0,0 +1,202 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Kevin Leturc <kleturc@nuxeo.com>
+ */
+package org.nuxeo.client.spi.interceptor;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.nuxeo.client.spi.metrics.MetricsRecorder;
+
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+
+/**
+ * Interceptor recording request metrics per logical endpoint into a {@link MetricsRecorder}.
+ * <p />
+ * The default endpoint of a request is its method followed by its REST API path where identifiers are replaced by
+ * {@code {}}, only the first segment, the literal segments of the REST API (such as {@code id}, {@code path} or
+ * {@code query}), the adapters (segments starting with {@code @}) and the operation ids are kept, for instance
+ * {@code GET repo/{}/id/{}/@children}, {@code GET path/{}} or {@code POST automation/Document.Create}. The segments of
+ * a document path are replaced by a single {@code {}}.
+ *
+ * @since 3.1
+ */
+public class MetricsInterceptor implements Interceptor {
+
+    protected static final String API_SEGMENT = "api";
+
+    protected static final String AUTOMATION_SEGMENT = "automation";
+
+    protected static final String EXECUTE_SEGMENT = "execute";
+
+    protected static final String PATH_SEGMENT = "path";
+
+    protected static final Set<String> LITERAL_SEGMENTS = new HashSet<>(Arrays.asList("id", PATH_SEGMENT, "query",
+            EXECUTE_SEGMENT, "search", "user", "group", "graph", "delegate", "reassign"));
+
+    protected final MetricsRecorder recorder;
+
+    protected final Function<Request, String> endpointNamer;
+
+    public MetricsInterceptor(MetricsRecorder recorder) {
+        this(recorder, MetricsInterceptor::endpoint);
+    }
+
+    public MetricsInterceptor(MetricsRecorder recorder, Function<Request, String> endpointNamer) {
+        this.recorder = Objects.requireNonNull(recorder, "Metrics recorder must be provided");
+        this.endpointNamer = Objects.requireNonNull(endpointNamer, "Endpoint namer must be provided");
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        String endpoint = endpointNamer.apply(request);
+        recorder.onRequest(endpoint);
+        long start = System.nanoTime();
+        Response response;
+        try {
+            response = chain.proceed(request);
+        } catch (IOException | RuntimeException e) {
+            recorder.onFailure(endpoint, System.nanoTime() - start, e);
+            throw e;
+        }
+        RequestBody requestBody = request.body();
+        long requestBytes = requestBody == null ? 0 : requestBody.contentLength();
+        recorder.onResponse(endpoint, response.code(), System.nanoTime() - start, requestBytes);
+        ResponseBody body = response.body();
+        if (body == null) {
+            return response;
+        }
+        return response.newBuilder().body(new CountingResponseBody(endpoint, body)).build();
+    }
+
+    /**
+     * @return the default endpoint of the request
+     */
+    public static String endpoint(Request request) {
+        List<String> segments = request.url().pathSegments();
+        int index = segments.indexOf(API_SEGMENT);
+        // skip api version
+        index = index < 0 ? 0 : index + 2;
+        StringBuilder endpoint = new StringBuilder(request.method());
+        boolean identifier = false;
+        // segments of a document path are identifiers until an adapter
+        boolean documentPath = false;
+        for (int i = index; i < segments.size(); i++) {
+            String segment = segments.get(i);
+            if (segment.isEmpty()) {
+                continue;
+            }
+            if (i == index || segment.startsWith("@") || !documentPath && isLiteral(segments.get(i - 1), segment)) {
+                endpoint.append(i == index ? ' ' : '/').append(segment);
+                identifier = false;
+                documentPath = PATH_SEGMENT.equals(segment);
+            } else if (!identifier) {
+                endpoint.append("/{}");
+                identifier = true;
+            }
+        }
+        return endpoint.toString();
+    }
+
+    protected static boolean isLiteral(String previous, String segment) {
+        return LITERAL_SEGMENTS.contains(segment) || AUTOMATION_SEGMENT.equals(previous)
+                || EXECUTE_SEGMENT.equals(previous);
+    }
+
+    /**
+     * Response body counting the bytes read, the count is recorded when the body is exhausted or closed.
+     */
+    protected class CountingResponseBody extends ResponseBody {
+
+        protected final String endpoint;
+
+        protected final ResponseBody delegate;
+
+        protected BufferedSource source;
+
+        protected CountingResponseBody(String endpoint, ResponseBody delegate) {
+            this.endpoint = endpoint;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return delegate.contentType();
+        }
+
+        @Override
+        public long contentLength() {
+            return delegate.contentLength();
+        }
+
+        @Override
+        public BufferedSource source() {
+            if (source == null) {
+                source = Okio.buffer(new ForwardingSource(delegate.source()) {
+
+                    protected long bytes;
+
+                    protected boolean recorded;
+
+                    @Override
+                    public long read(Buffer sink, long byteCount) throws IOException {
+                        long read = super.read(sink, byteCount);
+                        if (read == -1) {
+                            record();
+                        } else {
+                            bytes += read;
+                        }
+                        return read;
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        record();
+                        super.close();
+                    }
+
+                    protected void record() {
+                        if (!recorded) {
+                            recorded = true;
+                            recorder.onResponseBody(endpoint, bytes);
+                        }
+                    }
+
+                });
+            }
+            return source;
+        }
+
+    }
+
+}
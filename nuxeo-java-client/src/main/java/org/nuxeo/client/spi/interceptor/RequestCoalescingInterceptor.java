@@ -0,0 +1,243 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Kevin Leturc <kleturc@nuxeo.com>
+ */
+package org.nuxeo.client.spi.interceptor;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.Headers;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * Interceptor collapsing concurrent identical GET requests into a single call, the first request is executed and the
+ * others wait for its response. Requests are identical if they have the same url and the same headers.
+ * <p />
+ * Only JSON responses are shared, their body is buffered in memory when requests are waiting and each of them receives
+ * its own copy. If the response can't be shared (a blob for instance) or if the first request was cancelled, waiting
+ * requests are executed on their own. Waits are bounded by the {@link Deadline} of the waiting request, or by its read
+ * timeout after which the request is executed on its own.
+ *
+ * @since 3.1
+ */
+public class RequestCoalescingInterceptor implements Interceptor {
+
+    protected final ConcurrentMap<Key, InFlightCall> inFlightCalls = new ConcurrentHashMap<>();
+
+    protected final AtomicLong executedCount = new AtomicLong();
+
+    protected final AtomicLong collapsedCount = new AtomicLong();
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        if (!"GET".equals(request.method())) {
+            return chain.proceed(request);
+        }
+        Key key = new Key(request);
+        InFlightCall call = new InFlightCall();
+        InFlightCall inFlightCall = inFlightCalls.putIfAbsent(key, call);
+        if (inFlightCall != null && join(inFlightCall)) {
+            SharedResponse sharedResponse = await(chain, inFlightCall);
+            if (sharedResponse != null) {
+                collapsedCount.incrementAndGet();
+                return sharedResponse.toResponse(request);
+            }
+        }
+        if (inFlightCall != null) {
+            // response can't be shared or identical request is completing, execute the request on its own
+            executedCount.incrementAndGet();
+            return chain.proceed(request);
+        }
+        executedCount.incrementAndGet();
+        try {
+            Response response = chain.proceed(request);
+            inFlightCalls.remove(key, call);
+            SharedResponse sharedResponse = call.close() ? share(response) : null;
+            call.result.complete(sharedResponse);
+            return sharedResponse == null ? response : sharedResponse.toResponse(request);
+        } catch (IOException | RuntimeException e) {
+            inFlightCalls.remove(key, call);
+            call.close();
+            if (chain.call().isCanceled() || e instanceof DeadlineExceededException) {
+                // cancellation only concerns this request, let waiting requests be executed on their own
+                call.result.complete(null);
+            } else {
+                call.result.completeExceptionally(e);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Joins the input in flight call in order to receive its response.
+     *
+     * @return whether the call was joined, if not the call is completing and won't share its response
+     */
+    protected boolean join(InFlightCall inFlightCall) {
+        return inFlightCall.join();
+    }
+
+    /**
+     * @return the shared response, or null if the request has to be executed on its own
+     */
+    protected SharedResponse await(Chain chain, InFlightCall inFlightCall) throws IOException {
+        Deadline deadline = Deadline.of(chain.request());
+        try {
+            if (deadline != null) {
+                return inFlightCall.result.get(Math.max(deadline.remainingNanos(), 0), TimeUnit.NANOSECONDS);
+            } else if (chain.readTimeoutMillis() > 0) {
+                return inFlightCall.result.get(chain.readTimeoutMillis(), TimeUnit.MILLISECONDS);
+            }
+            return inFlightCall.result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for an identical request");
+        } catch (ExecutionException e) {
+            throw new IOException("Identical request failed", e.getCause());
+        } catch (TimeoutException e) {
+            if (deadline != null) {
+                throw deadline.exceeded();
+            }
+            // identical request is too slow, execute the request
+            return null;
+        }
+    }
+
+    /**
+     * @return the shared response, or null if the response can't be shared
+     */
+    protected SharedResponse share(Response response) throws IOException {
+        ResponseBody body = response.body();
+        if (body == null) {
+            return null;
+        }
+        MediaType contentType = body.contentType();
+        if (contentType == null || !contentType.subtype().endsWith("json")) {
+            return null;
+        }
+        return new SharedResponse(response, contentType, body.bytes());
+    }
+
+    /**
+     * @return the number of GET requests executed
+     */
+    public long getExecutedCount() {
+        return executedCount.get();
+    }
+
+    /**
+     * @return the number of GET requests which received the response of an identical request instead of being executed
+     */
+    public long getCollapsedCount() {
+        return collapsedCount.get();
+    }
+
+    protected static final class Key {
+
+        protected final String url;
+
+        protected final Headers headers;
+
+        protected Key(Request request) {
+            this.url = request.url().toString();
+            this.headers = request.headers();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) obj;
+            return url.equals(key.url) && headers.equals(key.headers);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * url.hashCode() + headers.hashCode();
+        }
+
+    }
+
+    /**
+     * A call executed for identical requests, requests join it until it gets its response.
+     */
+    protected static class InFlightCall {
+
+        protected final CompletableFuture<SharedResponse> result = new CompletableFuture<>();
+
+        protected int followers;
+
+        protected boolean closed;
+
+        protected synchronized boolean join() {
+            if (closed) {
+                return false;
+            }
+            followers++;
+            return true;
+        }
+
+        /**
+         * Prevents requests from joining this call.
+         *
+         * @return whether requests are waiting for the response
+         */
+        protected synchronized boolean close() {
+            closed = true;
+            return followers > 0;
+        }
+
+    }
+
+    protected static class SharedResponse {
+
+        protected final Response response;
+
+        protected final MediaType contentType;
+
+        protected final byte[] body;
+
+        protected SharedResponse(Response response, MediaType contentType, byte[] body) {
+            this.response = response;
+            this.contentType = contentType;
+            this.body = body;
+        }
+
+        protected Response toResponse(Request request) {
+            return response.newBuilder().request(request).body(ResponseBody.create(contentType, body)).build();
+        }
+
+    }
+
+}
@@ -0,0 +1,173 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Kevin Leturc <kleturc@nuxeo.com>
+ */
+package org.nuxeo.client.spi.interceptor;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Interceptor retrying idempotent requests on I/O errors and retryable status, according to a {@link RetryPolicy}.
+ * <p />
+ * Requests rejected by {@link ConcurrencyLimitInterceptor} or {@link CircuitBreakerInterceptor} and cancelled calls
+ * are never retried. Requests are not retried if the server asks through Retry-After header to wait longer than the
+ * maximum backoff, or if they have a {@link Deadline} and the backoff exceeds the time remaining.
+ *
+ * @since 3.1
+ */
+public class RetryInterceptor implements Interceptor {
+
+    protected static final String RETRY_AFTER = "Retry-After";
+
+    protected final RetryPolicy policy;
+
+    protected final Lock lock = new ReentrantLock();
+
+    protected double budget;
+
+    protected final AtomicLong retryCount = new AtomicLong();
+
+    protected final AtomicLong budgetExhaustedCount = new AtomicLong();
+
+    public RetryInterceptor(RetryPolicy policy) {
+        this.policy = Objects.requireNonNull(policy, "Retry policy must be provided");
+        this.budget = policy.getMaxBudget();
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        if (!policy.isRetryable(request)) {
+            return chain.proceed(request);
+        }
+        deposit();
+        Deadline deadline = Deadline.of(request);
+        for (int attempt = 1;; attempt++) {
+            Response response = null;
+            IOException failure = null;
+            try {
+                // each attempt gets the time remaining before the deadline
+                response = deadline == null || attempt == 1 ? chain.proceed(request) : deadline.proceed(chain, request);
+                if (!policy.isRetryable(response.code())) {
+                    return response;
+                }
+            } catch (IOException e) {
+                if (!isRetryable(e)) {
+                    throw e;
+                }
+                failure = e;
+            }
+            long retryAfter = response == null ? 0 : retryAfter(response);
+            long backoff = Math.max(policy.computeBackoff(attempt), retryAfter);
+            if (attempt >= policy.getMaxAttempts() || chain.call().isCanceled()
+                    // server asks to wait longer than allowed or no time left to retry
+                    || retryAfter > policy.getMaxBackoffMillis()
+                    || deadline != null && backoff >= deadline.remainingMillis() || !withdraw()) {
+                if (failure != null) {
+                    throw failure;
+                }
+                return response;
+            }
+            if (response != null) {
+                response.close();
+            }
+            retryCount.incrementAndGet();
+            sleep(backoff);
+        }
+    }
+
+    protected boolean isRetryable(IOException e) {
+        if (e instanceof ConcurrencyLimitExceededException || e instanceof CircuitBreakerOpenException) {
+            return false;
+        }
+        // interruptions other than timeouts are cancellations
+        return !(e instanceof InterruptedIOException) || e instanceof SocketTimeoutException;
+    }
+
+    /**
+     * @return the delay in milliseconds asked by the server through Retry-After header, or 0
+     */
+    protected long retryAfter(Response response) {
+        String retryAfter = response.header(RETRY_AFTER);
+        if (retryAfter != null) {
+            try {
+                return TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter.trim()));
+            } catch (NumberFormatException e) {
+                // HTTP date is not supported, use computed backoff
+            }
+        }
+        return 0;
+    }
+
+    protected void sleep(long millis) throws IOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting before retry");
+        }
+    }
+
+    protected void deposit() {
+        lock.lock();
+        try {
+            budget = Math.min(policy.getMaxBudget(), budget + policy.getBudgetRatio());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    protected boolean withdraw() {
+        lock.lock();
+        try {
+            if (budget >= 1) {
+                budget--;
+                return true;
+            }
+            budgetExhaustedCount.incrementAndGet();
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of retries done
+     */
+    public long getRetryCount() {
+        return retryCount.get();
+    }
+
+    /**
+     * @return the number of retries not done because the retry budget was exhausted
+     */
+    public long getBudgetExhaustedCount() {
+        return budgetExhaustedCount.get();
+    }
+
+}
@@ -0,0 +1,177 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Kevin Leturc <kleturc@nuxeo.com>
+ */
+package org.nuxeo.client.spi.interceptor;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+
+/**
+ * Configuration of {@link RetryInterceptor}.
+ * <p />
+ * By default, GET and HEAD requests are retried at most 3 times on I/O errors and on 429, 502, 503 and 504 status, with
+ * an exponential backoff from 100 milliseconds to 5 seconds and a full jitter. A Retry-After header sent by the server
+ * extends the backoff, the request is not retried if it exceeds the maximum backoff. Automation operations are only retried
+ * when they are declared as idempotent with {@link #idempotentOperations(String...)}.
+ * <p />
+ * Retries are limited by a budget shared by all requests of the client: each request gives
+ * {@link #budget(double, int) a ratio} of a retry, and a retry is only done if the budget has a whole retry. This
+ * prevents retries from amplifying an outage.
+ *
+ * @since 3.1
+ */
+public class RetryPolicy {
+
+    protected static final List<String> IDEMPOTENT_METHODS = Arrays.asList("GET", "HEAD");
+
+    protected static final String AUTOMATION_SEGMENT = "automation";
+
+    protected int maxAttempts = 3;
+
+    protected long initialBackoffMillis = 100;
+
+    protected long maxBackoffMillis = 5000;
+
+    protected double jitter = 1.0;
+
+    protected Set<Integer> retryableStatuses = new HashSet<>(Arrays.asList(429, 502, 503, 504));
+
+    protected Set<String> idempotentOperations = Collections.emptySet();
+
+    protected double budgetRatio = 0.2;
+
+    protected int maxBudget = 10;
+
+    /**
+     * @param maxAttempts the maximum number of attempts, including the first one
+     */
+    public RetryPolicy maxAttempts(int maxAttempts) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("Max attempts must be greater than 0");
+        }
+        this.maxAttempts = maxAttempts;
+        return this;
+    }
+
+    /**
+     * Sets the exponential backoff between attempts, the backoff of attempt n is initialBackoff * 2^(n-1) bounded by
+     * maxBackoff.
+     */
+    public RetryPolicy backoff(long initialBackoff, long maxBackoff, TimeUnit unit) {
+        this.initialBackoffMillis = unit.toMillis(initialBackoff);
+        this.maxBackoffMillis = unit.toMillis(maxBackoff);
+        return this;
+    }
+
+    /**
+     * @param jitter the part of the backoff which is random, between 0 (no jitter) and 1 (full jitter)
+     */
+    public RetryPolicy jitter(double jitter) {
+        if (jitter < 0 || jitter > 1) {
+            throw new IllegalArgumentException("Jitter must be in [0, 1]");
+        }
+        this.jitter = jitter;
+        return this;
+    }
+
+    /**
+     * Replaces the HTTP status codes triggering a retry.
+     */
+    public RetryPolicy retryableStatuses(Integer... statuses) {
+        this.retryableStatuses = new HashSet<>(Arrays.asList(statuses));
+        return this;
+    }
+
+    /**
+     * Declares the automation operations which can be retried, they should not have side effects on server or have
+     * the same effects when executed several times. Operations with a blob input are never retried.
+     */
+    public RetryPolicy idempotentOperations(String... operationIds) {
+        this.idempotentOperations = new HashSet<>(Arrays.asList(operationIds));
+        return this;
+    }
+
+    /**
+     * Sets the retry budget of the client.
+     *
+     * @param ratio the ratio of a retry given by each request, 0.2 allows one retry for 5 requests
+     * @param maxBudget the maximum number of retries which can be saved by requests, the budget starts full and drains
+     *            to 0 when retries outpace requests
+     */
+    public RetryPolicy budget(double ratio, int maxBudget) {
+        this.budgetRatio = ratio;
+        this.maxBudget = maxBudget;
+        return this;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public double getBudgetRatio() {
+        return budgetRatio;
+    }
+
+    public int getMaxBudget() {
+        return maxBudget;
+    }
+
+    public long getMaxBackoffMillis() {
+        return maxBackoffMillis;
+    }
+
+    public boolean isRetryable(Request request) {
+        if (IDEMPOTENT_METHODS.contains(request.method())) {
+            return true;
+        }
+        List<String> segments = request.url().pathSegments();
+        int index = segments.indexOf(AUTOMATION_SEGMENT);
+        if (index < 0 || index + 1 >= segments.size() || !idempotentOperations.contains(segments.get(index + 1))) {
+            return false;
+        }
+        RequestBody body = request.body();
+        MediaType contentType = body == null ? null : body.contentType();
+        return contentType == null || !"multipart".equals(contentType.type());
+    }
+
+    public boolean isRetryable(int status) {
+        return retryableStatuses.contains(status);
+    }
+
+    /**
+     * @param attempt the attempt which failed, starting from 1
+     * @return the time to wait before next attempt in milliseconds
+     */
+    public long computeBackoff(int attempt) {
+        long backoff = initialBackoffMillis << Math.min(attempt - 1, 30);
+        if (backoff <= 0 || backoff > maxBackoffMillis) {
+            backoff = maxBackoffMillis;
+        }
+        return (long) (backoff * (1 - jitter * ThreadLocalRandom.current().nextDouble()));
+    }
+
+}
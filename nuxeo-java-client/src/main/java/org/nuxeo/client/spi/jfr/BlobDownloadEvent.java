@@ -0,0 +1,64 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Kevin Leturc <kleturc@nuxeo.com>
+ */
+package org.nuxeo.client.spi.jfr;
+
+import java.io.File;
+import java.util.List;
+
+import org.nuxeo.client.MediaType;
+import org.nuxeo.client.spi.jfr.FlightRecorderEvents.BlobDownloadRecord;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * @since 3.1
+ */
+@Name("org.nuxeo.client.BlobDownload")
+@Label("Nuxeo Blob Download")
+@Description("Download of blobs from Nuxeo server to temporary files")
+@Category({ "Nuxeo", "Client" })
+public class BlobDownloadEvent extends Event implements BlobDownloadRecord {
+
+    @Label("Media Type")
+    protected String mediaType;
+
+    @Label("Blob Count")
+    protected int blobCount;
+
+    @Label("Size")
+    @DataAmount
+    protected long bytes;
+
+    @Override
+    public void record(MediaType mediaType, List<File> files) {
+        end();
+        if (shouldCommit()) {
+            this.mediaType = mediaType == null ? null : mediaType.toString();
+            blobCount = files.size();
+            bytes = files.stream().mapToLong(File::length).sum();
+            commit();
+        }
+    }
+
+}
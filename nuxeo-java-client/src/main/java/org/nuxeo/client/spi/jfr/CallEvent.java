@@ -0,0 +1,88 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Kevin Leturc <kleturc@nuxeo.com>
+ */
+package org.nuxeo.client.spi.jfr;
+
+import java.util.List;
+
+import org.nuxeo.client.spi.interceptor.MetricsInterceptor;
+import org.nuxeo.client.spi.jfr.FlightRecorderEvents.CallRecord;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import retrofit2.Call;
+
+/**
+ * @since 3.1
+ */
+@Name("org.nuxeo.client.Call")
+@Label("Nuxeo Call")
+@Description("Call to Nuxeo server, from the request to the deserialized response")
+@Category({ "Nuxeo", "Client" })
+public class CallEvent extends Event implements CallRecord {
+
+    protected static final String AUTOMATION_SEGMENT = "automation";
+
+    @Label("Method")
+    protected String method;
+
+    @Label("Endpoint")
+    protected String endpoint;
+
+    @Label("Operation Id")
+    protected String operationId;
+
+    @Label("Status")
+    protected int status;
+
+    @Label("Response Size")
+    @DataAmount
+    protected long bytes;
+
+    @Label("Cache Hit")
+    protected boolean cacheHit;
+
+    @Override
+    public void record(Call<?> call, Response response, boolean cacheHit) {
+        end();
+        if (shouldCommit()) {
+            Request request = call.request();
+            method = request.method();
+            endpoint = MetricsInterceptor.endpoint(request);
+            List<String> segments = request.url().pathSegments();
+            int index = segments.lastIndexOf(AUTOMATION_SEGMENT);
+            if (index < 0) {
+                index = segments.lastIndexOf("execute");
+            }
+            operationId = index >= 0 && index + 1 < segments.size() ? segments.get(index + 1) : null;
+            status = response == null ? 0 : response.code();
+            ResponseBody body = response == null ? null : response.body();
+            bytes = body == null ? -1 : body.contentLength();
+            this.cacheHit = cacheHit;
+            commit();
+        }
+    }
+
+}
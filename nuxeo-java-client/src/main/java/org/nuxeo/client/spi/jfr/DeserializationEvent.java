@@ -0,0 +1,65 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Kevin Leturc <kleturc@nuxeo.com>
+ */
+package org.nuxeo.client.spi.jfr;
+
+import org.nuxeo.client.spi.jfr.FlightRecorderEvents.DeserializationRecord;
+
+import com.fasterxml.jackson.databind.JavaType;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+
+/**
+ * @since 3.1
+ */
+@Name("org.nuxeo.client.Deserialization")
+@Label("Nuxeo Response Deserialization")
+@Description("Deserialization of a response body from Nuxeo server")
+@Category({ "Nuxeo", "Client" })
+public class DeserializationEvent extends Event implements DeserializationRecord {
+
+    @Label("Java Type")
+    protected String javaType;
+
+    @Label("Media Type")
+    protected String mediaType;
+
+    @Label("Body Size")
+    @DataAmount
+    protected long bytes;
+
+    @Override
+    public void record(JavaType javaType, ResponseBody body) {
+        end();
+        if (shouldCommit()) {
+            this.javaType = javaType.toCanonical();
+            MediaType contentType = body.contentType();
+            mediaType = contentType == null ? null : contentType.toString();
+            bytes = body.contentLength();
+            commit();
+        }
+    }
+
+}
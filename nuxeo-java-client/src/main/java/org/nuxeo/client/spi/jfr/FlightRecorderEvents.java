@@ -0,0 +1,182 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Kevin Leturc <kleturc@nuxeo.com>
+ */
+package org.nuxeo.client.spi.jfr;
+
+import java.io.File;
+import java.util.List;
+
+import org.nuxeo.client.MediaType;
+
+import com.fasterxml.jackson.databind.JavaType;
+
+import okhttp3.ResponseBody;
+import retrofit2.Call;
+
+/**
+ * Entry point of the Java Flight Recorder events emitted by the client: calls to Nuxeo, deserialization of responses,
+ * batch upload chunks and blob downloads.
+ * <p />
+ * Events are disabled by default, they are enabled with the {@value #ENABLED_PROPERTY} system property set to true
+ * on a JVM shipping JFR (Java 8u262 or later). When disabled, the methods of this class return a no-op record and JFR
+ * classes are never loaded. When enabled, event fields are only computed if JFR is recording them.
+ * <p />
+ * Usage:
+ *
+ * <pre>
+ * CallRecord event = FlightRecorderEvents.beginCall();
+ * // execute the call
+ * event.record(call, response, false);
+ * </pre>
+ *
+ * @since 3.1
+ */
+public final class FlightRecorderEvents {
+
+    public static final String ENABLED_PROPERTY = "nuxeo.client.jfr";
+
+    protected static final EventFactory FACTORY = createFactory();
+
+    private FlightRecorderEvents() {
+        // utility class
+    }
+
+    protected static EventFactory createFactory() {
+        if (Boolean.getBoolean(ENABLED_PROPERTY)) {
+            try {
+                Class.forName("jdk.jfr.Event");
+                return (EventFactory) Class.forName(FlightRecorderEvents.class.getPackage().getName()
+                        + ".JfrEventFactory").newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // JFR is not available
+            }
+        }
+        return NoopEvent.INSTANCE;
+    }
+
+    public static boolean isEnabled() {
+        return FACTORY != NoopEvent.INSTANCE;
+    }
+
+    public static CallRecord beginCall() {
+        return FACTORY.beginCall();
+    }
+
+    public static DeserializationRecord beginDeserialization() {
+        return FACTORY.beginDeserialization();
+    }
+
+    public static UploadChunkRecord beginUploadChunk() {
+        return FACTORY.beginUploadChunk();
+    }
+
+    public static BlobDownloadRecord beginBlobDownload() {
+        return FACTORY.beginBlobDownload();
+    }
+
+    /**
+     * Creates and begins the events.
+     */
+    protected interface EventFactory {
+
+        CallRecord beginCall();
+
+        DeserializationRecord beginDeserialization();
+
+        UploadChunkRecord beginUploadChunk();
+
+        BlobDownloadRecord beginBlobDownload();
+
+    }
+
+    public interface CallRecord {
+
+        /**
+         * @param response the raw response, null if the call failed or if the response came from cache
+         */
+        void record(Call<?> call, okhttp3.Response response, boolean cacheHit);
+
+    }
+
+    public interface DeserializationRecord {
+
+        void record(JavaType javaType, ResponseBody body);
+
+    }
+
+    public interface UploadChunkRecord {
+
+        void record(String batchId, String fileIdx, int chunkIndex, long chunkCount, long bytes, boolean success);
+
+    }
+
+    public interface BlobDownloadRecord {
+
+        void record(MediaType mediaType, List<File> files);
+
+    }
+
+    protected static final class NoopEvent
+            implements EventFactory, CallRecord, DeserializationRecord, UploadChunkRecord, BlobDownloadRecord {
+
+        protected static final NoopEvent INSTANCE = new NoopEvent();
+
+        @Override
+        public CallRecord beginCall() {
+            return this;
+        }
+
+        @Override
+        public DeserializationRecord beginDeserialization() {
+            return this;
+        }
+
+        @Override
+        public UploadChunkRecord beginUploadChunk() {
+            return this;
+        }
+
+        @Override
+        public BlobDownloadRecord beginBlobDownload() {
+            return this;
+        }
+
+        @Override
+        public void record(Call<?> call, okhttp3.Response response, boolean cacheHit) {
+            // nothing to record
+        }
+
+        @Override
+        public void record(JavaType javaType, ResponseBody body) {
+            // nothing to record
+        }
+
+        @Override
+        public void record(String batchId, String fileIdx, int chunkIndex, long chunkCount, long bytes,
+                boolean success) {
+            // nothing to record
+        }
+
+        @Override
+        public void record(MediaType mediaType, List<File> files) {
+            // nothing to record
+        }
+
+    }
+
+}
@@ -0,0 +1,62 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Kevin Leturc <kleturc@nuxeo.com>
+ */
+package org.nuxeo.client.spi.jfr;
+
+import org.nuxeo.client.spi.jfr.FlightRecorderEvents.BlobDownloadRecord;
+import org.nuxeo.client.spi.jfr.FlightRecorderEvents.CallRecord;
+import org.nuxeo.client.spi.jfr.FlightRecorderEvents.DeserializationRecord;
+import org.nuxeo.client.spi.jfr.FlightRecorderEvents.EventFactory;
+import org.nuxeo.client.spi.jfr.FlightRecorderEvents.UploadChunkRecord;
+
+/**
+ * Factory of JFR events, this class is only loaded when JFR events are enabled, see {@link FlightRecorderEvents}.
+ *
+ * @since 3.1
+ */
+public class JfrEventFactory implements EventFactory {
+
+    @Override
+    public CallRecord beginCall() {
+        CallEvent event = new CallEvent();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public DeserializationRecord beginDeserialization() {
+        DeserializationEvent event = new DeserializationEvent();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public UploadChunkRecord beginUploadChunk() {
+        UploadChunkEvent event = new UploadChunkEvent();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public BlobDownloadRecord beginBlobDownload() {
+        BlobDownloadEvent event = new BlobDownloadEvent();
+        event.begin();
+        return event;
+    }
+
+}
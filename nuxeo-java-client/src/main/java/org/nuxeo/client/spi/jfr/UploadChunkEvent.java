@@ -0,0 +1,73 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Kevin Leturc <kleturc@nuxeo.com>
+ */
+package org.nuxeo.client.spi.jfr;
+
+import org.nuxeo.client.spi.jfr.FlightRecorderEvents.UploadChunkRecord;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * @since 3.1
+ */
+@Name("org.nuxeo.client.UploadChunk")
+@Label("Nuxeo Batch Upload Chunk")
+@Description("Upload of a file or of a file chunk to a Nuxeo batch")
+@Category({ "Nuxeo", "Client" })
+public class UploadChunkEvent extends Event implements UploadChunkRecord {
+
+    @Label("Batch Id")
+    protected String batchId;
+
+    @Label("File Index")
+    protected String fileIdx;
+
+    @Label("Chunk Index")
+    protected int chunkIndex;
+
+    @Label("Chunk Count")
+    protected long chunkCount;
+
+    @Label("Chunk Size")
+    @DataAmount
+    protected long bytes;
+
+    @Label("Success")
+    protected boolean success;
+
+    @Override
+    public void record(String batchId, String fileIdx, int chunkIndex, long chunkCount, long bytes,
+            boolean success) {
+        end();
+        if (shouldCommit()) {
+            this.batchId = batchId;
+            this.fileIdx = fileIdx;
+            this.chunkIndex = chunkIndex;
+            this.chunkCount = chunkCount;
+            this.bytes = bytes;
+            this.success = success;
+            commit();
+        }
+    }
+
+}
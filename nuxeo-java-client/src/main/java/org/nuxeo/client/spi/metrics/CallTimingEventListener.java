@@ -0,0 +1,351 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Kevin Leturc <kleturc@nuxeo.com>
+ */
+package org.nuxeo.client.spi.metrics;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.WeakHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.nuxeo.client.spi.interceptor.MetricsInterceptor;
+
+import okhttp3.Call;
+import okhttp3.EventListener;
+import okhttp3.Handshake;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+
+/**
+ * OkHttp {@link EventListener} capturing the {@link CallTimings} of a call and notifying the
+ * {@link CallTimingListener}s when the call ends.
+ * <p />
+ * The deserialization time is captured by the response body given to the converter, see {@link Factory#intercept}. It
+ * is the time spent consuming the body until it is closed minus the time spent reading it from the network. When the
+ * response has a body, listeners are notified once it is closed.
+ *
+ * @since 3.1
+ */
+public class CallTimingEventListener extends EventListener {
+
+    protected final List<CallTimingListener> listeners;
+
+    protected final CallTimings timings = new CallTimings();
+
+    protected long callStart;
+
+    protected long dnsStart;
+
+    protected long connectStart;
+
+    protected long tlsStart;
+
+    protected long requestStart;
+
+    protected long requestEnd;
+
+    protected long bodyStart;
+
+    protected boolean ended;
+
+    protected boolean deserializing;
+
+    protected boolean notified;
+
+    protected CallTimingEventListener(List<CallTimingListener> listeners, Request request) {
+        this.listeners = listeners;
+        timings.method = request.method();
+        timings.url = request.url().toString();
+        timings.endpoint = MetricsInterceptor.endpoint(request);
+    }
+
+    @Override
+    public void callStart(Call call) {
+        callStart = System.nanoTime();
+    }
+
+    @Override
+    public void dnsStart(Call call, String domainName) {
+        dnsStart = System.nanoTime();
+    }
+
+    @Override
+    public void dnsEnd(Call call, String domainName, List<InetAddress> inetAddressList) {
+        timings.dnsNanos = add(timings.dnsNanos, System.nanoTime() - dnsStart);
+    }
+
+    @Override
+    public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+        connectStart = System.nanoTime();
+    }
+
+    @Override
+    public void secureConnectStart(Call call) {
+        tlsStart = System.nanoTime();
+    }
+
+    @Override
+    public void secureConnectEnd(Call call, Handshake handshake) {
+        timings.tlsNanos = add(timings.tlsNanos, System.nanoTime() - tlsStart);
+    }
+
+    @Override
+    public void connectEnd(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol) {
+        timings.connectNanos = add(timings.connectNanos, System.nanoTime() - connectStart);
+    }
+
+    @Override
+    public void connectFailed(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol,
+            IOException ioe) {
+        timings.connectNanos = add(timings.connectNanos, System.nanoTime() - connectStart);
+    }
+
+    @Override
+    public void requestHeadersStart(Call call) {
+        requestStart = System.nanoTime();
+    }
+
+    @Override
+    public void requestHeadersEnd(Call call, Request request) {
+        // request could have been rewritten by interceptors
+        timings.method = request.method();
+        timings.url = request.url().toString();
+        timings.endpoint = MetricsInterceptor.endpoint(request);
+        requestEnd = System.nanoTime();
+        timings.requestWriteNanos = add(timings.requestWriteNanos, requestEnd - requestStart);
+    }
+
+    @Override
+    public void requestBodyEnd(Call call, long byteCount) {
+        long now = System.nanoTime();
+        timings.requestWriteNanos = add(timings.requestWriteNanos, now - requestEnd);
+        requestEnd = now;
+    }
+
+    @Override
+    public void responseHeadersEnd(Call call, Response response) {
+        timings.status = response.code();
+        timings.timeToFirstByteNanos = add(timings.timeToFirstByteNanos, System.nanoTime() - requestEnd);
+    }
+
+    @Override
+    public void responseBodyStart(Call call) {
+        bodyStart = System.nanoTime();
+    }
+
+    @Override
+    public void responseBodyEnd(Call call, long byteCount) {
+        timings.bodyReadNanos = add(timings.bodyReadNanos, System.nanoTime() - bodyStart);
+    }
+
+    @Override
+    public void callEnd(Call call) {
+        end(null);
+    }
+
+    @Override
+    public void callFailed(Call call, IOException ioe) {
+        end(ioe);
+    }
+
+    protected void end(IOException failure) {
+        synchronized (this) {
+            timings.totalNanos = System.nanoTime() - callStart;
+            timings.failure = failure;
+            ended = true;
+            if (deserializing || !markNotified()) {
+                return;
+            }
+        }
+        notifyListeners();
+    }
+
+    /**
+     * @return whether listeners have to be notified by the caller, ie: they haven't been notified yet
+     */
+    protected boolean markNotified() {
+        boolean notify = !notified;
+        notified = true;
+        return notify;
+    }
+
+    protected void notifyListeners() {
+        for (CallTimingListener listener : listeners) {
+            try {
+                listener.onCall(timings);
+            } catch (RuntimeException e) {
+                // don't fail the call because of a listener
+            }
+        }
+    }
+
+    /**
+     * @return the input body of this call's response, capturing its deserialization
+     */
+    protected ResponseBody beginDeserialization(ResponseBody body) {
+        synchronized (this) {
+            if (notified) {
+                // call has ended while receiving the response, it has an empty body
+                return body;
+            }
+            deserializing = true;
+        }
+        return new DeserializationResponseBody(body);
+    }
+
+    /**
+     * Called when the response body is closed.
+     */
+    protected void endDeserialization(long deserializationNanos) {
+        synchronized (this) {
+            timings.deserializationNanos = deserializationNanos;
+            deserializing = false;
+            if (!ended || !markNotified()) {
+                return;
+            }
+        }
+        notifyListeners();
+    }
+
+    protected static long add(long duration, long nanos) {
+        return duration < 0 ? nanos : duration + nanos;
+    }
+
+    /**
+     * Response body measuring the time spent by its consumer, excluding the time spent reading from the network.
+     */
+    protected class DeserializationResponseBody extends ResponseBody {
+
+        protected final ResponseBody delegate;
+
+        protected BufferedSource source;
+
+        protected DeserializationResponseBody(ResponseBody delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return delegate.contentType();
+        }
+
+        @Override
+        public long contentLength() {
+            return delegate.contentLength();
+        }
+
+        @Override
+        public BufferedSource source() {
+            if (source == null) {
+                source = Okio.buffer(new ForwardingSource(delegate.source()) {
+
+                    protected long firstRead = -1;
+
+                    protected long readNanos;
+
+                    protected boolean closed;
+
+                    @Override
+                    public long read(Buffer sink, long byteCount) throws IOException {
+                        long start = System.nanoTime();
+                        if (firstRead < 0) {
+                            firstRead = start;
+                        }
+                        try {
+                            return super.read(sink, byteCount);
+                        } finally {
+                            readNanos += System.nanoTime() - start;
+                        }
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        if (!closed) {
+                            closed = true;
+                            endDeserialization(firstRead < 0 ? 0 : System.nanoTime() - firstRead - readNanos);
+                        }
+                        super.close();
+                    }
+
+                });
+            }
+            return source;
+        }
+
+    }
+
+    /**
+     * Factory of {@link CallTimingEventListener}, it notifies the registered listeners.
+     * <p />
+     * It is also an application interceptor which has to be the first one of the client, it gives the response body
+     * of each call to its listener in order to capture the deserialization time.
+     */
+    public static class Factory implements EventListener.Factory, Interceptor {
+
+        protected final List<CallTimingListener> listeners = new CopyOnWriteArrayList<>();
+
+        /**
+         * The listeners of the calls created and not yet intercepted, a call created but never executed is garbage
+         * collected.
+         */
+        protected final Map<Call, CallTimingEventListener> calls = Collections.synchronizedMap(new WeakHashMap<>());
+
+        public Factory addListener(CallTimingListener listener) {
+            listeners.add(Objects.requireNonNull(listener, "Listener must be provided"));
+            return this;
+        }
+
+        public List<CallTimingListener> getListeners() {
+            return listeners;
+        }
+
+        @Override
+        public EventListener create(Call call) {
+            CallTimingEventListener listener = new CallTimingEventListener(listeners, call.request());
+            calls.put(call, listener);
+            return listener;
+        }
+
+        @Override
+        public Response intercept(Chain chain) throws IOException {
+            CallTimingEventListener listener = calls.remove(chain.call());
+            Response response = chain.proceed(chain.request());
+            ResponseBody body = response.body();
+            if (listener == null || body == null) {
+                return response;
+            }
+            return response.newBuilder().body(listener.beginDeserialization(body)).build();
+        }
+
+    }
+
+}
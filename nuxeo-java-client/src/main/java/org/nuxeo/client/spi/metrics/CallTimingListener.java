@@ -0,0 +1,32 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Kevin Leturc <kleturc@nuxeo.com>
+ */
+package org.nuxeo.client.spi.metrics;
+
+/**
+ * Listener notified with the phase timings of each HTTP call, see {@link CallTimings}.
+ * <p />
+ * Listeners are called on the thread ending the call, they should be fast and must not throw.
+ *
+ * @since 3.1
+ */
+public interface CallTimingListener {
+
+    void onCall(CallTimings timings);
+
+}
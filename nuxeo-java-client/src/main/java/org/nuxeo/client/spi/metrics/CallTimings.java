@@ -0,0 +1,152 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Kevin Leturc <kleturc@nuxeo.com>
+ */
+package org.nuxeo.client.spi.metrics;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Phase timings of an HTTP call, durations are in nanoseconds and are -1 when the phase didn't happen, for instance
+ * DNS and connect phases when a pooled connection is used.
+ * <p />
+ * Body read and deserialization overlap as JSON responses are deserialized while they're read.
+ *
+ * @since 3.1
+ */
+public class CallTimings {
+
+    protected String method;
+
+    protected String url;
+
+    protected String endpoint;
+
+    protected int status;
+
+    protected long dnsNanos = -1;
+
+    protected long connectNanos = -1;
+
+    protected long tlsNanos = -1;
+
+    protected long requestWriteNanos = -1;
+
+    protected long timeToFirstByteNanos = -1;
+
+    protected long bodyReadNanos = -1;
+
+    protected long deserializationNanos = -1;
+
+    protected long totalNanos = -1;
+
+    protected IOException failure;
+
+    public String getMethod() {
+        return method;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * @return the logical endpoint of the call, see {@link org.nuxeo.client.spi.interceptor.MetricsInterceptor}
+     */
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * @return the response status, or 0 if the call failed without response
+     */
+    public int getStatus() {
+        return status;
+    }
+
+    public long getDnsNanos() {
+        return dnsNanos;
+    }
+
+    /**
+     * @return the connect duration, including TLS handshake
+     */
+    public long getConnectNanos() {
+        return connectNanos;
+    }
+
+    public long getTlsNanos() {
+        return tlsNanos;
+    }
+
+    public long getRequestWriteNanos() {
+        return requestWriteNanos;
+    }
+
+    /**
+     * @return the time between the end of request write and the reception of response headers
+     */
+    public long getTimeToFirstByteNanos() {
+        return timeToFirstByteNanos;
+    }
+
+    public long getBodyReadNanos() {
+        return bodyReadNanos;
+    }
+
+    public long getDeserializationNanos() {
+        return deserializationNanos;
+    }
+
+    /**
+     * @return the duration of the whole call, from its start to the end of response body read
+     */
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    public IOException getFailure() {
+        return failure;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder().append(method).append(' ').append(url).append(" status=").append(
+                status);
+        append(builder, "total", totalNanos);
+        append(builder, "dns", dnsNanos);
+        append(builder, "connect", connectNanos);
+        append(builder, "tls", tlsNanos);
+        append(builder, "requestWrite", requestWriteNanos);
+        append(builder, "ttfb", timeToFirstByteNanos);
+        append(builder, "bodyRead", bodyReadNanos);
+        append(builder, "deserialization", deserializationNanos);
+        if (failure != null) {
+            builder.append(" failure=").append(failure);
+        }
+        return builder.toString();
+    }
+
+    protected static void append(StringBuilder builder, String phase, long nanos) {
+        if (nanos >= 0) {
+            builder.append(' ').append(phase).append('=').append(TimeUnit.NANOSECONDS.toMicros(nanos) / 1000.0).append(
+                    "ms");
+        }
+    }
+
+}
@@ -0,0 +1,178 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Kevin Leturc <kleturc@nuxeo.com>
+ */
+package org.nuxeo.client.spi.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Metrics of a logical endpoint recorded by {@link InMemoryMetrics}, recording is lock free.
+ * <p />
+ * Latencies are kept in a histogram with power of two buckets in microseconds, percentiles are the upper bound of the
+ * bucket containing them, which means they are over-estimated by at most a factor of 2.
+ *
+ * @since 3.1
+ */
+public class EndpointMetrics {
+
+    protected static final int BUCKET_COUNT = 40;
+
+    protected static final int MAX_STATUS = 600;
+
+    protected final String endpoint;
+
+    protected final LongAdder requestCount = new LongAdder();
+
+    protected final LongAdder failureCount = new LongAdder();
+
+    protected final LongAdder inFlight = new LongAdder();
+
+    protected final LongAdder requestBytes = new LongAdder();
+
+    protected final LongAdder responseBytes = new LongAdder();
+
+    protected final LongAdder latencySum = new LongAdder();
+
+    protected final AtomicLong latencyMax = new AtomicLong();
+
+    protected final AtomicLongArray latencyBuckets = new AtomicLongArray(BUCKET_COUNT);
+
+    protected final AtomicLongArray statusCounts = new AtomicLongArray(MAX_STATUS);
+
+    public EndpointMetrics(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    protected void onRequest() {
+        requestCount.increment();
+        inFlight.increment();
+    }
+
+    protected void onResponse(int status, long latencyNanos, long bytes) {
+        inFlight.decrement();
+        if (status >= 0 && status < MAX_STATUS) {
+            statusCounts.incrementAndGet(status);
+        }
+        if (bytes > 0) {
+            requestBytes.add(bytes);
+        }
+        recordLatency(latencyNanos);
+    }
+
+    protected void onFailure(long latencyNanos) {
+        inFlight.decrement();
+        failureCount.increment();
+        recordLatency(latencyNanos);
+    }
+
+    protected void onResponseBody(long bytes) {
+        responseBytes.add(bytes);
+    }
+
+    protected void recordLatency(long latencyNanos) {
+        latencySum.add(latencyNanos);
+        latencyMax.accumulateAndGet(latencyNanos, Math::max);
+        latencyBuckets.incrementAndGet(bucket(latencyNanos));
+    }
+
+    protected static int bucket(long latencyNanos) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(latencyNanos);
+        return Math.min(64 - Long.numberOfLeadingZeros(micros), BUCKET_COUNT - 1);
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public long getRequestCount() {
+        return requestCount.sum();
+    }
+
+    public long getFailureCount() {
+        return failureCount.sum();
+    }
+
+    /**
+     * @return the number of requests waiting for their response
+     */
+    public long getInFlight() {
+        return inFlight.sum();
+    }
+
+    public long getStatusCount(int status) {
+        return status >= 0 && status < MAX_STATUS ? statusCounts.get(status) : 0;
+    }
+
+    public long getRequestBytes() {
+        return requestBytes.sum();
+    }
+
+    public long getResponseBytes() {
+        return responseBytes.sum();
+    }
+
+    /**
+     * @return the mean latency in microseconds
+     */
+    public long getMeanLatency() {
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            count += latencyBuckets.get(i);
+        }
+        return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(latencySum.sum() / count);
+    }
+
+    /**
+     * @return the max latency in microseconds
+     */
+    public long getMaxLatency() {
+        return TimeUnit.NANOSECONDS.toMicros(latencyMax.get());
+    }
+
+    /**
+     * @param percentile the percentile, in ]0, 1]
+     * @return the upper bound of the latency percentile in microseconds
+     */
+    public long getLatencyPercentile(double percentile) {
+        long[] counts = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = latencyBuckets.get(i);
+            total += counts[i];
+        }
+        long rank = (long) Math.ceil(percentile * total);
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts[i];
+            if (seen >= rank && counts[i] > 0) {
+                return i == BUCKET_COUNT - 1 ? getMaxLatency() : (1L << i) - 1;
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public String toString() {
+        return endpoint + " requests=" + getRequestCount() + " failures=" + getFailureCount() + " inFlight="
+                + getInFlight() + " mean=" + getMeanLatency() + "us p99=" + getLatencyPercentile(0.99) + "us";
+    }
+
+}
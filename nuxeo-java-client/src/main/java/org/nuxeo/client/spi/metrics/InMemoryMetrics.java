@@ -0,0 +1,94 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Kevin Leturc <kleturc@nuxeo.com>
+ */
+package org.nuxeo.client.spi.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import okhttp3.ConnectionPool;
+
+/**
+ * Default {@link MetricsRecorder} keeping metrics in memory, see {@link EndpointMetrics}.
+ *
+ * @since 3.1
+ */
+public class InMemoryMetrics implements MetricsRecorder {
+
+    protected final ConcurrentMap<String, EndpointMetrics> endpoints = new ConcurrentHashMap<>();
+
+    protected volatile ConnectionPool connectionPool;
+
+    @Override
+    public void bind(ConnectionPool connectionPool) {
+        this.connectionPool = connectionPool;
+    }
+
+    @Override
+    public void onRequest(String endpoint) {
+        getOrCreate(endpoint).onRequest();
+    }
+
+    @Override
+    public void onResponse(String endpoint, int status, long latencyNanos, long requestBytes) {
+        getOrCreate(endpoint).onResponse(status, latencyNanos, requestBytes);
+    }
+
+    @Override
+    public void onFailure(String endpoint, long latencyNanos, Exception failure) {
+        getOrCreate(endpoint).onFailure(latencyNanos);
+    }
+
+    @Override
+    public void onResponseBody(String endpoint, long bytes) {
+        getOrCreate(endpoint).onResponseBody(bytes);
+    }
+
+    protected EndpointMetrics getOrCreate(String endpoint) {
+        // get first as computeIfAbsent locks even if the key is present
+        EndpointMetrics metrics = endpoints.get(endpoint);
+        if (metrics == null) {
+            metrics = endpoints.computeIfAbsent(endpoint, EndpointMetrics::new);
+        }
+        return metrics;
+    }
+
+    /**
+     * @return the metrics of the input endpoint, or null if no request was sent to it
+     */
+    public EndpointMetrics getEndpoint(String endpoint) {
+        return endpoints.get(endpoint);
+    }
+
+    public Map<String, EndpointMetrics> getEndpoints() {
+        return Collections.unmodifiableMap(endpoints);
+    }
+
+    public int getConnectionCount() {
+        ConnectionPool pool = connectionPool;
+        return pool == null ? 0 : pool.connectionCount();
+    }
+
+    public int getIdleConnectionCount() {
+        ConnectionPool pool = connectionPool;
+        return pool == null ? 0 : pool.idleConnectionCount();
+    }
+
+}
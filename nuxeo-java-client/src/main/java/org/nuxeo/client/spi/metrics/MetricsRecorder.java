@@ -0,0 +1,63 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Kevin Leturc <kleturc@nuxeo.com>
+ */
+package org.nuxeo.client.spi.metrics;
+
+import okhttp3.ConnectionPool;
+
+/**
+ * SPI recording the metrics of the requests sent by {@link org.nuxeo.client.NuxeoClient}, requests are identified by
+ * their logical endpoint, for instance {@code GET id/{}/@children} or {@code POST automation/Document.Create}.
+ * <p />
+ * Methods are called on the threads sending the requests, implementations have to be thread safe and should not block.
+ *
+ * @since 3.1
+ */
+public interface MetricsRecorder {
+
+    /**
+     * Called when the client is created in order to give access to the connection pool statistics.
+     */
+    void bind(ConnectionPool connectionPool);
+
+    /**
+     * Called before sending a request.
+     */
+    void onRequest(String endpoint);
+
+    /**
+     * Called when the response headers are received.
+     *
+     * @param latencyNanos the time between the request and the response headers
+     * @param requestBytes the size of request body, or -1 if unknown
+     */
+    void onResponse(String endpoint, int status, long latencyNanos, long requestBytes);
+
+    /**
+     * Called when the request failed without response.
+     */
+    void onFailure(String endpoint, long latencyNanos, Exception failure);
+
+    /**
+     * Called when the response body has been read or closed.
+     *
+     * @param bytes the number of bytes read from the response body
+     */
+    void onResponseBody(String endpoint, long bytes);
+
+}
@@ -0,0 +1,88 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Kevin Leturc <kleturc@nuxeo.com>
+ */
+package org.nuxeo.client.spi.metrics;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * {@link CallTimingListener} logging calls slower than a threshold with their phase timings. Only a sample of slow
+ * calls can be logged in order to limit the log volume.
+ * <p />
+ * Calls are logged with {@link java.util.logging} at WARNING level by default.
+ *
+ * @since 3.1
+ */
+public class SlowRequestLog implements CallTimingListener {
+
+    protected static final Logger log = Logger.getLogger(SlowRequestLog.class.getName());
+
+    protected final long thresholdNanos;
+
+    protected final double samplingRate;
+
+    protected final AtomicLong slowCount = new AtomicLong();
+
+    /**
+     * Logs all calls slower than the input threshold.
+     */
+    public SlowRequestLog(long threshold, TimeUnit unit) {
+        this(threshold, unit, 1);
+    }
+
+    /**
+     * @param samplingRate the ratio of slow calls to log, in [0, 1]
+     */
+    public SlowRequestLog(long threshold, TimeUnit unit, double samplingRate) {
+        if (samplingRate < 0 || samplingRate > 1) {
+            throw new IllegalArgumentException("Sampling rate must be in [0, 1]");
+        }
+        this.thresholdNanos = unit.toNanos(threshold);
+        this.samplingRate = samplingRate;
+    }
+
+    @Override
+    public void onCall(CallTimings timings) {
+        long duration = timings.getTotalNanos() + Math.max(timings.getDeserializationNanos(), 0);
+        if (duration < thresholdNanos) {
+            return;
+        }
+        slowCount.incrementAndGet();
+        if (samplingRate >= 1 || ThreadLocalRandom.current().nextDouble() < samplingRate) {
+            log(timings);
+        }
+    }
+
+    protected void log(CallTimings timings) {
+        if (log.isLoggable(Level.WARNING)) {
+            log.warning("Slow request: " + timings);
+        }
+    }
+
+    /**
+     * @return the number of slow calls, logged or not
+     */
+    public long getSlowCount() {
+        return slowCount.get();
+    }
+
+}
@@ -0,0 +1,142 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Kevin Leturc <kleturc@nuxeo.com>
+ */
+package org.nuxeo.client;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * Stub of a Nuxeo server for unit tests.
+ * <p>
+ * Static helpers stub the server in memory, responses are computed by an okhttp interceptor given to
+ * {@link #newClient(NuxeoClient.Builder, Interceptor)}. Instances start a local {@link HttpServer} on a random port
+ * for tests which need a real connection.
+ *
+ * @since 3.1
+ */
+public class StubServer implements AutoCloseable {
+
+    public static final String URL = "http://localhost:8080/nuxeo";
+
+    public static final String DOCUMENT_JSON = documentJSON("uid");
+
+    protected final HttpServer server;
+
+    /**
+     * Starts a server handling REST API requests, ie: {@code /nuxeo/api/v1/}, with the input handler.
+     */
+    public StubServer(HttpHandler handler) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/nuxeo/api/v1/", handler);
+        server.start();
+    }
+
+    public String getUrl() {
+        return "http://localhost:" + server.getAddress().getPort() + "/nuxeo";
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * @return a client targeting this server
+     */
+    public NuxeoClient newClient(NuxeoClient.Builder builder) {
+        return new NuxeoClient(builder.url(getUrl())) {
+        };
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    /**
+     * @return a client whose requests are replied by the input interceptor
+     */
+    public static NuxeoClient newClient(NuxeoClient.Builder builder, Interceptor server) {
+        return new NuxeoClient(builder.url(URL).interceptor(server)) {
+        };
+    }
+
+    public static String documentJSON(String id) {
+        return "{\"entity-type\":\"document\",\"uid\":\"" + id + "\",\"type\":\"File\"}";
+    }
+
+    /**
+     * @return a document whose id is the last segment of request path
+     */
+    public static Response document(Request request) {
+        String path = request.url().encodedPath();
+        return json(request, documentJSON(path.substring(path.lastIndexOf('/') + 1)));
+    }
+
+    public static Response json(Request request, String json) {
+        return reply(request, 200, "application/json", json);
+    }
+
+    public static Response text(Request request, int code, String text) {
+        return reply(request, code, "text/plain", text);
+    }
+
+    public static Response reply(Request request, int code, String contentType, String body) {
+        return new Response.Builder().request(request)
+                                     .protocol(Protocol.HTTP_1_1)
+                                     .code(code)
+                                     .message(code == 200 ? "OK" : "Status " + code)
+                                     .body(ResponseBody.create(MediaType.parse(contentType),
+                                             body.getBytes(StandardCharsets.UTF_8)))
+                                     .build();
+    }
+
+    public static void reply(HttpExchange exchange, int code, String contentType, byte[] body) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", contentType);
+        exchange.sendResponseHeaders(code, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    public static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+}
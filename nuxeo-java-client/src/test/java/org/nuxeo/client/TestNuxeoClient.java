@@ -0,0 +1,255 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Kevin Leturc <kleturc@nuxeo.com>
+ */
+package org.nuxeo.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+import org.junit.After;
+import org.junit.Test;
+import org.nuxeo.client.objects.Document;
+import org.nuxeo.client.objects.Repository;
+import org.nuxeo.client.spi.NuxeoClientException;
+import org.nuxeo.client.spi.NuxeoClientRemoteException;
+import org.nuxeo.client.spi.interceptor.RequestCoalescingInterceptor;
+
+import okhttp3.Call;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Unit tests of {@link NuxeoClient} against a stubbed server, responses are computed by an okhttp interceptor.
+ *
+ * @since 3.1
+ */
+public class TestNuxeoClient {
+
+    protected final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testFetchResponseAsync() {
+        AtomicInteger completions = new AtomicInteger();
+        NuxeoClient nuxeoClient = newClient(new NuxeoClient.Builder().asyncExecutor(completion -> {
+            completions.incrementAndGet();
+            executor.execute(completion);
+        }));
+
+        Repository repository = nuxeoClient.repository();
+        List<CompletableFuture<Document>> futures = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            futures.add(repository.fetchDocumentByIdAsync("uid-" + i));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+
+        for (int i = 0; i < futures.size(); i++) {
+            assertEquals("uid-" + i, futures.get(i).join().getId());
+        }
+        // futures have been completed by the async executor
+        assertEquals(50, completions.get());
+    }
+
+    @Test
+    public void testFetchResponseAsyncFailure() {
+        NuxeoClient nuxeoClient = newClient(new NuxeoClient.Builder());
+
+        CompletableFuture<Document> future = nuxeoClient.repository().fetchDocumentByIdAsync("error");
+        try {
+            future.join();
+            fail("Future should have failed");
+        } catch (CompletionException e) {
+            assertTrue(e.getCause() instanceof NuxeoClientRemoteException);
+            assertEquals(404, ((NuxeoClientRemoteException) e.getCause()).getStatus());
+        }
+    }
+
+    @Test
+    public void testExecutorService() {
+        AtomicInteger executions = new AtomicInteger();
+        ExecutorService dispatcherExecutor = new ThreadPoolExecutor(0, 1, 1, TimeUnit.SECONDS,
+                new SynchronousQueue<>()) {
+
+            @Override
+            public void execute(Runnable command) {
+                executions.incrementAndGet();
+                super.execute(command);
+            }
+
+        };
+        NuxeoClient nuxeoClient = newClient(new NuxeoClient.Builder().executorService(dispatcherExecutor));
+
+        nuxeoClient.repository().fetchDocumentByIdAsync("uid").join();
+
+        assertEquals(1, executions.get());
+        dispatcherExecutor.shutdown();
+    }
+
+    @Test
+    public void testVirtualThreads() {
+        NuxeoClient.Builder builder = new NuxeoClient.Builder();
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            try {
+                builder.virtualThreads();
+                fail("Virtual threads shouldn't be available");
+            } catch (NuxeoClientException nce) {
+                assertEquals("Virtual threads are not available, Java 21 or later is required", nce.getMessage());
+            }
+            return;
+        }
+        NuxeoClient nuxeoClient = newClient(builder.virtualThreads());
+        assertEquals("uid", nuxeoClient.repository().fetchDocumentByIdAsync("uid").join().getId());
+        nuxeoClient.disconnect();
+        assertTrue(builder.ownedExecutorService.isShutdown());
+    }
+
+    @Test
+    public void testCoalesceRequests() throws Exception {
+        CountDownLatch called = new CountDownLatch(1);
+        CountDownLatch joined = new CountDownLatch(9);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        NuxeoClient.Builder builder = new NuxeoClient.Builder().coalesceRequests(newRequestCoalescing(joined));
+        NuxeoClient nuxeoClient = newClient(builder.interceptor(chain -> {
+            calls.incrementAndGet();
+            called.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return chain.proceed(chain.request());
+        }));
+        Repository repository = nuxeoClient.repository();
+
+        List<Future<Document>> futures = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            futures.add(executor.submit(() -> repository.fetchDocumentById("uid")));
+        }
+        called.await();
+        // let other threads wait for the first call
+        joined.await();
+        release.countDown();
+
+        List<Document> documents = new ArrayList<>();
+        for (Future<Document> future : futures) {
+            documents.add(future.get());
+        }
+        RequestCoalescingInterceptor coalescing = nuxeoClient.getRequestCoalescing();
+        assertEquals(10, coalescing.getExecutedCount() + coalescing.getCollapsedCount());
+        assertEquals(calls.get(), coalescing.getExecutedCount());
+        assertEquals(1, calls.get());
+        // each caller has its own document
+        assertEquals(10, documents.stream().map(System::identityHashCode).distinct().count());
+        assertTrue(documents.stream().allMatch(document -> "uid".equals(document.getId())));
+    }
+
+    @Test
+    public void testCoalescedRequestIsExecutedWhenFirstIsCancelled() throws Exception {
+        CountDownLatch called = new CountDownLatch(1);
+        CountDownLatch joined = new CountDownLatch(1);
+        AtomicReference<Call> firstCall = new AtomicReference<>();
+        AtomicInteger calls = new AtomicInteger();
+        NuxeoClient.Builder builder = new NuxeoClient.Builder().coalesceRequests(newRequestCoalescing(joined));
+        NuxeoClient nuxeoClient = newClient(builder.interceptor(chain -> {
+            if (calls.incrementAndGet() == 1) {
+                firstCall.set(chain.call());
+                called.countDown();
+                while (!chain.call().isCanceled()) {
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+                }
+                throw new IOException("Canceled");
+            }
+            return chain.proceed(chain.request());
+        }));
+        Repository repository = nuxeoClient.repository();
+
+        Future<Document> first = executor.submit(() -> repository.fetchDocumentById("uid"));
+        called.await();
+        Future<Document> second = executor.submit(() -> repository.fetchDocumentById("uid"));
+        joined.await();
+        firstCall.get().cancel();
+
+        // cancellation of the first request doesn't fail the second one
+        assertEquals("uid", second.get().getId());
+        assertEquals(2, calls.get());
+        try {
+            first.get();
+            fail("First request should have been cancelled");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof NuxeoClientException);
+        }
+    }
+
+    /**
+     * @param joined the latch counted down each time a request joins an identical one
+     */
+    protected RequestCoalescingInterceptor newRequestCoalescing(CountDownLatch joined) {
+        return new RequestCoalescingInterceptor() {
+
+            @Override
+            protected boolean join(InFlightCall inFlightCall) {
+                boolean join = super.join(inFlightCall);
+                joined.countDown();
+                return join;
+            }
+
+        };
+    }
+
+    protected NuxeoClient newClient(NuxeoClient.Builder builder) {
+        return StubServer.newClient(builder, this::reply);
+    }
+
+    /**
+     * Replies a document whose id is the last segment of request path, or a 404 if it is {@code error}.
+     */
+    protected Response reply(Interceptor.Chain chain) {
+        Request request = chain.request();
+        if (request.url().encodedPath().endsWith("/error")) {
+            return StubServer.text(request, 404, "Not found");
+        }
+        return StubServer.document(request);
+    }
+
+}
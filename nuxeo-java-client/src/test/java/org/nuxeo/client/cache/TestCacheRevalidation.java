@@ -0,0 +1,196 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Kevin Leturc <kleturc@nuxeo.com>
+ */
+package org.nuxeo.client.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.nuxeo.client.HttpHeaders;
+import org.nuxeo.client.NuxeoClient;
+import org.nuxeo.client.StubServer;
+import org.nuxeo.client.objects.Document;
+import org.nuxeo.client.objects.RequestOptions;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import retrofit2.Response;
+
+/**
+ * @since 3.1
+ */
+public class TestCacheRevalidation {
+
+    protected static final String LAST_MODIFIED = "Wed, 21 Oct 2015 07:28:00 GMT";
+
+    protected StubServer server;
+
+    protected final List<String> ifNoneMatchHeaders = new CopyOnWriteArrayList<>();
+
+    protected final List<String> ifModifiedSinceHeaders = new CopyOnWriteArrayList<>();
+
+    protected final List<String> schemasHeaders = new CopyOnWriteArrayList<>();
+
+    protected volatile String changeToken = "1-0";
+
+    protected final StaleableCache cache = new StaleableCache();
+
+    protected NuxeoClient nuxeoClient;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new StubServer(this::handle);
+        nuxeoClient = server.newClient(new NuxeoClient.Builder().cache(cache));
+    }
+
+    @After
+    public void tearDown() {
+        server.close();
+    }
+
+    @Test
+    public void testStaleResponseIsRevalidated() {
+        Document document = nuxeoClient.repository().fetchDocumentById("uid");
+        assertEquals(1, ifNoneMatchHeaders.size());
+        assertNull(ifNoneMatchHeaders.get(0));
+
+        // fresh response is served from cache
+        assertSame(document, nuxeoClient.repository().fetchDocumentById("uid"));
+        assertEquals(1, ifNoneMatchHeaders.size());
+
+        // stale response is revalidated and served again on 304
+        cache.expireAll();
+        assertSame(document, nuxeoClient.repository().fetchDocumentById("uid"));
+        assertEquals(2, ifNoneMatchHeaders.size());
+        assertEquals("\"1-0\"", ifNoneMatchHeaders.get(1));
+        assertSame(document, nuxeoClient.repository().fetchDocumentById("uid"));
+        assertEquals(2, ifNoneMatchHeaders.size());
+
+        // cached response is updated with the validators of 304 response
+        assertNull(ifModifiedSinceHeaders.get(1));
+        cache.expireAll();
+        assertSame(document, nuxeoClient.repository().fetchDocumentById("uid"));
+        assertEquals(3, ifModifiedSinceHeaders.size());
+        assertEquals(LAST_MODIFIED, ifModifiedSinceHeaders.get(2));
+
+        // modified document is fetched again
+        changeToken = "2-0";
+        cache.expireAll();
+        Document modified = nuxeoClient.repository().fetchDocumentById("uid");
+        assertEquals("2-0", modified.getChangeToken());
+        assertEquals(4, ifNoneMatchHeaders.size());
+        assertEquals("\"1-0\"", ifNoneMatchHeaders.get(3));
+    }
+
+    @Test
+    public void testResponsesAreCachedPerHeaders() {
+        Document document = nuxeoClient.repository().fetchDocumentById("uid");
+        Document withSchemas = nuxeoClient.repository().fetchDocumentById("uid", new RequestOptions().schemas("*"));
+        assertEquals(2, schemasHeaders.size());
+        assertNull(schemasHeaders.get(0));
+        assertEquals("*", schemasHeaders.get(1));
+        assertNotSame(document, withSchemas);
+
+        // each response is served from cache with its headers
+        assertSame(document, nuxeoClient.repository().fetchDocumentById("uid"));
+        assertSame(withSchemas, nuxeoClient.repository().fetchDocumentById("uid", new RequestOptions().schemas("*")));
+        assertEquals(2, schemasHeaders.size());
+        assertEquals(2, cache.size());
+    }
+
+    protected void handle(HttpExchange exchange) throws IOException {
+        schemasHeaders.add(exchange.getRequestHeaders().getFirst(HttpHeaders.X_PROPERTIES));
+        String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+        ifNoneMatchHeaders.add(ifNoneMatch);
+        ifModifiedSinceHeaders.add(exchange.getRequestHeaders().getFirst("If-Modified-Since"));
+        String eTag = '"' + changeToken + '"';
+        exchange.getResponseHeaders().add("ETag", eTag);
+        if (eTag.equals(ifNoneMatch)) {
+            exchange.getResponseHeaders().add("Last-Modified", LAST_MODIFIED);
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+        byte[] bytes = ("{\"entity-type\":\"document\",\"uid\":\"uid\",\"type\":\"File\",\"changeToken\":\"" + changeToken
+                + "\"}").getBytes(StandardCharsets.UTF_8);
+        StubServer.reply(exchange, 200, "application/json", bytes);
+    }
+
+    /**
+     * Cache whose responses are fresh until {@link #expireAll()} is called.
+     */
+    protected static class StaleableCache implements RevalidatingResponseCache {
+
+        protected final Map<String, Response<?>> responses = new ConcurrentHashMap<>();
+
+        protected final Set<String> freshKeys = ConcurrentHashMap.newKeySet();
+
+        @Override
+        public <T> Response<T> getResponse(String key) {
+            return freshKeys.contains(key) ? getStaleResponse(key) : null;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> Response<T> getStaleResponse(String key) {
+            return (Response<T>) responses.get(key);
+        }
+
+        @Override
+        public void put(String key, Response<?> value) {
+            responses.put(key, value);
+            freshKeys.add(key);
+        }
+
+        @Override
+        public long size() {
+            return responses.size();
+        }
+
+        @Override
+        public <T> T getBody(String key) {
+            Response<T> response = getResponse(key);
+            return response == null ? null : response.body();
+        }
+
+        @Override
+        public void invalidateAll() {
+            responses.clear();
+            freshKeys.clear();
+        }
+
+        public void expireAll() {
+            freshKeys.clear();
+        }
+
+    }
+
+}
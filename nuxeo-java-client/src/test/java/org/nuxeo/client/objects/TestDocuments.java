@@ -0,0 +1,125 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Kevin Leturc <kleturc@nuxeo.com>
+ */
+package org.nuxeo.client.objects;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.StringJoiner;
+
+import org.junit.Test;
+import org.nuxeo.client.NuxeoClient;
+import org.nuxeo.client.StubServer;
+import org.nuxeo.client.methods.RepositoryAPI;
+
+/**
+ * @since 3.1
+ */
+public class TestDocuments {
+
+    protected static final int PAGE_SIZE = 1000;
+
+    protected final NuxeoClient nuxeoClient = new NuxeoClient(new NuxeoClient.Builder().url(StubServer.URL)) {
+    };
+
+    @Test
+    public void testReconnectPageDoesNotBuildRetrofit() {
+        Documents documents = readPage(PAGE_SIZE);
+        documents.reconnectWith(nuxeoClient);
+
+        RepositoryAPI api = nuxeoClient.getApi(RepositoryAPI.class);
+        assertEquals(PAGE_SIZE, documents.size());
+        for (Document document : documents.getDocuments()) {
+            assertSame(nuxeoClient, document.nuxeoClient);
+            assertSame(nuxeoClient.retrofit, document.retrofit);
+            assertSame(api, document.api);
+            assertNull(document.okhttpBuilder);
+            assertNull(document.retrofitBuilder);
+        }
+    }
+
+    @Test
+    public void testConfigurationIsCopiedOnWrite() {
+        Documents documents = readPage(2);
+        documents.reconnectWith(nuxeoClient);
+        Document document = documents.getDocument(0);
+
+        document.schemas("dublincore");
+
+        // header changes don't rebuild okhttp or retrofit
+        assertSame(nuxeoClient.retrofit, document.retrofit);
+        assertNull(document.okhttpBuilder);
+        assertNotSame(nuxeoClient.getApi(RepositoryAPI.class), document.api);
+        assertTrue(document.headerValues.containsKey("X-NXproperties"));
+        assertFalse(nuxeoClient.headerValues.containsKey("X-NXproperties"));
+        // other documents still share client configuration
+        assertSame(nuxeoClient.getApi(RepositoryAPI.class), documents.getDocument(1).api);
+    }
+
+    @Test
+    public void testApiIsSharedBetweenSameHeaders() {
+        Documents documents = readPage(2);
+        documents.reconnectWith(nuxeoClient);
+        Document document0 = documents.getDocument(0);
+        Document document1 = documents.getDocument(1);
+
+        document0.schemas("dublincore", "common");
+        document1.schemas("dublincore", "common");
+
+        assertEquals(document0.headers, document1.headers);
+        assertSame(document0.api, document1.api);
+        assertEquals("dublincore,common", document0.headers.get("X-NXproperties"));
+    }
+
+    @Test
+    public void testReadDocumentViews() {
+        DocumentViews views = nuxeoClient.getConverterFactory().readJSON(pageJSON(2), DocumentViews.class);
+        assertEquals(2, views.size());
+        DocumentView view = views.getDocumentView(1);
+        assertEquals("uid-1", view.getId());
+        assertEquals("/folder/doc-1", view.getPath());
+        assertEquals("File", view.getType());
+        assertEquals("Document 1", view.getPropertyValue("dc:title"));
+
+        Document document = view.toDocument(nuxeoClient);
+        assertEquals("uid-1", document.getId());
+        assertEquals("/folder/doc-1", document.getPath());
+        assertEquals("Document 1", document.getPropertyValue("dc:title"));
+        assertTrue(document.getDirtyProperties().isEmpty());
+        assertSame(nuxeoClient.getApi(RepositoryAPI.class), document.api);
+    }
+
+    protected Documents readPage(int size) {
+        return nuxeoClient.getConverterFactory().readJSON(pageJSON(size), Documents.class);
+    }
+
+    protected String pageJSON(int size) {
+        StringJoiner entries = new StringJoiner(",", "[", "]");
+        for (int i = 0; i < size; i++) {
+            entries.add("{\"entity-type\":\"document\",\"uid\":\"uid-" + i + "\",\"path\":\"/folder/doc-" + i
+                    + "\",\"type\":\"File\",\"properties\":{\"dc:title\":\"Document " + i + "\"}}");
+        }
+        return "{\"entity-type\":\"documents\",\"entries\":" + entries + "}";
+    }
+
+}
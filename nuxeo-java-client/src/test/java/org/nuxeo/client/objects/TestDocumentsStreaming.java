@@ -0,0 +1,121 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Kevin Leturc <kleturc@nuxeo.com>
+ */
+package org.nuxeo.client.objects;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+import org.nuxeo.client.HttpHeaders;
+import org.nuxeo.client.NuxeoClient;
+import org.nuxeo.client.StubServer;
+import org.nuxeo.client.spi.NuxeoClientException;
+import org.nuxeo.client.spi.NuxeoClientRemoteException;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * @since 3.1
+ */
+public class TestDocumentsStreaming {
+
+    protected static final String PAGE = "{\"entity-type\":\"documents\",\"isPaginable\":true,\"resultsCount\":3,"
+            + "\"entries\":[" + document("doc1") + "," + document("doc2") + "," + document("doc3") + "],"
+            + "\"isNextPageAvailable\":true,\"pageSize\":3}";
+
+    protected String body = PAGE;
+
+    protected int code = 200;
+
+    protected final List<Request> requests = new ArrayList<>();
+
+    protected final NuxeoClient nuxeoClient = StubServer.newClient(new NuxeoClient.Builder(), this::reply);
+
+    @Test
+    public void testDocumentsAreConsumed() {
+        List<Document> documents = new ArrayList<>();
+
+        Documents page = nuxeoClient.repository().streamQuery("SELECT * FROM Document", documents::add);
+
+        assertEquals(Arrays.asList("doc1", "doc2", "doc3"),
+                documents.stream().map(Document::getId).collect(Collectors.toList()));
+        assertEquals("Title doc2", documents.get(1).getPropertyValue("dc:title"));
+        // metadata after the entries is read
+        assertTrue(page.isNextPageAvailable());
+        assertEquals(3, page.getResultsCount());
+        assertEquals(3, page.getPageSize());
+        assertTrue(page.getEntries().isEmpty());
+    }
+
+    @Test
+    public void testDocumentsAreConsumedBeforeTheEndOfTheBody() {
+        // body is truncated after the first document
+        body = PAGE.substring(0, PAGE.indexOf(document("doc2")));
+        List<Document> documents = new ArrayList<>();
+        try {
+            nuxeoClient.repository().streamQuery("SELECT * FROM Document", documents::add);
+            fail("Truncated body should fail");
+        } catch (NuxeoClientException e) {
+            assertFalse(e instanceof NuxeoClientRemoteException);
+        }
+        assertEquals(1, documents.size());
+    }
+
+    @Test
+    public void testRepositoryHeadersAreSent() {
+        nuxeoClient.repository().schemas("dublincore").streamQuery("SELECT * FROM Document", document -> {
+        });
+
+        assertEquals(1, requests.size());
+        assertEquals("dublincore", requests.get(0).header(HttpHeaders.X_PROPERTIES));
+    }
+
+    @Test
+    public void testError() {
+        code = 500;
+        body = "Server error";
+        try {
+            nuxeoClient.repository().streamQuery("SELECT * FROM Document", document -> fail());
+            fail("Error should be thrown");
+        } catch (NuxeoClientRemoteException e) {
+            assertEquals(500, e.getStatus());
+        }
+    }
+
+    protected static String document(String id) {
+        return "{\"entity-type\":\"document\",\"uid\":\"" + id + "\",\"type\":\"File\",\"properties\":{\"dc:title\":"
+                + "\"Title " + id + "\"}}";
+    }
+
+    protected Response reply(Interceptor.Chain chain) throws IOException {
+        requests.add(chain.request());
+        return StubServer.reply(chain.request(), code, code == 200 ? "application/json" : "text/plain", body);
+    }
+
+}
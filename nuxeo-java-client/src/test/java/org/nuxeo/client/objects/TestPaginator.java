@@ -0,0 +1,127 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Kevin Leturc <kleturc@nuxeo.com>
+ */
+package org.nuxeo.client.objects;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+import org.nuxeo.client.spi.NuxeoClientException;
+
+/**
+ * @since 3.1
+ */
+public class TestPaginator {
+
+    protected static final int PAGE_SIZE = 10;
+
+    protected static final int PAGE_COUNT = 3;
+
+    protected final List<CompletableFuture<PaginableEntity<Integer>>> requestedPages = new ArrayList<>();
+
+    @Test
+    public void testAllEntriesAreIterated() {
+        Paginator<Integer> paginator = Paginator.of(this::fetchPage);
+
+        assertEquals(IntStream.range(0, PAGE_SIZE * PAGE_COUNT).boxed().collect(Collectors.toList()),
+                paginator.stream().collect(Collectors.toList()));
+        assertEquals(PAGE_COUNT, requestedPages.size());
+    }
+
+    @Test
+    public void testNextPagesArePrefetched() {
+        Paginator<Integer> paginator = Paginator.of(this::fetchPage).prefetch(2);
+
+        assertEquals(Integer.valueOf(0), paginator.next());
+        // page 0 is consumed while pages 1 and 2 are fetched
+        assertEquals(3, requestedPages.size());
+
+        paginator.stream().count();
+        // page 3 was requested while page 1 was consumed and is cancelled once page 2 is received
+        assertEquals(4, requestedPages.size());
+        assertTrue(requestedPages.get(3).isCancelled());
+    }
+
+    @Test
+    public void testNoPrefetch() {
+        Paginator<Integer> paginator = Paginator.of(this::fetchPage).prefetch(0);
+
+        paginator.next();
+        assertEquals(1, requestedPages.size());
+    }
+
+    @Test
+    public void testCloseCancelsPrefetchedPages() {
+        // next pages never complete
+        Paginator<Integer> paginator = Paginator.of(
+                pageIndex -> pageIndex == 0 ? fetchPage(0) : fetchPage(PAGE_COUNT)).prefetch(2);
+
+        assertEquals(Arrays.asList(0, 1), paginator.stream().limit(2).collect(Collectors.toList()));
+        paginator.close();
+
+        assertTrue(requestedPages.get(1).isCancelled());
+        assertTrue(requestedPages.get(2).isCancelled());
+        assertFalse(paginator.hasNext());
+    }
+
+    @Test
+    public void testFetchError() {
+        Paginator<Integer> paginator = Paginator.of(pageIndex -> {
+            CompletableFuture<PaginableEntity<Integer>> future = new CompletableFuture<>();
+            future.completeExceptionally(new NuxeoClientException("Server unavailable"));
+            return future;
+        });
+        try {
+            paginator.hasNext();
+            fail("Fetch error should be thrown");
+        } catch (NuxeoClientException e) {
+            assertEquals("Server unavailable", e.getMessage());
+        }
+    }
+
+    protected CompletableFuture<PaginableEntity<Integer>> fetchPage(int pageIndex) {
+        // pages after the last one are never completed as the server would answer after they're cancelled
+        CompletableFuture<PaginableEntity<Integer>> future = pageIndex < PAGE_COUNT
+                ? CompletableFuture.completedFuture(new Page(pageIndex)) : new CompletableFuture<>();
+        requestedPages.add(future);
+        return future;
+    }
+
+    protected static class Page extends PaginableEntity<Integer> {
+
+        protected Page(int pageIndex) {
+            super("page");
+            entries = IntStream.range(pageIndex * PAGE_SIZE, (pageIndex + 1) * PAGE_SIZE)
+                               .boxed()
+                               .collect(Collectors.toList());
+            isNextPageAvailable = pageIndex + 1 < PAGE_COUNT;
+        }
+
+    }
+
+}
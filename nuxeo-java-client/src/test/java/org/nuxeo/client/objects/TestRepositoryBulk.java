@@ -0,0 +1,214 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Kevin Leturc <kleturc@nuxeo.com>
+ */
+package org.nuxeo.client.objects;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+import org.nuxeo.client.NuxeoClient;
+import org.nuxeo.client.StubServer;
+import org.nuxeo.client.objects.bulk.BulkItem;
+import org.nuxeo.client.objects.bulk.BulkOptions;
+import org.nuxeo.client.objects.bulk.BulkResult;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+import okio.Buffer;
+
+/**
+ * @since 3.1
+ */
+public class TestRepositoryBulk {
+
+    protected static final Pattern DOC_REFS = Pattern.compile("\"input\":\"docs:([^\"]*)\"");
+
+    protected static final Pattern NAME = Pattern.compile("\"name\":\"([^\"]*)\"");
+
+    protected static final Pattern LITERAL = Pattern.compile("'([^']*)'");
+
+    protected final List<Request> requests = Collections.synchronizedList(new ArrayList<>());
+
+    protected final NuxeoClient nuxeoClient = StubServer.newClient(new NuxeoClient.Builder(), this::reply);
+
+    @Test
+    public void testDocumentsWithSameChangesAreBatched() {
+        List<Document> documents = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            documents.add(newDocument("doc" + i, "dc:description", "Reviewed"));
+        }
+        documents.add(newDocument("other", "dc:description", "Draft"));
+
+        BulkResult<Document> result = nuxeoClient.repository()
+                                                 .updateDocuments(documents, new BulkOptions().batchSize(2));
+
+        assertTrue(String.valueOf(result.getFailures()), result.isSuccessful());
+        assertEquals(Arrays.asList("doc0", "doc1", "doc2", "doc3", "doc4", "other"),
+                result.getResults().stream().map(Document::getId).collect(Collectors.toList()));
+        // 3 batches of same changes and 1 single update
+        List<String> paths = requests.stream().map(request -> request.url().encodedPath()).collect(Collectors.toList());
+        assertEquals(4, paths.size());
+        assertEquals(3, paths.stream().filter(path -> path.endsWith("/automation/Document.Update")).count());
+        assertTrue(paths.contains("/nuxeo/api/v1/id/other"));
+    }
+
+    @Test
+    public void testFailuresAreReportedPerDocument() {
+        List<Document> documents = Arrays.asList(newDocument("doc", "dc:title", "A"),
+                newDocument("missing", "dc:title", "B"));
+
+        BulkResult<Document> result = nuxeoClient.repository().updateDocuments(documents);
+
+        assertFalse(result.isSuccessful());
+        assertEquals("doc", result.getResult("doc").getId());
+        assertEquals(Collections.singleton("missing"), result.getFailures().keySet());
+    }
+
+    @Test
+    public void testChildrenAreCreatedUnderTheirCreatedParent() {
+        List<Document> documents = Arrays.asList(Document.createWithName("folder", "Folder"),
+                Document.createWithName("folder/file1", "File"), Document.createWithName("missing", "Folder"),
+                Document.createWithName("missing/file2", "File"), Document.createWithName("other/file3", "File"));
+
+        Map<String, BulkItem<Document, Document>> items = nuxeoClient.repository()
+                                                                     .createDocuments("/ws", documents,
+                                                                             new BulkOptions().parallelism(2))
+                                                                     .collect(Collectors.toMap(
+                                                                             item -> item.getInput().getName(),
+                                                                             Function.identity()));
+
+        assertEquals(5, items.size());
+        assertEquals("uid-folder", items.get("folder").getResult().getId());
+        assertEquals("uid-file1", items.get("folder/file1").getResult().getId());
+        assertFalse(items.get("missing").isSuccessful());
+        assertFalse(items.get("missing/file2").isSuccessful());
+        assertTrue(items.get("missing/file2").getFailure().getMessage().contains("missing"));
+        assertTrue(items.get("other/file3").isSuccessful());
+        // input documents are returned untouched
+        assertSame(documents.get(1), items.get("folder/file1").getInput());
+        // child of a created parent is created by id, child of a failed parent is not sent
+        List<String> paths = requests.stream().map(request -> request.url().encodedPath()).collect(Collectors.toList());
+        assertEquals(4, paths.size());
+        assertTrue(paths.contains("/nuxeo/api/v1/id/uid-folder"));
+        assertTrue(paths.contains("/nuxeo/api/v1/path/ws/other"));
+    }
+
+    @Test
+    public void testFetchDocumentsByIdsIsChunked() {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            ids.add("doc" + i);
+        }
+        ids.add(100, "missing");
+
+        BulkResult<Document> result = nuxeoClient.repository().fetchDocumentsByIds(ids);
+
+        List<String> expected = new ArrayList<>(ids);
+        expected.remove("missing");
+        assertEquals(expected, result.getResults().stream().map(Document::getId).collect(Collectors.toList()));
+        assertEquals(Collections.singleton("missing"), result.getFailures().keySet());
+        assertEquals(3, requests.size());
+    }
+
+    @Test
+    public void testFetchDocumentsByPathsStaysUnderQueryLength() {
+        String folder = "/default-domain/workspaces/" + String.join("", Collections.nCopies(100, "folder"));
+        List<String> paths = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            paths.add(folder + "/doc" + i);
+        }
+
+        BulkResult<Document> result = nuxeoClient.repository().fetchDocumentsByPaths(paths);
+
+        assertTrue(String.valueOf(result.getFailures()), result.isSuccessful());
+        assertEquals(paths, result.getResults().stream().map(Document::getPath).collect(Collectors.toList()));
+        assertTrue(requests.size() > 1);
+        for (Request request : requests) {
+            String query = request.url().queryParameter("query");
+            assertTrue(query.length() <= Repository.MAX_QUERY_LENGTH);
+        }
+    }
+
+    protected Document newDocument(String id, String property, Object value) {
+        Document document = Document.createWithId(id, "File");
+        document.setPropertyValue(property, value);
+        return document;
+    }
+
+    protected Response reply(Interceptor.Chain chain) throws IOException {
+        Request request = chain.request();
+        requests.add(request);
+        String path = request.url().encodedPath();
+        List<String> ids;
+        if ("POST".equals(request.method()) && !path.contains("automation")) {
+            // document creation
+            Buffer buffer = new Buffer();
+            request.body().writeTo(buffer);
+            Matcher matcher = NAME.matcher(buffer.readUtf8());
+            assertTrue(matcher.find());
+            String name = matcher.group(1);
+            ids = Collections.singletonList("missing".equals(name) ? name : "uid-" + name);
+        } else if (path.endsWith("/query")) {
+            ids = new ArrayList<>();
+            Matcher matcher = LITERAL.matcher(request.url().queryParameter("query"));
+            while (matcher.find()) {
+                if (!"missing".equals(matcher.group(1))) {
+                    ids.add(matcher.group(1));
+                }
+            }
+        } else if (path.endsWith("/automation/Document.Update")) {
+            Buffer buffer = new Buffer();
+            request.body().writeTo(buffer);
+            Matcher matcher = DOC_REFS.matcher(buffer.readUtf8());
+            assertTrue(matcher.find());
+            ids = Arrays.asList(matcher.group(1).split(","));
+        } else {
+            ids = Collections.singletonList(path.substring(path.lastIndexOf('/') + 1));
+        }
+        if (ids.contains("missing")) {
+            return StubServer.text(request, 404, "not found");
+        }
+        List<String> entries = ids.stream()
+                                  .map(id -> "{\"entity-type\":\"document\",\"uid\":\"" + id + "\",\"path\":\"" + id
+                                          + "\",\"type\":\"File\"}")
+                                  .collect(Collectors.toList());
+        String json = entries.get(0);
+        String entityType = "document";
+        if (path.contains("automation") || path.endsWith("/query")) {
+            json = "{\"entity-type\":\"documents\",\"entries\":[" + String.join(",", entries) + "]}";
+            entityType = "documents";
+        }
+        return StubServer.reply(request, 200, "application/json; nuxeo-entity=" + entityType, json);
+    }
+
+}
@@ -0,0 +1,172 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Kevin Leturc <kleturc@nuxeo.com>
+ */
+package org.nuxeo.client.objects;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+import org.nuxeo.client.NuxeoClient;
+import org.nuxeo.client.StubServer;
+import org.nuxeo.client.objects.walk.VisitResult;
+import org.nuxeo.client.objects.walk.WalkOptions;
+import org.nuxeo.client.objects.walk.WalkResult;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Walks a tree where each folder "f..." has {@link #FOLDERS} sub folders and {@link #FILES} files, down to depth
+ * {@link #DEPTH}.
+ *
+ * @since 3.1
+ */
+public class TestRepositoryWalk {
+
+    protected static final int FOLDERS = 3;
+
+    protected static final int FILES = 4;
+
+    protected static final int DEPTH = 3;
+
+    protected static final int PAGE_SIZE = 5;
+
+    protected final AtomicInteger inFlight = new AtomicInteger();
+
+    protected final AtomicInteger maxInFlight = new AtomicInteger();
+
+    protected final Set<String> childrenFetched = ConcurrentHashMap.newKeySet();
+
+    protected final NuxeoClient nuxeoClient = StubServer.newClient(new NuxeoClient.Builder(), this::reply);
+
+    @Test
+    public void testWalk() {
+        Map<String, Integer> visited = new ConcurrentHashMap<>();
+
+        WalkResult result = nuxeoClient.repository().walk("/root", (document, depth) -> {
+            assertTrue(visited.put(document.getId(), depth) == null);
+            return VisitResult.CONTINUE;
+        }, new WalkOptions().maxDepth(DEPTH).pageSize(PAGE_SIZE).parallelism(2));
+
+        // 1 + 3 + 9 + 27 folders and 4 files per folder above the last level
+        assertEquals(1 + 3 + 9 + 27 + 4 * 13, visited.size());
+        assertEquals(visited.size(), result.getVisitedCount());
+        assertTrue(result.isSuccessful());
+        assertFalse(result.isTerminated());
+        assertEquals(Integer.valueOf(0), visited.get("f"));
+        assertEquals(Integer.valueOf(3), visited.get("f012"));
+        // files and folders at max depth are not fetched
+        assertEquals(13, childrenFetched.size());
+        assertTrue(maxInFlight.get() <= 2);
+    }
+
+    @Test
+    public void testDepthTypesAndPruning() {
+        Set<String> visited = ConcurrentHashMap.newKeySet();
+
+        WalkResult result = nuxeoClient.repository().walk("/root", (document, depth) -> {
+            visited.add(document.getId());
+            return "f1".equals(document.getId()) ? VisitResult.SKIP_CHILDREN : VisitResult.CONTINUE;
+        }, new WalkOptions().maxDepth(2).types("Folder"));
+
+        Set<String> expected = IntStream.range(0, FOLDERS)
+                                        .boxed()
+                                        .flatMap(i -> IntStream.range(0, FOLDERS).mapToObj(j -> "f" + i + j))
+                                        .filter(id -> !id.startsWith("f1"))
+                                        .collect(Collectors.toSet());
+        expected.addAll(Arrays.asList("f", "f0", "f1", "f2"));
+        assertEquals(expected, visited);
+        assertEquals(Collections.emptyMap(), result.getFailures());
+    }
+
+    @Test
+    public void testTerminate() {
+        AtomicInteger count = new AtomicInteger();
+
+        WalkResult result = nuxeoClient.repository()
+                                       .walk("/root",
+                                               (document, depth) -> count.incrementAndGet() == 10
+                                                       ? VisitResult.TERMINATE : VisitResult.CONTINUE,
+                                               new WalkOptions().parallelism(1));
+
+        assertTrue(result.isTerminated());
+        assertEquals(10, result.getVisitedCount());
+    }
+
+    protected Response reply(Interceptor.Chain chain) throws IOException {
+        Request request = chain.request();
+        String path = request.url().encodedPath();
+        String json;
+        String entityType = "documents";
+        if (path.endsWith("/path/root")) {
+            json = folder("f");
+            entityType = "document";
+        } else {
+            String parentId = path.substring(0, path.lastIndexOf("/@children"));
+            parentId = parentId.substring(parentId.lastIndexOf('/') + 1);
+            childrenFetched.add(parentId);
+            int current = inFlight.incrementAndGet();
+            maxInFlight.accumulateAndGet(current, Math::max);
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            inFlight.decrementAndGet();
+            json = children(parentId, Integer.parseInt(request.url().queryParameter("currentPageIndex")));
+        }
+        return StubServer.reply(request, 200, "application/json; nuxeo-entity=" + entityType, json);
+    }
+
+    protected String children(String parentId, int pageIndex) {
+        List<String> children = new ArrayList<>();
+        if (parentId.length() <= DEPTH) {
+            for (int i = 0; i < FOLDERS; i++) {
+                children.add(folder(parentId + i));
+            }
+            for (int i = 0; i < FILES; i++) {
+                children.add("{\"entity-type\":\"document\",\"uid\":\"" + parentId + "-file" + i
+                        + "\",\"type\":\"File\",\"facets\":[]}");
+            }
+        }
+        int from = Math.min(pageIndex * PAGE_SIZE, children.size());
+        int to = Math.min(from + PAGE_SIZE, children.size());
+        return "{\"entity-type\":\"documents\",\"isNextPageAvailable\":" + (to < children.size()) + ",\"entries\":["
+                + String.join(",", children.subList(from, to)) + "]}";
+    }
+
+    protected String folder(String id) {
+        return "{\"entity-type\":\"document\",\"uid\":\"" + id + "\",\"type\":\"Folder\",\"facets\":[\"Folderish\"]}";
+    }
+
+}
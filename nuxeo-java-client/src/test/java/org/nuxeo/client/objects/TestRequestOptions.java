@@ -0,0 +1,103 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Kevin Leturc <kleturc@nuxeo.com>
+ */
+package org.nuxeo.client.objects;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.nuxeo.client.HttpHeaders;
+import org.nuxeo.client.NuxeoClient;
+import org.nuxeo.client.StubServer;
+import org.nuxeo.client.methods.RepositoryAPI;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * @since 3.1
+ */
+public class TestRequestOptions {
+
+    protected final List<Request> requests = new ArrayList<>();
+
+    protected final List<Integer> readTimeouts = new ArrayList<>();
+
+    protected final NuxeoClient nuxeoClient = StubServer.newClient(new NuxeoClient.Builder(), this::reply).schemas("common");
+
+    @Test
+    public void testOptionsAreAppliedToCallOnly() {
+        Repository repository = nuxeoClient.repository();
+        RepositoryAPI api = repository.api;
+
+        RequestOptions options = new RequestOptions().schemas("dublincore").depth("children").readTimeout(42);
+        Document document = repository.fetchDocumentById("uid", options);
+        repository.fetchDocumentById("uid");
+
+        assertEquals("uid", document.getId());
+        assertEquals(2, requests.size());
+        // first call has options on top of repository headers
+        Request request = requests.get(0);
+        assertEquals("dublincore", request.header(HttpHeaders.X_PROPERTIES));
+        assertEquals("children", request.header(HttpHeaders.DEPTH));
+        assertEquals(42_000, readTimeouts.get(0).intValue());
+        // second call only has repository headers
+        request = requests.get(1);
+        assertEquals("common", request.header(HttpHeaders.X_PROPERTIES));
+        assertNull(request.header(HttpHeaders.DEPTH));
+        // repository hasn't been mutated
+        assertSame(api, repository.api);
+        assertEquals("common", repository.headers.get(HttpHeaders.X_PROPERTIES));
+    }
+
+    @Test
+    public void testApiIsSharedBetweenSameOptions() {
+        Repository repository = nuxeoClient.repository();
+
+        RepositoryAPI api1 = repository.getApi(RepositoryAPI.class, new RequestOptions().schemas("dublincore"));
+        RepositoryAPI api2 = repository.getApi(RepositoryAPI.class, new RequestOptions().schemas("dublincore"));
+
+        assertSame(api1, api2);
+        assertSame(repository.api, repository.getApi(RepositoryAPI.class, new RequestOptions()));
+    }
+
+    @Test
+    public void testApiCacheIsBounded() {
+        Repository repository = nuxeoClient.repository();
+
+        for (int i = 0; i < ApiCache.MAX_CONTEXTS * 2; i++) {
+            repository.fetchDocumentById("uid", new RequestOptions().readTimeout(i + 1));
+        }
+
+        assertEquals(ApiCache.MAX_CONTEXTS, repository.apis.size());
+        assertEquals(ApiCache.MAX_CONTEXTS * 2, requests.size());
+    }
+
+    protected Response reply(Interceptor.Chain chain) {
+        requests.add(chain.request());
+        readTimeouts.add(chain.readTimeoutMillis());
+        return StubServer.document(chain.request());
+    }
+
+}
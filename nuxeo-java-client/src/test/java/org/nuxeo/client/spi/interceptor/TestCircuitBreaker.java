@@ -0,0 +1,160 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Kevin Leturc <kleturc@nuxeo.com>
+ */
+package org.nuxeo.client.spi.interceptor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import org.junit.Test;
+import org.nuxeo.client.NuxeoClient;
+import org.nuxeo.client.StubServer;
+import org.nuxeo.client.spi.NuxeoClientException;
+import org.nuxeo.client.spi.interceptor.CircuitBreakerInterceptor.State;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * @since 3.1
+ */
+public class TestCircuitBreaker {
+
+    protected static final String GROUP = "localhost:8080/id";
+
+    protected final AtomicInteger calls = new AtomicInteger();
+
+    protected final AtomicBoolean healthy = new AtomicBoolean();
+
+    @Test
+    public void testEndpointGroup() {
+        assertEquals(GROUP, CircuitBreakerPolicy.endpointGroup(
+                new Request.Builder().url("http://localhost:8080/nuxeo/api/v1/id/uid").build()));
+        assertEquals("localhost:8080/automation", CircuitBreakerPolicy.endpointGroup(
+                new Request.Builder().url("http://localhost:8080/nuxeo/api/v1/automation/Document.Fetch").build()));
+        assertEquals("localhost:8080", CircuitBreakerPolicy.endpointGroup(
+                new Request.Builder().url("http://localhost:8080/nuxeo/site/foo").build()));
+    }
+
+    @Test
+    public void testCircuitOpensAndRecovers() throws Exception {
+        NuxeoClient nuxeoClient = newClient(new CircuitBreakerPolicy().failureRate(0.5, 10, 4)
+                                                                      .openDuration(100, TimeUnit.MILLISECONDS)
+                                                                      .probeCalls(2));
+        CircuitBreakerInterceptor circuitBreaker = nuxeoClient.getCircuitBreaker();
+
+        for (int i = 0; i < 4; i++) {
+            assertEquals(503, fetch(nuxeoClient));
+        }
+        assertEquals(State.OPEN, circuitBreaker.getState(GROUP));
+        // request fails fast
+        try {
+            fetch(nuxeoClient);
+            fail("Request should have been rejected");
+        } catch (NuxeoClientException e) {
+            assertTrue(e.getCause() instanceof CircuitBreakerOpenException);
+        }
+        assertEquals(4, calls.get());
+        assertEquals(1, circuitBreaker.getRejectedCount());
+        // other groups are not affected
+        assertEquals(State.CLOSED, circuitBreaker.getState("localhost:8080/path"));
+
+        Thread.sleep(150);
+        assertEquals(State.HALF_OPEN, circuitBreaker.getState(GROUP));
+        healthy.set(true);
+        assertEquals(200, fetch(nuxeoClient));
+        assertEquals(State.HALF_OPEN, circuitBreaker.getState(GROUP));
+        assertEquals(200, fetch(nuxeoClient));
+        assertEquals(State.CLOSED, circuitBreaker.getState(GROUP));
+    }
+
+    @Test
+    public void testFailedProbeOpensCircuit() throws Exception {
+        NuxeoClient nuxeoClient = newClient(new CircuitBreakerPolicy().failureRate(1, 2, 2)
+                                                                      .openDuration(100, TimeUnit.MILLISECONDS));
+        CircuitBreakerInterceptor circuitBreaker = nuxeoClient.getCircuitBreaker();
+        fetch(nuxeoClient);
+        fetch(nuxeoClient);
+        assertEquals(State.OPEN, circuitBreaker.getState(GROUP));
+
+        Thread.sleep(150);
+        assertEquals(503, fetch(nuxeoClient));
+        assertEquals(State.OPEN, circuitBreaker.getState(GROUP));
+    }
+
+    @Test
+    public void testCancelledHedgesAreNotFailures() throws Exception {
+        int reads = 3;
+        CountDownLatch completed = new CountDownLatch(2 * reads);
+        // first attempt of each read is slow and loses against its hedge
+        Interceptor server = chain -> {
+            if (calls.incrementAndGet() % 2 == 1) {
+                long timeout = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+                while (!chain.call().isCanceled() && System.nanoTime() < timeout) {
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+                }
+                throw new IOException("Canceled");
+            }
+            return StubServer.document(chain.request());
+        };
+        NuxeoClient nuxeoClient = StubServer.newClient(
+                new NuxeoClient.Builder().hedging(new HedgingPolicy().initialDelay(50, TimeUnit.MILLISECONDS))
+                                         .interceptor(chain -> {
+                                             try {
+                                                 return chain.proceed(chain.request());
+                                             } finally {
+                                                 completed.countDown();
+                                             }
+                                         })
+                                         .circuitBreaker(new CircuitBreakerPolicy().failureRate(0.5, 10, 2)),
+                server);
+
+        for (int i = 0; i < reads; i++) {
+            assertEquals("uid", nuxeoClient.repository().fetchDocumentById("uid").getId());
+        }
+
+        assertTrue(completed.await(10, TimeUnit.SECONDS));
+        assertEquals(reads, nuxeoClient.getHedgingInterceptor().getHedgeWonCount());
+        assertEquals(State.CLOSED, nuxeoClient.getCircuitBreaker().getState(GROUP));
+    }
+
+    protected int fetch(NuxeoClient nuxeoClient) {
+        try (Response response = nuxeoClient.get(StubServer.URL + "/api/v1/id/uid")) {
+            return response.code();
+        }
+    }
+
+    protected NuxeoClient newClient(CircuitBreakerPolicy policy) {
+        Interceptor server = chain -> {
+            calls.incrementAndGet();
+            return StubServer.reply(chain.request(), healthy.get() ? 200 : 503, "application/json",
+                    StubServer.DOCUMENT_JSON);
+        };
+        return StubServer.newClient(new NuxeoClient.Builder().circuitBreaker(policy), server);
+    }
+
+}
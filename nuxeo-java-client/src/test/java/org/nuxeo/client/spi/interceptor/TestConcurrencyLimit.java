@@ -0,0 +1,163 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Kevin Leturc <kleturc@nuxeo.com>
+ */
+package org.nuxeo.client.spi.interceptor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.junit.After;
+import org.junit.Test;
+import org.nuxeo.client.NuxeoClient;
+import org.nuxeo.client.StubServer;
+import org.nuxeo.client.objects.Document;
+import org.nuxeo.client.objects.Repository;
+import org.nuxeo.client.objects.RequestOptions;
+import org.nuxeo.client.spi.NuxeoClientException;
+
+import okhttp3.Interceptor;
+
+/**
+ * @since 3.1
+ */
+public class TestConcurrencyLimit {
+
+    protected final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testAimdLimit() {
+        AimdConcurrencyLimit limit = new AimdConcurrencyLimit(10, 1, 11, 0.5, 1, TimeUnit.SECONDS);
+
+        // limit isn't used
+        limit.onSample(1, 1, false);
+        assertEquals(10, limit.getLimit());
+        // limit is used
+        limit.onSample(1, 10, false);
+        assertEquals(11, limit.getLimit());
+        limit.onSample(1, 11, false);
+        assertEquals(11, limit.getLimit());
+        // dropped request
+        limit.onSample(1, 11, true);
+        assertEquals(5, limit.getLimit());
+        // slow request
+        limit.onSample(TimeUnit.SECONDS.toNanos(2), 5, false);
+        assertEquals(2, limit.getLimit());
+    }
+
+    @Test
+    public void testGradientLimit() {
+        GradientConcurrencyLimit limit = new GradientConcurrencyLimit(20, 1, 200, 1, 10);
+
+        // stable latency makes the limit grow
+        limit.onSample(100, 20, false);
+        assertTrue(limit.getLimit() > 20);
+        int grownLimit = limit.getLimit();
+        // higher latency makes the limit decrease
+        limit.onSample(1000, grownLimit, false);
+        assertTrue(limit.getLimit() < grownLimit);
+    }
+
+    @Test
+    public void testCancelledRequestsAreNotDrops() {
+        ConcurrencyLimitInterceptor limiter = new ConcurrencyLimitInterceptor(
+                new AimdConcurrencyLimit(10, 1, 10, 0.5, 1, TimeUnit.MINUTES), 0, 1, TimeUnit.SECONDS);
+        Interceptor server = chain -> {
+            if (chain.request().url().encodedPath().endsWith("broken")) {
+                throw new IOException("Connection reset");
+            }
+            // wait for the deadline cancellation
+            while (!chain.call().isCanceled()) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(5));
+            }
+            throw new IOException("Canceled");
+        };
+        NuxeoClient nuxeoClient = StubServer.newClient(new NuxeoClient.Builder().concurrencyLimiter(limiter),
+                server);
+        Repository repository = nuxeoClient.repository();
+
+        for (int i = 0; i < 3; i++) {
+            try {
+                repository.fetchDocumentById("uid", new RequestOptions().deadline(20, TimeUnit.MILLISECONDS));
+                fail("Call should have exceeded its deadline");
+            } catch (NuxeoClientException e) {
+                // expected
+            }
+        }
+        assertEquals(10, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+
+        // I/O errors are drops
+        try {
+            repository.fetchDocumentById("broken");
+            fail("Call should have failed");
+        } catch (NuxeoClientException e) {
+            // expected
+        }
+        assertEquals(5, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    public void testRequestIsRejectedWhenQueueIsFull() throws Exception {
+        CountDownLatch called = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ConcurrencyLimitInterceptor limiter = new ConcurrencyLimitInterceptor(
+                new AimdConcurrencyLimit(1, 1, 1, 0.5, 1, TimeUnit.MINUTES), 0, 1, TimeUnit.SECONDS);
+        Interceptor blockingServer = chain -> {
+            called.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return StubServer.document(chain.request());
+        };
+        NuxeoClient nuxeoClient = StubServer.newClient(new NuxeoClient.Builder().concurrencyLimiter(limiter),
+                blockingServer);
+        Repository repository = nuxeoClient.repository();
+
+        Future<Document> future = executor.submit(() -> repository.fetchDocumentById("uid"));
+        called.await();
+        assertEquals(1, limiter.getInFlight());
+        try {
+            repository.fetchDocumentById("uid");
+            fail("Request should have been rejected");
+        } catch (NuxeoClientException e) {
+            assertTrue(e.getCause() instanceof ConcurrencyLimitExceededException);
+        }
+        release.countDown();
+
+        assertEquals("uid", future.get().getId());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+}
@@ -0,0 +1,170 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Kevin Leturc <kleturc@nuxeo.com>
+ */
+package org.nuxeo.client.spi.interceptor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.nuxeo.client.HttpHeaders;
+import org.nuxeo.client.NuxeoClient;
+import org.nuxeo.client.StubServer;
+import org.nuxeo.client.objects.RequestOptions;
+import org.nuxeo.client.spi.NuxeoClientException;
+import org.nuxeo.client.spi.NuxeoClientRemoteException;
+
+import com.sun.net.httpserver.HttpExchange;
+
+/**
+ * @since 3.1
+ */
+public class TestDeadline {
+
+    protected static final byte[] DOCUMENT_JSON = StubServer.DOCUMENT_JSON.getBytes(StandardCharsets.UTF_8);
+
+    protected StubServer server;
+
+    protected final List<String> transactionTimeouts = new CopyOnWriteArrayList<>();
+
+    protected final List<String> deadlineHeaders = new CopyOnWriteArrayList<>();
+
+    protected volatile long headersDelay;
+
+    protected volatile long bodyDelay;
+
+    protected volatile int status = 200;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new StubServer(this::handle);
+    }
+
+    @After
+    public void tearDown() {
+        server.close();
+    }
+
+    @Test
+    public void testTransactionTimeoutIsRemainingTime() {
+        newClient(null).repository()
+                       .fetchDocumentById("uid", new RequestOptions().deadline(5, TimeUnit.SECONDS));
+        assertEquals(1, transactionTimeouts.size());
+        assertEquals("5", transactionTimeouts.get(0));
+
+        // the lowest transaction timeout wins
+        newClient(null).repository()
+                       .fetchDocumentById("uid",
+                               new RequestOptions().transactionTimeout(2).deadline(5, TimeUnit.SECONDS));
+        assertEquals("2", transactionTimeouts.get(1));
+        // deadline header is only read by the client
+        assertEquals(Arrays.asList(null, null), deadlineHeaders);
+    }
+
+    @Test
+    public void testSlowResponseIsCancelled() {
+        headersDelay = 2000;
+        assertDeadlineExceeded(newClient(null), 300);
+    }
+
+    @Test
+    public void testSlowBodyIsCancelled() {
+        bodyDelay = 2000;
+        assertDeadlineExceeded(newClient(null), 300);
+    }
+
+    @Test
+    public void testRetriesAreBoundedByDeadline() {
+        status = 503;
+        RetryPolicy policy = new RetryPolicy().backoff(500, 1000, TimeUnit.MILLISECONDS).jitter(0);
+        NuxeoClient nuxeoClient = newClient(policy);
+        try {
+            nuxeoClient.repository().fetchDocumentById("uid", new RequestOptions().deadline(300, TimeUnit.MILLISECONDS));
+            fail("Call should have failed");
+        } catch (NuxeoClientRemoteException e) {
+            assertEquals(503, e.getStatus());
+        }
+        // backoff is longer than the deadline, request is not retried
+        assertEquals(1, transactionTimeouts.size());
+        assertEquals(0, nuxeoClient.getRetryInterceptor().getRetryCount());
+    }
+
+    protected void assertDeadlineExceeded(NuxeoClient nuxeoClient, long deadline) {
+        long start = System.nanoTime();
+        try {
+            nuxeoClient.repository()
+                       .fetchDocumentById("uid", new RequestOptions().deadline(deadline, TimeUnit.MILLISECONDS));
+            fail("Call should have exceeded its deadline");
+        } catch (NuxeoClientException e) {
+            assertTrue(String.valueOf(e.getCause()), e.getCause() instanceof DeadlineExceededException);
+        }
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue("elapsed=" + elapsed, elapsed >= deadline && elapsed < 1500);
+    }
+
+    protected NuxeoClient newClient(RetryPolicy policy) {
+        NuxeoClient.Builder builder = new NuxeoClient.Builder();
+        if (policy != null) {
+            builder.retryPolicy(policy);
+        }
+        return server.newClient(builder);
+    }
+
+    protected void handle(HttpExchange exchange) throws IOException {
+        transactionTimeouts.add(exchange.getRequestHeaders().getFirst(HttpHeaders.NUXEO_TX_TIMEOUT));
+        deadlineHeaders.add(exchange.getRequestHeaders().getFirst(HttpHeaders.X_DEADLINE));
+        try (OutputStream out = exchange.getResponseBody()) {
+            sleep(headersDelay);
+            if (status != 200) {
+                byte[] bytes = "unavailable".getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("Content-Type", "text/plain");
+                exchange.sendResponseHeaders(status, bytes.length);
+                out.write(bytes);
+                return;
+            }
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, DOCUMENT_JSON.length);
+            out.write(DOCUMENT_JSON, 0, 10);
+            out.flush();
+            sleep(bodyDelay);
+            out.write(DOCUMENT_JSON, 10, DOCUMENT_JSON.length - 10);
+        } catch (IOException e) {
+            // client went away
+        }
+    }
+
+    protected void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
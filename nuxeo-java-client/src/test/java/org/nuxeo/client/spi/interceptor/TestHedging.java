@@ -0,0 +1,166 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Kevin Leturc <kleturc@nuxeo.com>
+ */
+package org.nuxeo.client.spi.interceptor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+import org.nuxeo.client.NuxeoClient;
+import org.nuxeo.client.StubServer;
+import org.nuxeo.client.objects.Document;
+import org.nuxeo.client.objects.RequestOptions;
+import org.nuxeo.client.spi.NuxeoClientException;
+
+import okhttp3.Interceptor;
+
+/**
+ * @since 3.1
+ */
+public class TestHedging {
+
+    protected final AtomicInteger calls = new AtomicInteger();
+
+    protected final CountDownLatch release = new CountDownLatch(1);
+
+    protected final List<Thread> threads = new CopyOnWriteArrayList<>();
+
+    @After
+    public void tearDown() {
+        release.countDown();
+    }
+
+    @Test
+    public void testSlowReadIsHedged() {
+        NuxeoClient nuxeoClient = newClient(new HedgingPolicy(), 1);
+
+        long start = System.nanoTime();
+        Document document = nuxeoClient.repository().fetchDocumentById("uid");
+
+        assertEquals("uid", document.getId());
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+        assertEquals(2, calls.get());
+        // read is sent on the caller thread, only the hedged request is sent by the executor
+        assertEquals(Thread.currentThread(), threads.get(0));
+        assertNotEquals(Thread.currentThread(), threads.get(1));
+        assertEquals(1, nuxeoClient.getHedgingInterceptor().getHedgedCount());
+        assertEquals(1, nuxeoClient.getHedgingInterceptor().getHedgeWonCount());
+    }
+
+    @Test
+    public void testSlowAsyncReadIsHedged() {
+        NuxeoClient nuxeoClient = newClient(new HedgingPolicy(), 1);
+
+        Document document = nuxeoClient.repository().fetchDocumentByIdAsync("uid").join();
+
+        assertEquals("uid", document.getId());
+        assertEquals(2, calls.get());
+        assertEquals(1, nuxeoClient.getHedgingInterceptor().getHedgeWonCount());
+    }
+
+    @Test(timeout = 10_000)
+    public void testCancellationIsPropagatedToRead() {
+        NuxeoClient nuxeoClient = newClient(new HedgingPolicy().budget(0, 0), 1);
+
+        try {
+            nuxeoClient.repository()
+                       .fetchDocumentById("uid", new RequestOptions().deadline(100, TimeUnit.MILLISECONDS));
+            fail("Call should have exceeded its deadline");
+        } catch (NuxeoClientException e) {
+            // expected
+        }
+
+        // slow read was cancelled with the call
+        assertEquals(1, calls.get());
+        assertEquals(0, nuxeoClient.getHedgingInterceptor().getHedgedCount());
+    }
+
+    @Test
+    public void testFastReadIsNotHedged() {
+        NuxeoClient nuxeoClient = newClient(new HedgingPolicy().initialDelay(5, TimeUnit.SECONDS), 0);
+
+        nuxeoClient.repository().fetchDocumentById("uid");
+
+        assertEquals(1, calls.get());
+        assertEquals(0, nuxeoClient.getHedgingInterceptor().getHedgedCount());
+    }
+
+    @Test
+    public void testHedgingBudget() {
+        NuxeoClient nuxeoClient = newClient(new HedgingPolicy().budget(0, 0), 1);
+        new Thread(() -> {
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            release.countDown();
+        }).start();
+
+        Document document = nuxeoClient.repository().fetchDocumentById("uid");
+
+        assertEquals("uid", document.getId());
+        assertEquals(1, calls.get());
+        assertEquals(1, nuxeoClient.getHedgingInterceptor().getBudgetExhaustedCount());
+    }
+
+    @Test
+    public void testDelayFollowsPercentile() {
+        HedgingInterceptor interceptor = new HedgingInterceptor(
+                new HedgingPolicy().percentile(0.9, 100, 50).minDelay(1, TimeUnit.MILLISECONDS));
+        for (int i = 1; i <= 100; i++) {
+            interceptor.record(TimeUnit.MILLISECONDS.toNanos(i));
+        }
+        assertEquals(90, interceptor.getHedgeDelay());
+    }
+
+    /**
+     * @param slowCalls the number of requests waiting for the end of test, or their cancellation, before replying
+     */
+    protected NuxeoClient newClient(HedgingPolicy policy, int slowCalls) {
+        policy.initialDelay(50, TimeUnit.MILLISECONDS);
+        Interceptor server = chain -> {
+            threads.add(Thread.currentThread());
+            if (calls.incrementAndGet() <= slowCalls) {
+                try {
+                    while (!release.await(10, TimeUnit.MILLISECONDS)) {
+                        if (chain.call().isCanceled()) {
+                            throw new IOException("Canceled");
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return StubServer.document(chain.request());
+        };
+        return StubServer.newClient(new NuxeoClient.Builder().hedging(policy), server);
+    }
+
+}
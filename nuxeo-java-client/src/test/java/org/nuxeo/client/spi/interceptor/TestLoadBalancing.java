@@ -0,0 +1,231 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Kevin Leturc <kleturc@nuxeo.com>
+ */
+package org.nuxeo.client.spi.interceptor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import org.junit.After;
+import org.junit.Test;
+import org.nuxeo.client.NuxeoClient;
+import org.nuxeo.client.StubServer;
+import org.nuxeo.client.objects.Document;
+import org.nuxeo.client.objects.RequestOptions;
+import org.nuxeo.client.objects.upload.BatchUploadManager;
+import org.nuxeo.client.spi.NuxeoClientException;
+import org.nuxeo.client.spi.NuxeoClientRemoteException;
+
+import com.sun.net.httpserver.HttpExchange;
+
+/**
+ * @since 3.1
+ */
+public class TestLoadBalancing {
+
+    protected final List<Node> servers = new ArrayList<>();
+
+    @After
+    public void tearDown() {
+        servers.forEach(node -> node.server.close());
+    }
+
+    @Test
+    public void testRequestsAreSpread() throws IOException {
+        Node server1 = startServer(200);
+        Node server2 = startServer(200);
+        NuxeoClient nuxeoClient = newClient(new LoadBalancingInterceptor(Arrays.asList(server1.url, server2.url)));
+
+        for (int i = 0; i < 20; i++) {
+            assertEquals("uid", nuxeoClient.repository().fetchDocumentById("uid").getId());
+        }
+
+        assertTrue(server1.calls.get() > 0);
+        assertTrue(server2.calls.get() > 0);
+        assertEquals(20, server1.calls.get() + server2.calls.get());
+        assertEquals(server1.calls.get(), nuxeoClient.getLoadBalancer().getRequestCount(server1.url));
+    }
+
+    @Test
+    public void testFailingNodeIsEjected() throws IOException {
+        Node server1 = startServer(200);
+        Node server2 = startServer(503);
+        LoadBalancingInterceptor loadBalancer = new LoadBalancingInterceptor(Arrays.asList(server1.url, server2.url),
+                2, 1, TimeUnit.MINUTES);
+        NuxeoClient nuxeoClient = newClient(loadBalancer);
+
+        for (int i = 0; i < 20; i++) {
+            try {
+                nuxeoClient.repository().fetchDocumentById("uid");
+            } catch (NuxeoClientRemoteException e) {
+                assertEquals(503, e.getStatus());
+            }
+        }
+
+        assertEquals(2, server2.calls.get());
+        assertTrue(loadBalancer.isEjected(server2.url));
+        assertFalse(loadBalancer.isEjected(server1.url));
+    }
+
+    @Test
+    public void testCancelledRequestsAreNotFailures() throws IOException {
+        Node server = startServer(200);
+        server.delayMillis = 2_000;
+        LoadBalancingInterceptor loadBalancer = new LoadBalancingInterceptor(Collections.singletonList(server.url), 1,
+                1, TimeUnit.MINUTES);
+        NuxeoClient nuxeoClient = newClient(loadBalancer);
+
+        for (int i = 0; i < 3; i++) {
+            try {
+                nuxeoClient.repository()
+                           .fetchDocumentById("uid", new RequestOptions().deadline(50, TimeUnit.MILLISECONDS));
+                fail("Call should have exceeded its deadline");
+            } catch (NuxeoClientException e) {
+                // expected
+            }
+        }
+
+        assertEquals(3, loadBalancer.getRequestCount(server.url));
+        assertEquals(0, loadBalancer.getOutstanding(server.url));
+        assertFalse(loadBalancer.isEjected(server.url));
+    }
+
+    @Test
+    public void testOtherPathsAreNotBalanced() throws IOException {
+        Node server1 = startServer(200);
+        Node server2 = startServer(200);
+        LoadBalancingInterceptor loadBalancer = new LoadBalancingInterceptor(Arrays.asList(server1.url, server2.url));
+        NuxeoClient nuxeoClient = newClient(loadBalancer);
+
+        for (int i = 0; i < 10; i++) {
+            // path sharing the prefix of node url
+            nuxeoClient.get(server1.url + "2/api/v1/id/uid").close();
+        }
+
+        assertEquals(0, loadBalancer.getRequestCount(server1.url));
+        assertEquals(0, loadBalancer.getRequestCount(server2.url));
+    }
+
+    @Test
+    public void testBatchUploadIsSticky() throws IOException {
+        Node server1 = startServer(200);
+        Node server2 = startServer(200);
+        NuxeoClient nuxeoClient = newClient(new LoadBalancingInterceptor(Arrays.asList(server1.url, server2.url)));
+        BatchUploadManager batchUploadManager = nuxeoClient.batchUploadManager();
+
+        List<String> batchIds = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            batchIds.add(batchUploadManager.createBatch().getBatchId());
+        }
+        for (String batchId : batchIds) {
+            for (int i = 0; i < 5; i++) {
+                batchUploadManager.fetchBatchUploads(batchId);
+            }
+            // documents referencing the batch
+            Document document = Document.createWithName("file", "File");
+            Map<String, Object> content = new HashMap<>();
+            content.put("upload-batch", batchId);
+            content.put("upload-fileId", "0");
+            document.setPropertyValue("file:content", content);
+            nuxeoClient.repository().createDocumentByPath("/", document);
+        }
+
+        assertEquals(Collections.emptyList(), server1.misroutedBatches);
+        assertEquals(Collections.emptyList(), server2.misroutedBatches);
+    }
+
+    protected NuxeoClient newClient(LoadBalancingInterceptor loadBalancer) {
+        return new NuxeoClient(new NuxeoClient.Builder().loadBalancer(loadBalancer)) {
+        };
+    }
+
+    protected Node startServer(int status) throws IOException {
+        Node server = new Node(status);
+        servers.add(server);
+        return server;
+    }
+
+    /**
+     * Stub of a Nuxeo node: replies documents and creates batches named after the node.
+     */
+    protected static class Node {
+
+        protected final StubServer server;
+
+        protected final String url;
+
+        protected final String name;
+
+        protected final int status;
+
+        protected volatile long delayMillis;
+
+        protected final AtomicInteger calls = new AtomicInteger();
+
+        protected final AtomicInteger batchCount = new AtomicInteger();
+
+        protected final List<String> misroutedBatches = Collections.synchronizedList(new ArrayList<>());
+
+        protected Node(int status) throws IOException {
+            this.status = status;
+            server = new StubServer(this::handle);
+            url = server.getUrl();
+            name = "node" + server.getPort();
+        }
+
+        protected void handle(HttpExchange exchange) throws IOException {
+            calls.incrementAndGet();
+            if (delayMillis > 0) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(delayMillis));
+            }
+            String path = exchange.getRequestURI().getPath();
+            String body = new String(StubServer.readAll(exchange.getRequestBody()), StandardCharsets.UTF_8);
+            if (path.endsWith("/upload") || path.endsWith("/upload/")) {
+                reply(exchange, "{\"batchId\":\"" + name + "-" + batchCount.incrementAndGet() + "\"}");
+                return;
+            }
+            if (path.contains("/upload/") && !path.contains("/upload/" + name + "-")) {
+                misroutedBatches.add(path);
+            } else if (body.contains("upload-batch") && !body.contains(name + "-")) {
+                misroutedBatches.add(body);
+            }
+            reply(exchange, path.contains("/upload/") ? "[]" : StubServer.DOCUMENT_JSON);
+        }
+
+        protected void reply(HttpExchange exchange, String json) throws IOException {
+            StubServer.reply(exchange, status, status == 200 ? "application/json" : "text/plain",
+                    json.getBytes(StandardCharsets.UTF_8));
+        }
+
+    }
+
+}
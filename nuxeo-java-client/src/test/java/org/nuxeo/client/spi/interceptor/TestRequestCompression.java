@@ -0,0 +1,132 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Kevin Leturc <kleturc@nuxeo.com>
+ */
+package org.nuxeo.client.spi.interceptor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.nuxeo.client.NuxeoClient;
+import org.nuxeo.client.StubServer;
+import org.nuxeo.client.objects.Document;
+
+import com.sun.net.httpserver.HttpExchange;
+
+/**
+ * @since 3.1
+ */
+public class TestRequestCompression {
+
+    protected StubServer server;
+
+    protected String contentEncoding;
+
+    protected long wireBytes;
+
+    protected String body;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new StubServer(this::handle);
+    }
+
+    @After
+    public void tearDown() {
+        server.close();
+    }
+
+    @Test
+    public void testLargeDocumentIsCompressed() {
+        newClient(false).repository().updateDocument(newDocument(500));
+        assertNull(contentEncoding);
+        long rawBytes = wireBytes;
+        String rawBody = body;
+
+        // a new document as only dirty properties are sent
+        newClient(true).repository().updateDocument(newDocument(500));
+        assertEquals("gzip", contentEncoding);
+        assertEquals(rawBody, body);
+        // realistic documents compress well
+        assertTrue("compressed=" + wireBytes + " raw=" + rawBytes, wireBytes * 4 < rawBytes);
+    }
+
+    @Test
+    public void testSmallDocumentIsNotCompressed() {
+        newClient(true).repository().updateDocument(newDocument(1));
+        assertNull(contentEncoding);
+    }
+
+    protected NuxeoClient newClient(boolean compression) {
+        NuxeoClient.Builder builder = new NuxeoClient.Builder();
+        if (compression) {
+            builder.compressRequests();
+        }
+        return server.newClient(builder);
+    }
+
+    /**
+     * @return a document with a title, a description and the input number of complex entries, like a contract with
+     *         its lines
+     */
+    protected Document newDocument(int entryCount) {
+        Document document = Document.createWithId("uid", "Contract");
+        document.setPropertyValue("dc:title", "Contract");
+        document.setPropertyValue("dc:description", "Service contract for the maintenance of the platform");
+        List<Map<String, Object>> lines = new ArrayList<>();
+        for (int i = 0; i < entryCount; i++) {
+            Map<String, Object> line = new HashMap<>();
+            line.put("reference", "REF-" + i);
+            line.put("label", "Maintenance of component " + i % 20);
+            line.put("quantity", i % 7);
+            line.put("price", 100.5 * (i % 13));
+            lines.add(line);
+        }
+        document.setPropertyValue("contract:lines", lines);
+        return document;
+    }
+
+    protected void handle(HttpExchange exchange) throws IOException {
+        contentEncoding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+        byte[] wire = StubServer.readAll(exchange.getRequestBody());
+        wireBytes = wire.length;
+        byte[] decoded = wire;
+        if ("gzip".equals(contentEncoding)) {
+            try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(wire))) {
+                decoded = StubServer.readAll(in);
+            }
+        }
+        body = new String(decoded, StandardCharsets.UTF_8);
+        StubServer.reply(exchange, 200, "application/json",
+                StubServer.DOCUMENT_JSON.getBytes(StandardCharsets.UTF_8));
+    }
+
+}
@@ -0,0 +1,150 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Kevin Leturc <kleturc@nuxeo.com>
+ */
+package org.nuxeo.client.spi.interceptor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.nuxeo.client.NuxeoClient;
+import org.nuxeo.client.StubServer;
+import org.nuxeo.client.objects.Document;
+import org.nuxeo.client.spi.NuxeoClientRemoteException;
+
+import okhttp3.Interceptor;
+import okhttp3.Response;
+
+/**
+ * @since 3.1
+ */
+public class TestRetry {
+
+    protected final AtomicInteger calls = new AtomicInteger();
+
+    @Test
+    public void testBackoff() {
+        RetryPolicy policy = new RetryPolicy().backoff(100, 1000, TimeUnit.MILLISECONDS).jitter(0);
+        assertEquals(100, policy.computeBackoff(1));
+        assertEquals(200, policy.computeBackoff(2));
+        assertEquals(400, policy.computeBackoff(3));
+        assertEquals(1000, policy.computeBackoff(10));
+        assertEquals(1000, policy.computeBackoff(100));
+
+        policy.jitter(0.5);
+        long backoff = policy.computeBackoff(2);
+        assertTrue(backoff >= 100 && backoff <= 200);
+    }
+
+    @Test
+    public void testGetIsRetried() {
+        NuxeoClient nuxeoClient = newClient(new RetryPolicy(), 2);
+
+        Document document = nuxeoClient.repository().fetchDocumentById("uid");
+
+        assertEquals("uid", document.getId());
+        assertEquals(3, calls.get());
+        assertEquals(2, nuxeoClient.getRetryInterceptor().getRetryCount());
+    }
+
+    @Test
+    public void testRetryStopsAfterMaxAttempts() {
+        NuxeoClient nuxeoClient = newClient(new RetryPolicy().maxAttempts(2), 2);
+
+        try {
+            nuxeoClient.repository().fetchDocumentById("uid");
+            fail("Request should have failed");
+        } catch (NuxeoClientRemoteException e) {
+            assertEquals(503, e.getStatus());
+        }
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void testOperationIsOnlyRetriedWhenIdempotent() {
+        NuxeoClient nuxeoClient = newClient(new RetryPolicy(), 1);
+        try {
+            nuxeoClient.operation("Document.Create").execute();
+            fail("Request should have failed");
+        } catch (NuxeoClientRemoteException e) {
+            assertEquals(503, e.getStatus());
+        }
+        assertEquals(1, calls.get());
+
+        calls.set(0);
+        nuxeoClient = newClient(new RetryPolicy().idempotentOperations("Repository.GetDocument"), 1);
+        Document document = nuxeoClient.operation("Repository.GetDocument").param("value", "uid").execute();
+        assertEquals("uid", document.getId());
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void testRetryBudget() {
+        NuxeoClient nuxeoClient = newClient(new RetryPolicy().budget(0, 1), 2);
+
+        try {
+            nuxeoClient.repository().fetchDocumentById("uid");
+            fail("Request should have failed");
+        } catch (NuxeoClientRemoteException e) {
+            assertEquals(503, e.getStatus());
+        }
+        // the only retry of the budget was used
+        assertEquals(2, calls.get());
+        assertEquals(1, nuxeoClient.getRetryInterceptor().getRetryCount());
+        assertEquals(1, nuxeoClient.getRetryInterceptor().getBudgetExhaustedCount());
+    }
+
+    @Test
+    public void testRetryAfterLongerThanMaxBackoffIsNotRetried() {
+        Interceptor server = chain -> {
+            calls.incrementAndGet();
+            return unavailable(chain).newBuilder().header("Retry-After", "3600").build();
+        };
+        NuxeoClient nuxeoClient = StubServer.newClient(new NuxeoClient.Builder().retryPolicy(new RetryPolicy()),
+                server);
+
+        long start = System.nanoTime();
+        try {
+            nuxeoClient.repository().fetchDocumentById("uid");
+            fail("Request should have failed");
+        } catch (NuxeoClientRemoteException e) {
+            assertEquals(503, e.getStatus());
+        }
+        assertEquals(1, calls.get());
+        assertTrue(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start) < 5);
+    }
+
+    /**
+     * @param failures the number of requests to fail with a 503 before replying
+     */
+    protected NuxeoClient newClient(RetryPolicy policy, int failures) {
+        policy.backoff(1, 10, TimeUnit.MILLISECONDS);
+        Interceptor server = chain -> calls.incrementAndGet() <= failures ? unavailable(chain)
+                : StubServer.json(chain.request(), StubServer.DOCUMENT_JSON);
+        return StubServer.newClient(new NuxeoClient.Builder().retryPolicy(policy), server);
+    }
+
+    protected Response unavailable(Interceptor.Chain chain) {
+        return StubServer.text(chain.request(), 503, "unavailable");
+    }
+
+}
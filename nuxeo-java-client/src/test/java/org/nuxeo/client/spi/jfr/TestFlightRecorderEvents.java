@@ -0,0 +1,143 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Kevin Leturc <kleturc@nuxeo.com>
+ */
+package org.nuxeo.client.spi.jfr;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+import org.nuxeo.client.NuxeoClient;
+import org.nuxeo.client.StubServer;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * JFR events are enabled by the build for unit tests, see {@link FlightRecorderEvents#ENABLED_PROPERTY}.
+ *
+ * @since 3.1
+ */
+public class TestFlightRecorderEvents {
+
+    protected static final String DOCUMENTS_JSON = "{\"entity-type\":\"documents\",\"entries\":["
+            + StubServer.DOCUMENT_JSON + "]}";
+
+    protected final NuxeoClient nuxeoClient = StubServer.newClient(new NuxeoClient.Builder(), this::reply);
+
+    @Test
+    public void testCallsAreRecorded() throws IOException {
+        assumeTrue(FlightRecorderEvents.isEnabled());
+
+        List<RecordedEvent> events = record(() -> {
+            nuxeoClient.repository().fetchDocumentById("uid");
+            nuxeoClient.repository().fetchDocumentByIdAsync("uid").join();
+            nuxeoClient.repository().streamQuery("SELECT * FROM Document", document -> {
+            });
+        });
+
+        List<RecordedEvent> calls = filter(events, "org.nuxeo.client.Call");
+        assertEquals(3, calls.size());
+        for (RecordedEvent call : calls) {
+            assertEquals("GET", call.getString("method"));
+            assertEquals(200, call.getInt("status"));
+            assertFalse(call.getBoolean("cacheHit"));
+        }
+        assertEquals("GET id/{}", calls.get(0).getString("endpoint"));
+        assertEquals(StubServer.DOCUMENT_JSON.length(), calls.get(0).getLong("bytes"));
+        assertEquals("GET id/{}", calls.get(1).getString("endpoint"));
+        assertEquals("GET query", calls.get(2).getString("endpoint"));
+
+        // streamed response is not deserialized by the converter
+        List<RecordedEvent> deserializations = filter(events, "org.nuxeo.client.Deserialization");
+        assertEquals(2, deserializations.size());
+        for (RecordedEvent deserialization : deserializations) {
+            assertEquals("org.nuxeo.client.objects.Document", deserialization.getString("javaType"));
+            assertEquals("application/json", deserialization.getString("mediaType"));
+            assertEquals(StubServer.DOCUMENT_JSON.length(), deserialization.getLong("bytes"));
+        }
+    }
+
+    @Test
+    public void testEventsAreNoopWhenDisabled() {
+        String enabled = System.getProperty(FlightRecorderEvents.ENABLED_PROPERTY);
+        // initialize the events of the client before changing the property
+        boolean clientEnabled = FlightRecorderEvents.isEnabled();
+        try {
+            System.clearProperty(FlightRecorderEvents.ENABLED_PROPERTY);
+            assertSame(FlightRecorderEvents.NoopEvent.INSTANCE, FlightRecorderEvents.createFactory());
+
+            System.setProperty(FlightRecorderEvents.ENABLED_PROPERTY, "true");
+            assertTrue(FlightRecorderEvents.createFactory() instanceof JfrEventFactory);
+        } finally {
+            if (enabled == null) {
+                System.clearProperty(FlightRecorderEvents.ENABLED_PROPERTY);
+            } else {
+                System.setProperty(FlightRecorderEvents.ENABLED_PROPERTY, enabled);
+            }
+        }
+        assertEquals(clientEnabled, FlightRecorderEvents.isEnabled());
+        // no-op records ignore their input
+        FlightRecorderEvents.NoopEvent.INSTANCE.beginCall().record(null, null, false);
+        FlightRecorderEvents.NoopEvent.INSTANCE.beginDeserialization().record(null, null);
+    }
+
+    protected List<RecordedEvent> record(Runnable runnable) throws IOException {
+        Path file = Files.createTempFile("nuxeo-client", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(CallEvent.class);
+            recording.enable(DeserializationEvent.class);
+            recording.start();
+            runnable.run();
+            recording.stop();
+            recording.dump(file);
+            return RecordingFile.readAllEvents(file);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    protected List<RecordedEvent> filter(List<RecordedEvent> events, String name) {
+        return events.stream()
+                     .filter(event -> name.equals(event.getEventType().getName()))
+                     .sorted((e1, e2) -> e1.getStartTime().compareTo(e2.getStartTime()))
+                     .collect(Collectors.toList());
+    }
+
+    protected Response reply(Interceptor.Chain chain) {
+        Request request = chain.request();
+        if (request.url().encodedPath().endsWith("/query")) {
+            return StubServer.json(request, DOCUMENTS_JSON);
+        }
+        return StubServer.json(request, StubServer.DOCUMENT_JSON);
+    }
+
+}
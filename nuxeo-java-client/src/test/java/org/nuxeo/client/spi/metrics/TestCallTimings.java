@@ -0,0 +1,101 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Kevin Leturc <kleturc@nuxeo.com>
+ */
+package org.nuxeo.client.spi.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.nuxeo.client.NuxeoClient;
+import org.nuxeo.client.StubServer;
+
+/**
+ * @since 3.1
+ */
+public class TestCallTimings {
+
+    protected StubServer server;
+
+    protected final List<CallTimings> calls = new CopyOnWriteArrayList<>();
+
+    @Before
+    public void setUp() throws IOException {
+        server = new StubServer(exchange -> StubServer.reply(exchange, 200, "application/json",
+                StubServer.DOCUMENT_JSON.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @After
+    public void tearDown() {
+        server.close();
+    }
+
+    @Test
+    public void testPhaseTimingsAreCaptured() {
+        SlowRequestLog slowRequestLog = new SlowRequestLog(0, TimeUnit.MILLISECONDS, 0);
+        NuxeoClient nuxeoClient = server.newClient(
+                new NuxeoClient.Builder().callTimingListener(calls::add).callTimingListener(slowRequestLog));
+
+        nuxeoClient.repository().fetchDocumentById("uid");
+        nuxeoClient.repository().fetchDocumentById("uid");
+
+        assertEquals(2, calls.size());
+        CallTimings first = calls.get(0);
+        assertEquals("GET", first.getMethod());
+        assertEquals("GET id/{}", first.getEndpoint());
+        assertEquals(200, first.getStatus());
+        assertNull(first.getFailure());
+        assertTrue(first.getConnectNanos() >= 0);
+        assertTrue(first.getRequestWriteNanos() >= 0);
+        assertTrue(first.getTimeToFirstByteNanos() >= 0);
+        assertTrue(first.getBodyReadNanos() >= 0);
+        assertTrue(first.getDeserializationNanos() >= 0);
+        assertTrue(first.getTotalNanos() > 0);
+        // second call uses the pooled connection
+        assertEquals(-1, calls.get(1).getConnectNanos());
+        // all calls are slow, none is logged
+        assertEquals(2, slowRequestLog.getSlowCount());
+    }
+
+    @Test
+    public void testDeserializationIsCapturedOnAnyThread() {
+        NuxeoClient nuxeoClient = server.newClient(new NuxeoClient.Builder().callTimingListener(calls::add));
+
+        // response is deserialized by the okhttp dispatcher
+        nuxeoClient.repository().fetchDocumentByIdAsync("uid").join();
+        // response is read by the caller without converter
+        nuxeoClient.repository().streamQuery("SELECT * FROM Document", document -> {
+        });
+
+        assertEquals(2, calls.size());
+        for (CallTimings timings : calls) {
+            assertEquals(200, timings.getStatus());
+            assertTrue(timings.getDeserializationNanos() >= 0);
+        }
+    }
+
+}
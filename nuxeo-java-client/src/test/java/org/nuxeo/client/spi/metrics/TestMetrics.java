@@ -0,0 +1,117 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Kevin Leturc <kleturc@nuxeo.com>
+ */
+package org.nuxeo.client.spi.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.nuxeo.client.NuxeoClient;
+import org.nuxeo.client.StubServer;
+import org.nuxeo.client.spi.NuxeoClientRemoteException;
+import org.nuxeo.client.spi.interceptor.MetricsInterceptor;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+
+/**
+ * @since 3.1
+ */
+public class TestMetrics {
+
+    @Test
+    public void testEndpointName() {
+        assertEquals("GET id/{}", endpoint("GET", "id/uid"));
+        assertEquals("GET id/{}/@children", endpoint("GET", "id/uid/@children?pageSize=10"));
+        assertEquals("GET path/{}", endpoint("GET", "path/default-domain/workspaces/ws"));
+        assertEquals("GET path/{}/@blob/{}", endpoint("GET", "path/default-domain/file/@blob/file:content"));
+        assertEquals("POST automation/Document.Create", endpoint("POST", "automation/Document.Create"));
+        assertEquals("POST upload/{}", endpoint("POST", "upload/batchId/0"));
+        assertEquals("GET query", endpoint("GET", "query?query=SELECT"));
+        assertEquals("GET repo/{}/id/{}/@children", endpoint("GET", "repo/default/id/uid/@children"));
+        assertEquals("GET repo/{}/path/{}", endpoint("GET", "repo/default/path/default-domain/workspaces/ws"));
+        assertEquals("GET repo/{}/query", endpoint("GET", "repo/default/query?query=SELECT"));
+        assertEquals("POST upload/{}/execute/Blob.AttachOnDocument",
+                endpoint("POST", "upload/batchId/execute/Blob.AttachOnDocument"));
+        assertEquals("POST upload/{}/execute/Blob.AttachOnDocument",
+                endpoint("POST", "upload/batchId/0/execute/Blob.AttachOnDocument"));
+        // segments of document path looking like literals are identifiers
+        assertEquals("GET path/{}/@acl", endpoint("GET", "path/default-domain/id/query/@acl"));
+        assertEquals("GET repo/{}/path/{}/@blob/{}",
+                endpoint("GET", "repo/default/path/default-domain/file/@blob/file:content"));
+        assertEquals("GET group/{}/user/{}", endpoint("GET", "group/members/user/jdoe"));
+    }
+
+    @Test
+    public void testMetricsAreRecorded() {
+        Interceptor server = chain -> {
+            Request request = chain.request();
+            if (request.url().encodedPath().endsWith("error")) {
+                return StubServer.text(request, 404, "not found");
+            }
+            return StubServer.json(request, StubServer.DOCUMENT_JSON);
+        };
+        NuxeoClient nuxeoClient = StubServer.newClient(new NuxeoClient.Builder().metrics(), server);
+        for (int i = 0; i < 3; i++) {
+            nuxeoClient.repository().fetchDocumentById("uid" + i);
+        }
+        try {
+            nuxeoClient.repository().fetchDocumentById("error");
+            fail("Request should have failed");
+        } catch (NuxeoClientRemoteException e) {
+            assertEquals(404, e.getStatus());
+        }
+
+        InMemoryMetrics metrics = (InMemoryMetrics) nuxeoClient.getMetrics();
+        EndpointMetrics endpoint = metrics.getEndpoint("GET id/{}");
+        assertEquals(4, endpoint.getRequestCount());
+        assertEquals(0, endpoint.getInFlight());
+        assertEquals(3, endpoint.getStatusCount(200));
+        assertEquals(1, endpoint.getStatusCount(404));
+        assertEquals(3 * StubServer.DOCUMENT_JSON.length() + "not found".length(), endpoint.getResponseBytes());
+        assertTrue(endpoint.getLatencyPercentile(0.99) >= endpoint.getLatencyPercentile(0.5));
+        assertEquals(0, metrics.getConnectionCount());
+    }
+
+    @Test
+    public void testLatencyPercentile() {
+        EndpointMetrics metrics = new EndpointMetrics("endpoint");
+        for (int i = 1; i <= 100; i++) {
+            metrics.onRequest();
+            metrics.onResponse(200, TimeUnit.MILLISECONDS.toNanos(i), 0);
+        }
+        assertEquals(50, metrics.getMeanLatency() / 1000);
+        // 50ms is in [32.768ms, 65.536ms[ bucket
+        assertEquals(65535, metrics.getLatencyPercentile(0.5));
+        assertEquals(100, metrics.getMaxLatency() / 1000);
+    }
+
+    protected String endpoint(String method, String path) {
+        Request request = new Request.Builder().url(StubServer.URL + "/api/v1/" + path)
+                                               .method(method, "POST".equals(method)
+                                                       ? RequestBody.create(null, new byte[0]) : null)
+                                               .build();
+        return MetricsInterceptor.endpoint(request);
+    }
+
+}